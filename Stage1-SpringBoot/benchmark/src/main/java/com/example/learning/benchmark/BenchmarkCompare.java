@@ -0,0 +1,87 @@
+package com.example.learning.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对比两次 JMH JSON 结果（比如两个发布版本），超过阈值的退化打印出来，并以退出码 1 结束，方便接 CI
+ *
+ * 用法：BenchmarkCompare 旧.json 新.json [阈值百分比，默认 10]
+ * 比较两项：
+ * 1. 主分数：avgt / sample / ss 越小越好，thrpt 越大越好
+ * 2. gc.alloc.rate.norm：每次调用分配的字节数，越小越好
+ */
+public class BenchmarkCompare {
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("用法：BenchmarkCompare 旧.json 新.json [阈值百分比，默认 10]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, JsonNode> before = load(args[0]);
+        Map<String, JsonNode> after = load(args[1]);
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s %12s %12s %9s%n",
+                "基准", "旧", "新", "变化", "旧 B/op", "新 B/op", "变化");
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode old = before.get(entry.getKey());
+            if (old == null) {
+                System.out.printf("%-70s （新增）%n", entry.getKey());
+                continue;
+            }
+            JsonNode now = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(now.path("mode").asText());
+            double oldScore = old.path("primaryMetric").path("score").asDouble();
+            double newScore = now.path("primaryMetric").path("score").asDouble();
+            double scoreChange = change(oldScore, newScore);
+            double oldAlloc = old.path("secondaryMetrics").path(ALLOC_NORM).path("score").asDouble(Double.NaN);
+            double newAlloc = now.path("secondaryMetrics").path(ALLOC_NORM).path("score").asDouble(Double.NaN);
+            double allocChange = change(oldAlloc, newAlloc);
+
+            boolean slower = higherIsBetter ? scoreChange < -threshold : scoreChange > threshold;
+            boolean moreAlloc = allocChange > threshold && newAlloc - oldAlloc > 16;
+            if (slower || moreAlloc) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.3f %14.3f %8.1f%% %12.0f %12.0f %8.1f%% %s%n",
+                    entry.getKey(), oldScore, newScore, scoreChange, oldAlloc, newAlloc, allocChange,
+                    slower || moreAlloc ? "<< 退化" : "");
+        }
+        System.out.println(regressions == 0 ? "没有超过 " + threshold + "% 的退化" : regressions + " 项退化超过 " + threshold + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /**
+     * benchmark 名 + 参数 作为 key
+     */
+    private static Map<String, JsonNode> load(String path) throws Exception {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(new File(path))) {
+            StringBuilder key = new StringBuilder(node.path("benchmark").asText()
+                    .replace("com.example.learning.benchmark.", ""));
+            Iterator<Map.Entry<String, JsonNode>> params = node.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), node);
+        }
+        return results;
+    }
+
+    private static double change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return 0;
+        }
+        return (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.learning.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * benchmarks.jar 的入口：在 JMH 命令行参数的基础上固定加上
+ * 1. GC profiler：输出 gc.alloc.rate.norm（每次调用分配多少字节）
+ * 2. JSON 结果文件：默认 jmh-result.json，可用 -rff 指定，例如 -rff results/1.0.0.json
+ *
+ * 用法：
+ *   java -jar target/benchmarks.jar                       全部跑
+ *   java -jar target/benchmarks.jar Jwt -rff jwt.json     只跑名字匹配 Jwt 的
+ *   java -jar target/benchmarks.jar -l                    列出所有基准
+ * 对比两个版本：java -cp target/benchmarks.jar com.example.learning.benchmark.BenchmarkCompare 旧.json 新.json
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldList() || cli.shouldListWithParams() || cli.shouldHelp() || cli.shouldListProfilers()
+                || cli.shouldListResultFormats()) {
+            // 列表、帮助之类的直接交给 JMH 自己的入口
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options options = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(cli.getResult().orElse("jmh-result.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
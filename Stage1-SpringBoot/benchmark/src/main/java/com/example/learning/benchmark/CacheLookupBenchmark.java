@@ -0,0 +1,149 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.common.RedisUtil;
+import com.example.learning.entity.User;
+import com.example.learning.mapper.UserMapper;
+import com.example.learning.metrics.CacheMetrics;
+import com.example.learning.redis.failover.RedisFailoverProperties;
+import com.example.learning.redis.failover.RedisHealthGuard;
+import com.example.learning.redis.failover.ResilientCache;
+import com.example.learning.service.impl.UserServiceImpl;
+import com.example.learning.sharding.SingleTableUserStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserServiceImpl.getUserWithCacheAndProtection 的 CPU 开销（不含网络）
+ * Redis 换成内存 Map，但值仍然按 GenericJackson2JsonRedisSerializer 存成字节，命中时照样反序列化；
+ * UserMapper 换成直接返回 User 的桩，miss 分支只测代码本身的开销
+ * 外面照常包一层 ResilientCache（Redis 正常状态），降级门面的开销也算在内
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheLookupBenchmark {
+
+    private static final long CACHED_ID = 10086L;
+    private static final long MISSING_ID = -1L;
+    private static final long UNCACHED_ID = 10087L;
+
+    private UserServiceImpl cachingService;
+    private UserServiceImpl readOnlyCacheService;
+
+    @Setup
+    public void setup() {
+        UserMapper userMapper = (UserMapper) Proxy.newProxyInstance(UserMapper.class.getClassLoader(),
+                new Class<?>[]{UserMapper.class}, (proxy, method, args) -> {
+                    if ("selectById".equals(method.getName())) {
+                        long id = ((Number) args[0]).longValue();
+                        return id > 0 ? Payloads.user(id) : null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CacheMetrics cacheMetrics = new CacheMetrics(meterRegistry);
+
+        InMemoryRedisUtil redis = new InMemoryRedisUtil(false);
+        cachingService = service(redis, userMapper, cacheMetrics, meterRegistry);
+        // 预先放好：一个正常用户、一个空值缓存
+        cachingService.getUserWithCacheAndProtection(CACHED_ID);
+        cachingService.getUserWithCacheAndProtection(MISSING_ID);
+
+        // 写操作丢弃：每次都走 miss -> 查 DB -> 写缓存 的完整分支
+        readOnlyCacheService = service(new InMemoryRedisUtil(true), userMapper, cacheMetrics, meterRegistry);
+    }
+
+    @Benchmark
+    public User hit() {
+        return cachingService.getUserWithCacheAndProtection(CACHED_ID);
+    }
+
+    @Benchmark
+    public User nullHit() {
+        return cachingService.getUserWithCacheAndProtection(MISSING_ID);
+    }
+
+    @Benchmark
+    public User missThenLoad() {
+        return readOnlyCacheService.getUserWithCacheAndProtection(UNCACHED_ID);
+    }
+
+    private static UserServiceImpl service(RedisUtil redisUtil, UserMapper userMapper, CacheMetrics cacheMetrics,
+                                           MeterRegistry meterRegistry) {
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        RedisFailoverProperties properties = new RedisFailoverProperties();
+        RedisHealthGuard guard = new RedisHealthGuard(properties, redisTemplate, meterRegistry);
+        UserServiceImpl service = new UserServiceImpl();
+        inject(service, "resilientCache", new ResilientCache(properties, redisUtil, guard, redisTemplate, meterRegistry));
+        inject(service, "userStore", new SingleTableUserStore(userMapper));
+        inject(service, "userCacheTtl", Duration.ofMinutes(30));
+        inject(service, "cacheMetrics", cacheMetrics);
+        return service;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalStateException(target.getClass().getSimpleName() + " 没有字段 " + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    /**
+     * 内存版 RedisUtil：值按 Redis 里的格式存成字节
+     */
+    private static class InMemoryRedisUtil extends RedisUtil {
+
+        private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+        private final Map<String, byte[]> store = new ConcurrentHashMap<>();
+        private final boolean discardWrites;
+
+        InMemoryRedisUtil(boolean discardWrites) {
+            this.discardWrites = discardWrites;
+        }
+
+        @Override
+        public void set(String key, Object value, long timeout, TimeUnit unit) {
+            byte[] bytes = serializer.serialize(value);
+            if (!discardWrites) {
+                store.put(key, bytes);
+            }
+        }
+
+        @Override
+        public Object get(String key) {
+            byte[] bytes = store.get(key);
+            return bytes == null ? null : serializer.deserialize(bytes);
+        }
+
+        @Override
+        public void delete(String key) {
+            store.remove(key);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.common.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil：每个 /users/** 请求都要走一遍
+ * interceptorPath 对应 JwtInterceptor 的实际调用：verifyToken + getUserIdFromToken，token 被解析了两次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+    private String tamperedToken;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        token = jwtUtil.generateToken(10086L);
+        // 改掉签名的最后一个字符：验签失败的路径
+        char last = token.charAt(token.length() - 1);
+        tamperedToken = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(10086L);
+    }
+
+    @Benchmark
+    public boolean verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public boolean verifyTamperedToken() {
+        return jwtUtil.verifyToken(tamperedToken);
+    }
+
+    @Benchmark
+    public Long interceptorPath() {
+        return jwtUtil.verifyToken(token) ? jwtUtil.getUserIdFromToken(token) : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.User;
+
+/**
+ * 基准测试用的数据，和线上真实数据的大小保持一致
+ */
+final class Payloads {
+
+    /**
+     * BCrypt(cost=10) 之后的 "123456"，和 user 表里存的一样长（60 个字符）
+     */
+    static final String PASSWORD_HASH = "$2a$10$h5C5AGlPjEnQ59ncGATHLOm426x8KEGAV3RG24nuk93K0w9GWKiEy";
+
+    static final String PASSWORD = "123456";
+
+    private Payloads() {
+    }
+
+    /**
+     * 缓存里存的 User：和 selectById 查出来的一样，带密码哈希
+     */
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("zhangsan_" + id);
+        user.setAge(28);
+        user.setPassword(PASSWORD_HASH);
+        return user;
+    }
+}
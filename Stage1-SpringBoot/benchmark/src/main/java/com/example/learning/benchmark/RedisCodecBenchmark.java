@@ -0,0 +1,82 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.User;
+import com.example.learning.redis.codec.CompactRedisSerializer;
+import com.example.learning.redis.codec.RedisCodecProperties;
+import com.example.learning.redis.codec.UserRedisCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 值序列化：原来的 JSON vs 紧凑二进制（CompactRedisSerializer）
+ * payload：user 单个用户（走 UserRedisCodec）；users 100 个用户的列表（没注册 codec，走内置 JSON 再 LZ4 压缩）
+ * 编码后的大小见 RedisCodecSizeReport
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    @Param({"json", "compact"})
+    private String codec;
+
+    @Param({"user", "users"})
+    private String payload;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        serializer = "json".equals(codec) ? new GenericJackson2JsonRedisSerializer() : compact();
+        value = payload(payload);
+        bytes = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    static CompactRedisSerializer compact() {
+        return new CompactRedisSerializer(Collections.singletonList(new UserRedisCodec()),
+                new RedisCodecProperties(), new SimpleMeterRegistry());
+    }
+
+    static Object payload(String name) {
+        if ("user".equals(name)) {
+            return Payloads.user(10086L);
+        }
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(Payloads.user(10000L + i));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.redis.codec.CompactRedisSerializer;
+import com.example.learning.redis.codec.RedisCodecProperties;
+import com.example.learning.redis.codec.UserRedisCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.Collections;
+
+/**
+ * 各 payload 编码后的字节数：JSON / 紧凑二进制（不压缩）/ 紧凑二进制 + LZ4
+ * 运行：java -cp target/benchmarks.jar com.example.learning.benchmark.RedisCodecSizeReport
+ */
+public class RedisCodecSizeReport {
+
+    public static void main(String[] args) {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        RedisCodecProperties noCompression = new RedisCodecProperties();
+        noCompression.setCompressionEnabled(false);
+        CompactRedisSerializer compact = new CompactRedisSerializer(Collections.singletonList(new UserRedisCodec()),
+                noCompression, new SimpleMeterRegistry());
+        CompactRedisSerializer compactLz4 = RedisCodecBenchmark.compact();
+
+        System.out.printf("%-8s %10s %10s %12s%n", "payload", "json", "compact", "compact+lz4");
+        for (String name : new String[]{"user", "users", "empty"}) {
+            Object value = "empty".equals(name) ? "" : RedisCodecBenchmark.payload(name);
+            System.out.printf("%-8s %10d %10d %12d%n", name,
+                    json.serialize(value).length, compact.serialize(value).length, compactLz4.serialize(value).length);
+        }
+    }
+}
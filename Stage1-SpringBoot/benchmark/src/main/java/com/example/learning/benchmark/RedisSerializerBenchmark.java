@@ -0,0 +1,60 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GenericJackson2JsonRedisSerializer（RedisConfig 里配置的 value 序列化器）读写 User
+ * 每次缓存命中都要 deserialize 一次，写缓存要 serialize 一次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    private GenericJackson2JsonRedisSerializer serializer;
+    private User user;
+    private byte[] userBytes;
+    private byte[] emptyMarkerBytes;
+
+    @Setup
+    public void setup() {
+        serializer = new GenericJackson2JsonRedisSerializer();
+        user = Payloads.user(10086L);
+        userBytes = serializer.serialize(user);
+        emptyMarkerBytes = serializer.serialize("");
+    }
+
+    @Benchmark
+    public byte[] serializeUser() {
+        return serializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object deserializeUser() {
+        return serializer.deserialize(userBytes);
+    }
+
+    /**
+     * 防穿透的空值缓存 ""
+     */
+    @Benchmark
+    public Object deserializeEmptyMarker() {
+        return serializer.deserialize(emptyMarkerBytes);
+    }
+}
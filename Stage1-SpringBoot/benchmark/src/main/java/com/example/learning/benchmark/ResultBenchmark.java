@@ -0,0 +1,55 @@
+package com.example.learning.benchmark;
+
+import com.example.learning.common.Result;
+import com.example.learning.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result 包装：对比直接写 User 和写 Result<User> 的 JSON，看包装带来的额外开销
+ * ObjectMapper 用默认配置，和 Spring MVC 的 MappingJackson2HttpMessageConverter 基本一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultBenchmark {
+
+    private ObjectMapper objectMapper;
+    private User user;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        user = Payloads.user(10086L);
+    }
+
+    @Benchmark
+    public Result<User> wrap() {
+        return Result.success(user);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeResult() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Result.success(user));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.learning.audit;
+
+import com.example.learning.entity.LoginLog;
+import com.example.learning.mapper.LoginLogMapper;
+import com.example.learning.warmup.ActiveUserList;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 登录审计流水线：登录线程只负责把事件放进无锁环形队列，单个消费线程攒批写库
+ *
+ * 1. record：一次 CAS 入队，不做 IO，不加锁；队列满按 overflow-policy 丢弃或短暂等待（最多 block-timeout）
+ * 2. 消费线程：攒够 batch-size 或等满 flush-interval 就写一批，一条多行 INSERT 写进 login_log
+ * 3. 写库失败：这批改写到滚动文件（logs/login-audit），之后 db-retry-interval 内都直接写文件，到点再试数据库
+ * 4. 每写完一批顺便更新活跃用户榜（ActiveUserList，启动预热用）
+ * 5. 关闭时把队列里剩下的写完再退出
+ * 指标：login.audit.events{result=written_db|written_file|dropped|lost}、login.audit.buffer.size
+ */
+@Slf4j
+@Component
+public class LoginAuditPipeline {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final LoginAuditProperties properties;
+    private final LoginLogMapper loginLogMapper;
+    private final ActiveUserList activeUserList;
+    private final MpscRingBuffer<LoginEvent> buffer;
+    private final RollingAuditFile fallbackFile;
+    private final Counter writtenDb;
+    private final Counter writtenFile;
+    private final Counter dropped;
+    private final Counter lost;
+
+    private volatile boolean running = true;
+    private volatile Thread consumer;
+    private long dbRetryAt;
+
+    public LoginAuditPipeline(LoginAuditProperties properties, LoginLogMapper loginLogMapper,
+                              ActiveUserList activeUserList, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.loginLogMapper = loginLogMapper;
+        this.activeUserList = activeUserList;
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        this.fallbackFile = new RollingAuditFile(properties.getFallbackDir(),
+                properties.getFallbackMaxFileSize().toBytes(), properties.getFallbackMaxHistory());
+        this.writtenDb = counter(meterRegistry, "written_db");
+        this.writtenFile = counter(meterRegistry, "written_file");
+        this.dropped = counter(meterRegistry, "dropped");
+        this.lost = counter(meterRegistry, "lost");
+        Gauge.builder("login.audit.buffer.size", buffer, MpscRingBuffer::size)
+                .description("登录审计队列中待写的事件数")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("login.audit.events")
+                .description("登录审计事件数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        Thread thread = new Thread(this::consumeLoop, "login-audit-writer");
+        thread.setDaemon(true);
+        consumer = thread;
+        thread.start();
+    }
+
+    /**
+     * 登录线程调用：记录一次登录，返回是否入队成功（失败说明被丢弃了）
+     */
+    public boolean record(LoginEvent event) {
+        if (buffer.offer(event)) {
+            // 攒够一批就叫醒消费线程，不够就等它按 flush-interval 自己醒
+            if (buffer.size() >= properties.getBatchSize()) {
+                LockSupport.unpark(consumer);
+            }
+            return true;
+        }
+        if (properties.getOverflowPolicy() == LoginAuditProperties.OverflowPolicy.BLOCK) {
+            LockSupport.unpark(consumer);
+            long deadline = System.nanoTime() + properties.getBlockTimeout().toNanos();
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                if (buffer.offer(event)) {
+                    return true;
+                }
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void consumeLoop() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<LoginEvent> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        while (running || buffer.size() > 0 || !batch.isEmpty()) {
+            buffer.drain(batch::add, batchSize - batch.size());
+            long waited = System.nanoTime() - lastFlush;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (waited >= flushIntervalNanos || !running))) {
+                write(batch);
+                activeUserList.touch(batch);
+                batch.clear();
+                lastFlush = System.nanoTime();
+            } else {
+                LockSupport.parkNanos(this, batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - waited);
+            }
+        }
+        fallbackFile.close();
+    }
+
+    private void write(List<LoginEvent> batch) {
+        long now = System.currentTimeMillis();
+        if (now >= dbRetryAt) {
+            try {
+                List<LoginLog> logs = new ArrayList<>(batch.size());
+                for (LoginEvent event : batch) {
+                    logs.add(new LoginLog(null, event.getUserId(), event.getUsername(),
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getLoginTime()), ZONE)));
+                }
+                loginLogMapper.insertBatch(logs);
+                writtenDb.increment(batch.size());
+                return;
+            } catch (Exception e) {
+                dbRetryAt = now + properties.getDbRetryInterval().toMillis();
+                log.warn("登录日志写库失败，{} 秒内改写文件 {}：{}", properties.getDbRetryInterval().getSeconds(),
+                        properties.getFallbackDir(), e.getMessage());
+            }
+        }
+        try {
+            fallbackFile.write(batch);
+            writtenFile.increment(batch.size());
+        } catch (Exception e) {
+            lost.increment(batch.size());
+            log.error("登录日志写文件也失败，丢失 {} 条", batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread = consumer;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
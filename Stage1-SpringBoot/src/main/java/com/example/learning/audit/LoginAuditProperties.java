@@ -0,0 +1,67 @@
+package com.example.learning.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 登录审计配置（login-audit.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "login-audit")
+public class LoginAuditProperties {
+
+    /**
+     * 环形队列容量（向上取 2 的幂）
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 每批最多写多少条
+     */
+    private int batchSize = 200;
+
+    /**
+     * 队列里不够一批时，最多等多久也要写一次
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 队列满时的处理：DROP 直接丢弃；BLOCK 最多等 blockTimeout，还满再丢弃
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * BLOCK 策略下登录线程最多等多久，不能设大，否则会拖慢 /login
+     */
+    private Duration blockTimeout = Duration.ofMillis(2);
+
+    /**
+     * 数据库写失败后，多久再试一次数据库（期间写文件）
+     */
+    private Duration dbRetryInterval = Duration.ofSeconds(10);
+
+    /**
+     * 数据库不可用时的兜底文件目录
+     */
+    private String fallbackDir = "logs/login-audit";
+
+    /**
+     * 兜底文件单个大小上限，超过后滚动
+     */
+    private DataSize fallbackMaxFileSize = DataSize.ofMegabytes(10);
+
+    /**
+     * 兜底文件最多保留几个历史文件
+     */
+    private int fallbackMaxHistory = 5;
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.learning.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 一次成功登录（登录线程只构造这个小对象放进队列，其余工作都在消费线程做）
+ */
+@Data
+@AllArgsConstructor
+public class LoginEvent {
+    private Long userId;
+    private String username;
+    private long loginTime;
+}
@@ -0,0 +1,97 @@
+package com.example.learning.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁环形队列：多生产者、单消费者（MPSC）
+ *
+ * 每个槽位带一个序号（sequence）：
+ * - 序号 == 生产位置：槽位空闲，生产者 CAS 抢到 tail 后写入元素，再把序号改成 位置 + 1（发布）
+ * - 序号 == 消费位置 + 1：元素已发布，消费者取走后把序号改成 位置 + 容量（留给下一圈的生产者）
+ * 生产者之间只竞争一次 CAS，不加锁、不阻塞；队列满时 offer 直接返回 false，由调用方决定丢弃还是等待
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * 只有消费者线程写，volatile 是为了 size() 在其它线程读到新值
+     */
+    private volatile long head;
+
+    public MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于 0：" + requestedCapacity);
+        }
+        // 向上取 2 的幂，下标用位运算；至少 2 个槽位，容量为 1 时"已发布"（位置 + 1）和下一圈的"空闲"序号相同，会被覆盖
+        this.capacity = requestedCapacity <= 2 ? 2 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 生产者调用（任意线程），队列满返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[index] = element;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 槽位还没被消费者腾出来：满了
+                return false;
+            }
+            // diff > 0：别的生产者抢先了，重读 tail
+        }
+    }
+
+    /**
+     * 消费者调用（只能有一个线程），最多取 max 个，返回实际取到的个数
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<E> consumer, int max) {
+        long position = head;
+        int count = 0;
+        while (count < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // 没有已发布的元素（可能有生产者抢到了位置但还没写完，下次再取）
+                break;
+            }
+            E element = (E) elements[index];
+            elements[index] = null;
+            sequences.lazySet(index, position + capacity);
+            head = ++position;
+            count++;
+            consumer.accept(element);
+        }
+        return count;
+    }
+
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.learning.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 数据库不可用时的兜底：追加写 login-audit.log，超过大小上限滚动成 login-audit.log.1 ~ .N
+ * 格式：userId \t username \t 登录时间（ISO-8601），一行一条，之后可以导回 login_log 表
+ * 只由消费线程使用，不需要加锁
+ */
+@Slf4j
+class RollingAuditFile {
+
+    private static final String FILE_NAME = "login-audit.log";
+
+    private final Path dir;
+    private final Path current;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private BufferedWriter writer;
+    private long size;
+
+    RollingAuditFile(String dir, long maxFileSize, int maxHistory) {
+        this.dir = Paths.get(dir);
+        this.current = this.dir.resolve(FILE_NAME);
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = maxHistory;
+    }
+
+    void write(List<LoginEvent> events) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        for (LoginEvent event : events) {
+            String line = event.getUserId() + "\t" + event.getUsername() + "\t"
+                    + Instant.ofEpochMilli(event.getLoginTime()) + "\n";
+            writer.write(line);
+            size += line.getBytes(StandardCharsets.UTF_8).length;
+        }
+        writer.flush();
+        if (size >= maxFileSize) {
+            roll();
+        }
+    }
+
+    void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.warn("关闭登录审计文件失败", e);
+            }
+            writer = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        writer = Files.newBufferedWriter(current, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(current);
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.deleteIfExists(dir.resolve(FILE_NAME + "." + maxHistory));
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            Path from = dir.resolve(FILE_NAME + "." + i);
+            if (Files.exists(from)) {
+                Files.move(from, dir.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(current, dir.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        open();
+    }
+}
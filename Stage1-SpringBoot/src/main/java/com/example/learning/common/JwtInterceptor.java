@@ -1,6 +1,7 @@
 package com.example.learning.common;
 
 import com.example.learning.juc.ThreadLocalDemo;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import javax.servlet.http.HttpServletRequest;
@@ -10,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
  * JWT 拦截器
  * 验证请求是否携带有效的 token
  */
+@Slf4j
 public class JwtInterceptor implements HandlerInterceptor {
 
     private final JwtUtil jwtUtil;
@@ -38,7 +40,7 @@ public class JwtInterceptor implements HandlerInterceptor {
 
         Long userId = jwtUtil.getUserIdFromToken(token);
         ThreadLocalDemo.setUserId(userId);
-        System.out.println("线程：" + Thread.currentThread().getName() + " 存入用户ID：" + userId);
+        log.debug("线程：{} 存入用户ID：{}", Thread.currentThread().getName(), userId);
 
         // 验证通过，放行
         return true;
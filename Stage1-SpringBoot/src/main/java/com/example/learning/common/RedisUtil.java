@@ -1,39 +1,197 @@
 package com.example.learning.common;
 
+import com.example.learning.redis.hotkey.HotKeyDetector;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Redis 工具类
+ * 指标：redis.command{command}（每个命令的耗时）、lock.acquire{lock, result=acquired|busy}（抢锁耗时）、
+ * lock.hold{lock}（从抢到锁到释放的持有时间）；lock 标签只取锁 key 的前两段且去掉带数字的段
+ * （lock:seckill:1 → lock:seckill，lock:1001 → lock），key 里带订单号、用户ID时不会每个 key 生成一组指标
+ * 批量操作（multiGet / multiSet / deleteAll / pipelined）按 redis-batch.chunk-size 自动分批，
+ * 一批一次网络往返，同时避免一次发太多命令把 Redis 堵住（Redis 单线程，大批量命令会拖慢其它请求）
+ * get 会经过 HotKeyDetector：访问量超过 hot-key.promote-qps 的 key 在本地缓存 hot-key.local-ttl，不再每次打到 Redis；
+ * 本地副本可能比 Redis 旧，锁的持有者校验、锁内的读-改-写（比如扣库存）要用 getFromRedis
+ */
 @Component
 public class RedisUtil {
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+
+    // 批量操作每批最多多少个 key / 命令
+    @Value("${redis-batch.chunk-size:500}")
+    private int chunkSize;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    // 持有中的锁：lockValue -> 抢到锁的时间，unlock 时算持有时长
+    private final Map<String, LockHold> heldLocks = new ConcurrentHashMap<>();
+
     // 设置缓存
     public void set(String key, Object value, long timeout, TimeUnit unit) {
-        redisTemplate.opsForValue().set(key, value, timeout, unit);
+        timed("set", () -> redisTemplate.opsForValue().set(key, value, timeout, unit));
+        hotKeyDetector.invalidate(key);
     }
 
-    // 获取缓存
+    // 获取缓存（热点 key 先查本地缓存）
     public Object get(String key) {
-        return redisTemplate.opsForValue().get(key);
+        if (!hotKeyDetector.record(key)) {
+            return timed("get", () -> redisTemplate.opsForValue().get(key));
+        }
+        HotKeyDetector.LocalValue local = hotKeyDetector.getLocal(key);
+        byte[] raw;
+        if (local != null) {
+            raw = local.getRaw();
+        } else {
+            // 热点 key 直接取原始字节放进本地缓存，命中时再反序列化，每个调用方拿到的都是新对象
+            // 读之前取版本号：读的过程中本实例改了这个 key 的话，读到的旧字节不放进本地缓存
+            long version = hotKeyDetector.version(key);
+            raw = timed("get", () -> redisTemplate.execute(
+                    (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey(key))));
+            hotKeyDetector.putLocal(key, raw, version);
+        }
+        return raw == null ? null : redisTemplate.getValueSerializer().deserialize(raw);
+    }
+
+    /**
+     * 直接读 Redis，不经过热点本地缓存（也不计入热点统计）
+     * 用于必须读到最新值的地方：解锁前校验持有者、锁内读-改-写
+     */
+    public Object getFromRedis(String key) {
+        return timed("get", () -> redisTemplate.opsForValue().get(key));
     }
 
     // 删除缓存
     public void delete(String key) {
-        redisTemplate.delete(key);
+        timed("del", () -> redisTemplate.delete(key));
+        hotKeyDetector.invalidate(key);
     }
 
     // 设置永不过期
     public void setNeverExpire(String key, Object value) {
-        redisTemplate.opsForValue().set(key, value);
+        timed("set", () -> redisTemplate.opsForValue().set(key, value));
+        hotKeyDetector.invalidate(key);
     }
 
     // 加锁（用于缓存击穿）
     public boolean lock(String key, String value, long timeout, TimeUnit unit) {
-        return redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+        boolean acquired = Boolean.TRUE.equals(timed("setnx", () -> redisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit)));
+        hotKeyDetector.invalidate(key);
+        return acquired;
+    }
+
+    /**
+     * 有序集合按 score 从高到低取 [start, end] 名
+     */
+    public Set<Object> reverseRange(String key, long start, long end) {
+        Set<Object> members = timed("zrevrange", () -> redisTemplate.opsForZSet().reverseRange(key, start, end));
+        return members != null ? members : Collections.emptySet();
+    }
+
+    /**
+     * 批量获取（MGET），返回值和 keys 一一对应，不存在的 key 对应 null
+     */
+    public List<Object> multiGet(List<String> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (List<String> chunk : chunks(keys)) {
+            List<Object> part = timed("mget", () -> redisTemplate.opsForValue().multiGet(chunk));
+            // 在 MULTI / 管道里调用时 multiGet 返回 null
+            values.addAll(part != null ? part : Collections.nCopies(chunk.size(), null));
+        }
+        return values;
+    }
+
+    /**
+     * 批量写入，所有 key 同一个过期时间
+     */
+    public void multiSet(Map<String, ?> values, long timeout, TimeUnit unit) {
+        Duration ttl = Duration.ofMillis(unit.toMillis(timeout));
+        multiSet(values, key -> ttl);
+    }
+
+    /**
+     * 批量写入，每个 key 单独的过期时间（比如加随机抖动防雪崩）
+     * MSET 不支持过期时间，这里用管道发 SET key value PX ttl
+     */
+    public void multiSet(Map<String, ?> values, Function<String, Duration> ttl) {
+        pipelined(values.entrySet(),
+                (operations, entry) -> operations.opsForValue().set(entry.getKey(), entry.getValue(), ttl.apply(entry.getKey())));
+        values.keySet().forEach(hotKeyDetector::invalidate);
+    }
+
+    /**
+     * 批量删除，返回实际删除的个数
+     */
+    public long deleteAll(Collection<String> keys) {
+        long deleted = 0;
+        for (List<String> chunk : chunks(keys)) {
+            Long count = timed("del", () -> redisTemplate.delete(chunk));
+            deleted += count == null ? 0 : count;
+        }
+        keys.forEach(hotKeyDetector::invalidate);
+        return deleted;
+    }
+
+    /**
+     * 对每个元素执行一组命令，用管道发送，按 chunk-size 分批
+     * 例：redisUtil.pipelined(ids, (ops, id) -> ops.expire("user:" + id, Duration.ofMinutes(5)))
+     * @return 每条命令的结果，顺序和发送顺序一致
+     */
+    public <T> List<Object> pipelined(Collection<T> items, BiConsumer<RedisOperations<String, Object>, T> command) {
+        List<Object> results = new ArrayList<>(items.size());
+        for (List<T> chunk : chunks(items)) {
+            results.addAll(pipelined(operations -> {
+                for (T item : chunk) {
+                    command.accept(operations, item);
+                }
+            }));
+        }
+        return results;
+    }
+
+    /**
+     * 任意一组命令用管道发送（一次网络往返），调用方自己控制命令数量
+     * @return 每条命令的结果，顺序和发送顺序一致
+     */
+    public List<Object> pipelined(Consumer<RedisOperations<String, Object>> commands) {
+        return timed("pipeline", () -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                // 管道里的返回值必须是 null，结果由 executePipelined 收集
+                return null;
+            }
+        }));
     }
 
     // 解锁
@@ -55,9 +213,17 @@ public class RedisUtil {
         // 生成唯一value（UUID），解锁时校验，防止误释放其他线程的锁
         String lockValue = UUID.randomUUID().toString();
         // SET NX EX：只有key不存在时才设置（互斥性），同时设置过期时间（防死锁）
-        Boolean success = redisTemplate.opsForValue().setIfAbsent(lockKey, lockValue, expireTime, unit);
+        long start = System.nanoTime();
+        Boolean success = timed("setnx", () -> redisTemplate.opsForValue().setIfAbsent(lockKey, lockValue, expireTime, unit));
+        hotKeyDetector.invalidate(lockKey);
+        boolean acquired = success != null && success;
+        long now = System.nanoTime();
+        timer("lock.acquire", "lock", lockName(lockKey), "result", acquired ? "acquired" : "busy").record(now - start, TimeUnit.NANOSECONDS);
+        if (acquired) {
+            trackHold(lockKey, lockValue, now, unit.toNanos(expireTime));
+        }
         // 成功获取锁，返回value；失败返回null
-        return success != null && success ? lockValue : null;
+        return acquired ? lockValue : null;
     }
 
     /**
@@ -67,12 +233,16 @@ public class RedisUtil {
      * @return 释放结果
      */
     public boolean unlock(String lockKey, String lockValue) {
-        // 1. 获取当前锁的value
-        Object currentValue = redisTemplate.opsForValue().get(lockKey);
+        // 1. 获取当前锁的value（直接读 Redis，热点本地副本里可能是上一个持有者）
+        Object currentValue = getFromRedis(lockKey);
         // 2. 校验：只有当前value和传入的value一致，才释放锁（防止误释放）
         if (lockValue != null && lockValue.equals(currentValue)) {
             // 3. 释放锁（删除key）
-            redisTemplate.delete(lockKey);
+            delete(lockKey);
+            LockHold hold = heldLocks.remove(lockValue);
+            if (hold != null) {
+                timer("lock.hold", "lock", lockName(lockKey)).record(System.nanoTime() - hold.acquiredAt, TimeUnit.NANOSECONDS);
+            }
             return true;
         }
         return false;
@@ -87,14 +257,81 @@ public class RedisUtil {
      * @return 是否获取成功
      */
     public boolean reentrantLock(String lockKey, String lockValue, long expireTime, TimeUnit unit) {
-        // 1. 校验当前锁的value是否是当前线程的value（同一线程）
-        Object currentValue = redisTemplate.opsForValue().get(lockKey);
+        // 1. 校验当前锁的value是否是当前线程的value（同一线程），直接读 Redis
+        Object currentValue = getFromRedis(lockKey);
         if (lockValue != null && lockValue.equals(currentValue)) {
             // 2. 重置过期时间（重入时续期，防止锁过期）
-            redisTemplate.opsForValue().set(lockKey, lockValue, expireTime, unit);
+            set(lockKey, lockValue, expireTime, unit);
             return true;
         }
         // 3. 不是同一线程，按正常流程获取锁
         return tryLock(lockKey, expireTime, unit) != null;
     }
+
+    /**
+     * 指标里的锁名：key 的前两段，带数字的段（订单号、用户ID等）去掉，标签取值个数有上限
+     */
+    private static String lockName(String lockKey) {
+        StringBuilder name = new StringBuilder();
+        String[] segments = lockKey.split(":", 3);
+        for (int i = 0; i < Math.min(2, segments.length); i++) {
+            if (segments[i].chars().anyMatch(Character::isDigit)) {
+                break;
+            }
+            if (name.length() > 0) {
+                name.append(':');
+            }
+            name.append(segments[i]);
+        }
+        return name.length() > 0 ? name.toString() : "other";
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    private <T> List<List<T>> chunks(Collection<T> items) {
+        List<T> list = items instanceof List ? (List<T>) items : new ArrayList<>(items);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    private <T> T timed(String command, Supplier<T> action) {
+        return timer("redis.command", "command", command).record(action);
+    }
+
+    private void timed(String command, Runnable action) {
+        timer("redis.command", "command", command).record(action);
+    }
+
+    private Timer timer(String name, String... tags) {
+        return timers.computeIfAbsent(name + String.join("|", tags), key -> Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * 记录抢到锁的时间；没有 unlock 就过期的锁（业务超时或异常没释放）在这里顺带清理，避免 Map 无限增长
+     */
+    private void trackHold(String lockKey, String lockValue, long acquiredAt, long ttlNanos) {
+        if (heldLocks.size() > 1024) {
+            heldLocks.values().removeIf(hold -> acquiredAt - hold.expireAt > 0);
+        }
+        heldLocks.put(lockValue, new LockHold(acquiredAt, acquiredAt + ttlNanos));
+    }
+
+    private static class LockHold {
+        private final long acquiredAt;
+        private final long expireAt;
+
+        LockHold(long acquiredAt, long expireAt) {
+            this.acquiredAt = acquiredAt;
+            this.expireAt = expireAt;
+        }
+    }
 }
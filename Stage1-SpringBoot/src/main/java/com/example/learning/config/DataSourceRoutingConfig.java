@@ -0,0 +1,53 @@
+package com.example.learning.config;
+
+import com.example.learning.datasource.DataSourceRoutingProperties;
+import com.example.learning.datasource.ReadYourWritesTracker;
+import com.example.learning.datasource.ReplicaHealthMonitor;
+import com.example.learning.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读写分离数据源（datasource-routing.enabled=true 时生效）
+ * 主库用 spring.datasource，从库用 datasource-routing.replicas；Service 方法加 @ReadOnly 后里面的查询走从库
+ * 每个连接池单独命名（primary / 从库名），指标在 hikaricp.*{pool}
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource-routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties primaryProperties, DataSourceRoutingProperties properties,
+                                               ReadYourWritesTracker tracker) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (DataSourceRoutingProperties.Replica replica : properties.getReplicas()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(replica.getName());
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primaryProperties.determineUsername());
+            dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primaryProperties.determinePassword());
+            dataSource.setDriverClassName(replica.getDriverClassName() != null
+                    ? replica.getDriverClassName() : primaryProperties.determineDriverClassName());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            // 从库只读，防止误写
+            dataSource.setReadOnly(true);
+            replicas.put(replica.getName(), dataSource);
+        }
+
+        ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(primary, replicas, properties, tracker);
+        monitor.start();
+        return new ReplicaRoutingDataSource(primary, replicas, monitor, tracker);
+    }
+}
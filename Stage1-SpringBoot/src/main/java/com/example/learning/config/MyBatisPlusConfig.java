@@ -2,7 +2,10 @@ package com.example.learning.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.DynamicTableNameInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.example.learning.sharding.ShardTableNameHandler;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -10,8 +13,14 @@ import org.springframework.context.annotation.Configuration;
 public class MyBatisPlusConfig {
 
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(ObjectProvider<ShardTableNameHandler> shardTableNameHandler) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        // 用户表分片时改写表名（要在分页插件之前，分页生成的 count 语句也要改写）
+        shardTableNameHandler.ifAvailable(handler -> {
+            DynamicTableNameInnerInterceptor dynamicTableName = new DynamicTableNameInnerInterceptor();
+            dynamicTableName.setTableNameHandler(handler);
+            interceptor.addInnerInterceptor(dynamicTableName);
+        });
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
@@ -1,16 +1,22 @@
 package com.example.learning.config;
 
+import com.example.learning.redis.codec.CompactRedisSerializer;
+import com.example.learning.redis.codec.RedisCodecProperties;
+import com.example.learning.redis.codec.RedisTypeCodec;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.List;
+
 @Configuration
 public class RedisConfig {
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory, List<RedisTypeCodec<?>> codecs,
+                                                       RedisCodecProperties codecProperties, MeterRegistry meterRegistry) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
 
@@ -19,12 +25,12 @@ public class RedisConfig {
         template.setKeySerializer(stringSerializer);
         template.setHashKeySerializer(stringSerializer);
 
-        // value序列化
-        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(jsonSerializer);
-        template.setHashValueSerializer(jsonSerializer);
+        // value序列化：紧凑二进制（按类型注册 RedisTypeCodec，大值 LZ4 压缩），兼容读取原来的 JSON 格式
+        CompactRedisSerializer valueSerializer = new CompactRedisSerializer(codecs, codecProperties, meterRegistry);
+        template.setValueSerializer(valueSerializer);
+        template.setHashValueSerializer(valueSerializer);
 
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+}
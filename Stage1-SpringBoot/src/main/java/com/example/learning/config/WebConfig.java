@@ -25,7 +25,7 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(new JwtInterceptor(jwtUtil))
-                .addPathPatterns("/users/**")      // 拦截 /users/** 所有请求
+                .addPathPatterns("/users/**", "/admin/**")      // 拦截 /users/**、/admin/** 所有请求
                 .excludePathPatterns("/login");  // 不拦截 /login
     }
 }
@@ -3,6 +3,7 @@ package com.example.learning.controller;
 import com.example.learning.common.Result;
 import com.example.learning.entity.User;
 import com.example.learning.service.UserService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -13,6 +14,7 @@ import javax.annotation.Resource;
 /**
  * 缓存测试接口 - 用于演示缓存穿透、击穿、雪崩
  */
+@Slf4j
 @RestController
 @RequestMapping("/cache-test")
 public class CacheTestController {
@@ -28,10 +30,8 @@ public class CacheTestController {
      */
     @GetMapping("/penetration")
     public Result<User> testPenetration(@RequestParam Long id) {
-        System.out.println("========================================");
-        System.out.println("【测试缓存穿透 - 无防护版本】");
+        log.debug("【测试缓存穿透 - 无防护版本】id={}", id);
         User user = userService.getUserWithCache(id);
-        System.out.println("========================================");
         return Result.success(user);
     }
 
@@ -43,10 +43,8 @@ public class CacheTestController {
      */
     @GetMapping("/penetration-protected")
     public Result<User> testPenetrationProtected(@RequestParam Long id) {
-        System.out.println("========================================");
-        System.out.println("【测试缓存穿透 - 空值缓存防护版本】");
+        log.debug("【测试缓存穿透 - 空值缓存防护版本】id={}", id);
         User user = userService.getUserWithCacheAndProtection(id);
-        System.out.println("========================================");
         return Result.success(user);
     }
 
@@ -1,6 +1,7 @@
 package com.example.learning.controller;
 
 import com.example.learning.common.Result;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -12,6 +13,7 @@ import java.util.List;
 /**
  * GC测试专用接口 - 用于产生大量对象触发GC
  */
+@Slf4j
 @RestController
 @RequestMapping("/gc-test")
 public class GcTestController {
@@ -30,14 +32,14 @@ public class GcTestController {
 
             // 每1000个对象打印一次
             if (i % 1000 == 0 && i > 0) {
-                System.out.println("已创建 " + i + " 个对象，当前内存使用：" +
-                        (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024 / 1024 + "MB");
+                log.info("已创建 {} 个对象，当前内存使用：{}MB", i,
+                        (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024 / 1024);
             }
         }
 
         long usedMemory = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024 / 1024;
         String result = "成功创建 " + count + " 个对象（每个1MB），当前使用内存：" + usedMemory + "MB";
-        System.out.println(result);
+        log.info(result);
 
         // 不返回list，让这些对象成为垃圾，触发GC
         return Result.success(result);
@@ -0,0 +1,28 @@
+package com.example.learning.controller;
+
+import com.example.learning.common.Result;
+import com.example.learning.redis.hotkey.HotKeyDetector;
+import com.example.learning.redis.hotkey.HotKeySnapshot;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 热点 key 查看接口（需要登录）
+ * GET http://localhost:8080/admin/hot-keys
+ */
+@RestController
+@RequestMapping("/admin/hot-keys")
+public class HotKeyAdminController {
+
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+
+    @GetMapping
+    public Result<List<HotKeySnapshot>> list() {
+        return Result.success(hotKeyDetector.snapshots());
+    }
+}
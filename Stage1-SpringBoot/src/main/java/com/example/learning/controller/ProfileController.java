@@ -0,0 +1,26 @@
+package com.example.learning.controller;
+
+import com.example.learning.common.Result;
+import com.example.learning.profile.UserProfile;
+import com.example.learning.service.ProfileService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+
+/**
+ * 用户画像接口：一次请求代替 用户信息 / 订单汇总 / 登录记录 三次顺序调用
+ * 访问：GET http://localhost:8080/users/1/profile（需要登录）
+ */
+@RestController
+public class ProfileController {
+
+    @Resource
+    private ProfileService profileService;
+
+    @GetMapping("/users/{id}/profile")
+    public Result<UserProfile> profile(@PathVariable Long id) {
+        return Result.success(profileService.getProfile(id));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.learning.controller;
+
+import com.example.learning.common.Result;
+import com.example.learning.metrics.EndpointResourceSnapshot;
+import com.example.learning.metrics.RequestResourceStats;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 接口资源消耗排行（需要登录）
+ * 分配最多的接口：GET http://localhost:8080/admin/request-resources?top=10
+ * CPU 最多的接口：GET http://localhost:8080/admin/request-resources?top=10&sort=cpu
+ * 清零重新统计：DELETE http://localhost:8080/admin/request-resources
+ */
+@RestController
+@RequestMapping("/admin/request-resources")
+public class RequestResourceAdminController {
+
+    @Resource
+    private RequestResourceStats requestResourceStats;
+
+    @GetMapping
+    public Result<List<EndpointResourceSnapshot>> top(@RequestParam(defaultValue = "10") int top,
+                                                      @RequestParam(defaultValue = "allocated") String sort) {
+        RequestResourceStats.SortBy sortBy = "cpu".equalsIgnoreCase(sort)
+                ? RequestResourceStats.SortBy.CPU : RequestResourceStats.SortBy.ALLOCATED;
+        return Result.success(requestResourceStats.top(top, sortBy));
+    }
+
+    @DeleteMapping
+    public Result<Boolean> reset() {
+        requestResourceStats.reset();
+        return Result.success(true);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.learning.controller;
+
+import com.example.learning.common.Result;
+import com.example.learning.executor.ExecutorRegistry;
+import com.example.learning.executor.ThreadPoolResizeRequest;
+import com.example.learning.executor.ThreadPoolSnapshot;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+/**
+ * 线程池管理接口（需要登录）
+ * 查看：GET http://localhost:8080/admin/thread-pools
+ * 调整：PUT http://localhost:8080/admin/thread-pools/user  {"coreSize":8,"maxSize":16,"queueCapacity":500}
+ */
+@RestController
+@RequestMapping("/admin/thread-pools")
+public class ThreadPoolAdminController {
+
+    @Resource
+    private ExecutorRegistry executorRegistry;
+
+    @GetMapping
+    public Result<List<ThreadPoolSnapshot>> list() {
+        return Result.success(executorRegistry.snapshots());
+    }
+
+    @GetMapping("/{name}")
+    public Result<ThreadPoolSnapshot> get(@PathVariable String name) {
+        return Result.success(executorRegistry.get(name).snapshot());
+    }
+
+    @PutMapping("/{name}")
+    public Result<ThreadPoolSnapshot> resize(@PathVariable String name, @RequestBody ThreadPoolResizeRequest request) {
+        return Result.success(executorRegistry.resize(name, request));
+    }
+}
@@ -6,9 +6,13 @@ import com.example.learning.common.Result;
 import com.example.learning.entity.User;
 import com.example.learning.service.UserService;
 import com.example.learning.juc.ThreadLocalDemo;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
+@Slf4j
 @RestController
 @RequestMapping("/users")
 public class UserController {
@@ -22,13 +26,25 @@ public class UserController {
                                     @RequestParam(defaultValue = "10") Integer size) {
         // 新增：获取当前登录用户ID
         Long userId = ThreadLocalDemo.getUserId();
-        System.out.println("当前登录用户ID：" + userId);
-        System.out.println("线程：" + Thread.currentThread().getName() + " 取出用户ID：" + userId);
+        log.debug("当前登录用户ID：{}，线程：{}", userId, Thread.currentThread().getName());
 
         Page<User> page = userService.page(current, size);
         return Result.success(page);
     }
 
+    // 批量按 ID 查询（走缓存）：/users/batch?ids=1,2,3
+    @GetMapping("/batch")
+    public Result<List<User>> getByIds(@RequestParam List<Long> ids) {
+        return Result.success(userService.getUsersByIds(ids));
+    }
+
+    // 批量清空用户缓存：DELETE /users/cache?ids=1,2,3
+    @DeleteMapping("/cache")
+    public Result<Boolean> evictCache(@RequestParam List<Long> ids) {
+        userService.evictUserCache(ids);
+        return Result.success(true);
+    }
+
     // 按 ID 查询
     @GetMapping("/{id}")
     public Result<User> getById(@PathVariable Long id) {
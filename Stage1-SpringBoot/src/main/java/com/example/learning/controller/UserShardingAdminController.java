@@ -0,0 +1,46 @@
+package com.example.learning.controller;
+
+import com.example.learning.common.Result;
+import com.example.learning.sharding.ReshardStatus;
+import com.example.learning.sharding.ShardRouter;
+import com.example.learning.sharding.UserResharder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 用户分片管理接口（需要登录，user-sharding.enabled=true 时才有）
+ * 查看：GET http://localhost:8080/admin/user-sharding
+ * 重新分片：POST http://localhost:8080/admin/user-sharding/reshard?shards=8
+ */
+@RestController
+@RequestMapping("/admin/user-sharding")
+@ConditionalOnProperty(prefix = "user-sharding", name = "enabled", havingValue = "true")
+public class UserShardingAdminController {
+
+    @Resource
+    private ShardRouter shardRouter;
+
+    @Resource
+    private UserResharder userResharder;
+
+    @GetMapping
+    public Result<Map<String, Object>> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("bucketsPerShard", shardRouter.bucketCounts());
+        status.put("reshard", userResharder.status());
+        return Result.success(status);
+    }
+
+    @PostMapping("/reshard")
+    public Result<ReshardStatus> reshard(@RequestParam int shards) {
+        return Result.success(userResharder.start(shards));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.learning.credential;
+
+import com.example.learning.entity.User;
+import com.example.learning.metrics.CacheMetrics;
+import com.example.learning.redis.failover.ResilientCache;
+import com.example.learning.redis.invalidation.CacheInvalidator;
+import com.example.learning.sharding.UserStore;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录凭据缓存：用户名 -> 用户ID + 密码哈希（user:cred:{用户名}）
+ *
+ * 1. 布隆过滤器说不存在：照样 GET 一次缓存（结果不用，和存在的用户名走同样的 Redis 往返），然后返回 null，
+ *    不查库（撞库常用的随机用户名基本都在这一步挡掉）；查库那一段的耗时差异由登录失败补齐到固定时长来抹平
+ * 2. 查缓存：命中凭据直接用；命中空值（不存在的用户名，negative-ttl）返回 null
+ * 3. 未命中查库（Redis 降级时限流，见 ResilientCache.loadFromDb），查到缓存凭据，查不到缓存空值
+ * 改密码 / 改名 / 删用户时调用 invalidate，走 CacheInvalidator（提交后删 + 延迟双删 + 变更日志补删）
+ * 缓存里只放ID、用户名和密码哈希，不放其它资料
+ * 命中率：cache.requests{cache=credential}
+ */
+@Component
+public class CredentialCache {
+
+    private static final String CACHE_NAME = "credential";
+    private static final String KEY_PREFIX = "user:cred:";
+
+    private final CredentialCacheProperties properties;
+    private final UsernameBloomFilter bloomFilter;
+    private final ResilientCache resilientCache;
+    private final CacheInvalidator cacheInvalidator;
+    private final UserStore userStore;
+    private final CacheMetrics cacheMetrics;
+
+    public CredentialCache(CredentialCacheProperties properties, UsernameBloomFilter bloomFilter, ResilientCache resilientCache,
+                           CacheInvalidator cacheInvalidator, UserStore userStore, CacheMetrics cacheMetrics) {
+        this.properties = properties;
+        this.bloomFilter = bloomFilter;
+        this.resilientCache = resilientCache;
+        this.cacheInvalidator = cacheInvalidator;
+        this.userStore = userStore;
+        this.cacheMetrics = cacheMetrics;
+    }
+
+    /**
+     * 查登录凭据（只有 id、username、password），用户名不存在返回 null
+     */
+    public User get(String username) {
+        if (username == null) {
+            return null;
+        }
+        String key = KEY_PREFIX + username;
+        if (!bloomFilter.mightContain(username)) {
+            resilientCache.get(key);
+            return null;
+        }
+        Object cached = resilientCache.get(key);
+        if (cached instanceof User) {
+            cacheMetrics.hit(CACHE_NAME);
+            return (User) cached;
+        }
+        if (cached instanceof String && ((String) cached).isEmpty()) {
+            cacheMetrics.nullHit(CACHE_NAME);
+            return null;
+        }
+
+        cacheMetrics.miss(CACHE_NAME);
+        User user = resilientCache.loadFromDb(() -> userStore.selectByUsername(username));
+        if (user == null) {
+            resilientCache.set(key, "", properties.getNegativeTtl().toMillis(), TimeUnit.MILLISECONDS);
+            return null;
+        }
+        User credential = new User();
+        credential.setId(user.getId());
+        credential.setUsername(user.getUsername());
+        credential.setPassword(user.getPassword());
+        resilientCache.set(key, credential, properties.getTtl().toMillis(), TimeUnit.MILLISECONDS);
+        return credential;
+    }
+
+    /**
+     * 新用户名（注册、改名）：先进布隆过滤器，再删掉可能缓存着的“不存在”，要在写库之前调用
+     */
+    public void registered(String username) {
+        if (username == null) {
+            return;
+        }
+        bloomFilter.put(username);
+        invalidate(username);
+    }
+
+    /**
+     * 用户名对应的凭据变了（改密码、改名、删除），在写库的事务里调用
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            cacheInvalidator.invalidate(KEY_PREFIX + username);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.learning.credential;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 登录凭据缓存配置（credential-cache.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "credential-cache")
+public class CredentialCacheProperties {
+
+    /**
+     * 凭据（ID + 密码哈希）缓存多久；改密码、改名、删除都会主动删缓存，过期只是兜底
+     */
+    private Duration ttl = Duration.ofMinutes(30);
+
+    /**
+     * 不存在的用户名缓存多久（布隆过滤器误判放过来的、布隆过滤器不可用时的）
+     */
+    private Duration negativeTtl = Duration.ofMinutes(1);
+
+    /**
+     * 登录失败至少耗时多久：不够就补齐。查凭据（布隆过滤器 / Redis / 数据库）的耗时因用户名是否存在而不同，
+     * 补齐到固定时长后响应时间看不出用户名是否存在；要大于正常情况下失败登录的最长耗时（BCrypt + 一次查库）
+     */
+    private Duration failedLoginMinTime = Duration.ofMillis(300);
+
+    private Bloom bloom = new Bloom();
+
+    @Data
+    public static class Bloom {
+
+        private boolean enabled = true;
+
+        /**
+         * 预计用户名个数和可接受的误判率，决定位图大小和哈希函数个数；改了会换一个 key 重新构建
+         */
+        private long expectedUsernames = 1_000_000;
+        private double falsePositiveRate = 0.01;
+
+        /**
+         * 构建时每批从用户表读多少行
+         */
+        private int rebuildBatchSize = 1000;
+
+        /**
+         * 多久检查一次位图是否可用（不可用就尝试重建）
+         */
+        private Duration checkInterval = Duration.ofSeconds(30);
+    }
+}
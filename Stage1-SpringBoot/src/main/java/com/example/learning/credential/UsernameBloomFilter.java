@@ -0,0 +1,270 @@
+package com.example.learning.credential;
+
+import com.example.learning.common.RedisUtil;
+import com.example.learning.entity.User;
+import com.example.learning.redis.failover.ResilientCache;
+import com.example.learning.sharding.UserStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户名布隆过滤器：位图放在 Redis 里，所有实例共享，新注册的用户名马上对所有实例生效
+ *
+ * 1. mightContain：管道一次 GETBIT 所有哈希位，有一位是 0 就一定不存在，登录直接拒绝，不查缓存也不查库
+ * 2. put：注册、改名时 SETBIT；删用户不清位（布隆过滤器删不掉），只是误判率略升
+ * 3. 构建：位图 key 里带着位数和哈希个数（改配置就换新 key）；就绪位（最后一位之后的那一位）是 0 时抢锁，
+ *    按ID分段扫用户表写入，写完把就绪位置 1；就绪位和哈希位一起读，位图没建完、被淘汰后又被 put 重新建出来时都是 0，
+ *    这时 mightContain 一律返回“可能存在”，交给缓存和数据库
+ * 4. Redis 降级期间注册的用户名先记在本地，恢复时补写（和降级写互斥，切回正常前记下的都会补上）；
+ *    Redis 偶发失败但没降级时同样记下，由定时检查补写；记不下就把就绪位清零重新构建，宁可不用也不能漏
+ * 指标：username.bloom.checks{result=absent|maybe|skipped}
+ */
+@Slf4j
+@Component
+public class UsernameBloomFilter {
+
+    private static final String KEY_PREFIX = "user:bloom:username:";
+    private static final int MAX_PENDING = 10000;
+
+    private final CredentialCacheProperties.Bloom properties;
+    private final ResilientCache resilientCache;
+    private final UserStore userStore;
+    private final long bits;
+    private final int hashes;
+    private final String key;
+    private final String lockKey;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Counter absent;
+    private final Counter maybe;
+    private final Counter skipped;
+    private volatile boolean pendingOverflow;
+    private ScheduledExecutorService scheduler;
+
+    public UsernameBloomFilter(CredentialCacheProperties properties, ResilientCache resilientCache, UserStore userStore,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties.getBloom();
+        this.resilientCache = resilientCache;
+        this.userStore = userStore;
+        // 最优位数 m = -n·ln(p) / (ln2)²，哈希个数 k = m/n·ln2
+        long n = Math.max(1, this.properties.getExpectedUsernames());
+        double p = this.properties.getFalsePositiveRate();
+        this.bits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        if (bits >= (1L << 32)) {
+            throw new IllegalStateException("布隆过滤器需要 " + bits + " 位，超过 Redis 位图上限 2^32");
+        }
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        this.key = KEY_PREFIX + bits + ":" + hashes;
+        this.lockKey = key + ":lock";
+        this.absent = counter(meterRegistry, "absent");
+        this.maybe = counter(meterRegistry, "maybe");
+        this.skipped = counter(meterRegistry, "skipped");
+        resilientCache.onRecovery(this::replayPending);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("username.bloom.checks")
+                .description("用户名布隆过滤器判断次数（absent 一定不存在，maybe 可能存在，skipped 过滤器不可用没判断）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "username-bloom");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * false 表示用户名一定不存在；true 表示可能存在（包括过滤器不可用）
+     */
+    public boolean mightContain(String username) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        long[] offsets = offsets(username);
+        List<Object> values = resilientCache.execute(redis -> redis.pipelined(operations -> {
+            operations.opsForValue().getBit(key, bits);
+            for (long offset : offsets) {
+                operations.opsForValue().getBit(key, offset);
+            }
+        }), null);
+        if (values == null || !Boolean.TRUE.equals(values.get(0))) {
+            skipped.increment();
+            return true;
+        }
+        for (Object value : values.subList(1, values.size())) {
+            if (!Boolean.TRUE.equals(value)) {
+                absent.increment();
+                return false;
+            }
+        }
+        maybe.increment();
+        return true;
+    }
+
+    /**
+     * 加入用户名（要在用户名能登录之前调用，否则会被误判为不存在）
+     */
+    public void put(String username) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (write(username)) {
+            return;
+        }
+        // Redis 降级中：记下来，恢复时补写；没降级（偶发失败，或刚好恢复）就再写一次，还不行交给定时检查
+        if (!resilientCache.runIfDegraded(() -> remember(username)) && !write(username)) {
+            remember(username);
+        }
+    }
+
+    private boolean write(String username) {
+        return resilientCache.execute(redis -> redis.pipelined(operations -> setBits(operations, username)), null) != null;
+    }
+
+    private void remember(String username) {
+        if (pending.size() < MAX_PENDING) {
+            pending.add(username);
+        } else {
+            pendingOverflow = true;
+        }
+    }
+
+    private void setBits(RedisOperations<String, Object> operations, String username) {
+        for (long offset : offsets(username)) {
+            operations.opsForValue().setBit(key, offset, true);
+        }
+    }
+
+    /**
+     * 双重哈希：64 位 FNV-1a 打散后拆成两个 32 位哈希，第 i 个位置 = h1 + i·h2
+     */
+    private long[] offsets(String username) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        long h1 = h & 0xffffffffL;
+        long h2 = h >>> 32;
+        long[] offsets = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, bits);
+        }
+        return offsets;
+    }
+
+    /**
+     * 定时检查就绪位，没就绪（没建过、被淘汰、被作废）就抢锁重建；顺带补写 Redis 偶发失败时记下的用户名
+     */
+    private void check() {
+        try {
+            if ((!pending.isEmpty() || pendingOverflow) && !resilientCache.isDegraded()) {
+                resilientCache.execute(redis -> {
+                    replayPending(redis);
+                    return Boolean.TRUE;
+                }, null);
+            }
+            List<Object> readyBit = resilientCache.execute(redis -> redis.pipelined(
+                    operations -> operations.opsForValue().getBit(key, bits)), null);
+            // Redis 不可用时跳过，mightContain 本来也不会用位图
+            if (readyBit != null && !Boolean.TRUE.equals(readyBit.get(0))) {
+                String lockValue = resilientCache.execute(redis -> redis.tryLock(lockKey, 10, TimeUnit.MINUTES), null);
+                if (lockValue != null) {
+                    rebuild(lockValue);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("检查用户名布隆过滤器失败：{}", e.getMessage());
+        }
+    }
+
+    private void rebuild(String lockValue) {
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try {
+            Long afterId = null;
+            List<User> batch;
+            do {
+                Long from = afterId;
+                batch = userStore.selectAfterId(from, properties.getRebuildBatchSize());
+                List<String> usernames = new ArrayList<>(batch.size());
+                for (User user : batch) {
+                    if (user.getUsername() != null) {
+                        usernames.add(user.getUsername());
+                    }
+                }
+                if (resilientCache.execute(redis -> redis.pipelined(usernames, this::setBits), null) == null) {
+                    // 写了一半，不能打就绪标记，下次检查重来
+                    log.warn("构建用户名布隆过滤器时 Redis 不可用，稍后重试");
+                    return;
+                }
+                count += usernames.size();
+                afterId = batch.isEmpty() ? afterId : batch.get(batch.size() - 1).getId();
+            } while (batch.size() == properties.getRebuildBatchSize());
+            if (resilientCache.execute(redis -> redis.pipelined(operations -> operations.opsForValue().setBit(key, bits, true)),
+                    null) == null) {
+                return;
+            }
+            log.info("用户名布隆过滤器构建完成：{} 个用户名，{} 位，{} 个哈希，耗时 {} ms", count, bits, hashes,
+                    System.currentTimeMillis() - start);
+        } finally {
+            resilientCache.execute(redis -> {
+                redis.unlock(lockKey, lockValue);
+                return null;
+            }, null);
+        }
+    }
+
+    /**
+     * 补写降级期间（或 Redis 偶发失败时）注册的用户名：Redis 恢复时、定时检查时调用
+     */
+    private void replayPending(RedisUtil redis) {
+        if (pendingOverflow) {
+            // 漏掉的太多，作废重建
+            redis.pipelined(operations -> operations.opsForValue().setBit(key, bits, false));
+            pendingOverflow = false;
+            pending.clear();
+            log.warn("Redis 降级期间注册的用户名超过 {} 个，用户名布隆过滤器作废，稍后重建", MAX_PENDING);
+            return;
+        }
+        List<String> usernames = new ArrayList<>(pending);
+        if (!usernames.isEmpty()) {
+            redis.pipelined(usernames, this::setBits);
+            usernames.forEach(pending::remove);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.learning.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置（datasource-routing.*），主库还是 spring.datasource
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "datasource-routing")
+public class DataSourceRoutingProperties {
+
+    /**
+     * 是否开启，关闭时只有 spring.datasource 一个数据源
+     */
+    private boolean enabled = false;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 用户自己写过之后多久内，他的只读请求也走主库（读己之写）
+     */
+    private Duration stickyWindow = Duration.ofSeconds(2);
+
+    /**
+     * 从库延迟超过多少就暂时摘掉，恢复后自动加回
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * 多久写一次主库心跳、检查一次从库延迟
+     */
+    private Duration checkInterval = Duration.ofSeconds(1);
+
+    /**
+     * 心跳表（表结构见 resources/db/replication_heartbeat.sql），主库写，复制到从库后比较时间差就是延迟
+     */
+    private String heartbeatTable = "replication_heartbeat";
+
+    @Data
+    public static class Replica {
+
+        private String name;
+        private String url;
+
+        /**
+         * 不配则和主库一样
+         */
+        private String username;
+        private String password;
+        private String driverClassName;
+
+        private int maximumPoolSize = 10;
+    }
+}
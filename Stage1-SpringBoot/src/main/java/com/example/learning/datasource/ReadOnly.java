@@ -0,0 +1,17 @@
+package com.example.learning.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 只读方法：里面的 SQL 可以走从库（开启 datasource-routing 时）
+ * 从库有复制延迟，刚改完马上要读到新值的场景（比如回填缓存）不要加
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnly {
+}
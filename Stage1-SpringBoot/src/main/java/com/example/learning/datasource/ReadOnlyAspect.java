@@ -0,0 +1,24 @@
+package com.example.learning.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * @ReadOnly 切面：方法执行期间把线程标记为只读，结束后还原
+ */
+@Aspect
+@Component
+public class ReadOnlyAspect {
+
+    @Around("@annotation(com.example.learning.datasource.ReadOnly) || @within(com.example.learning.datasource.ReadOnly)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = RoutingContext.markReadOnly();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            RoutingContext.restore(previous);
+        }
+    }
+}
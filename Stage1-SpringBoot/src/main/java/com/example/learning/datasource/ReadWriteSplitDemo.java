@@ -0,0 +1,117 @@
+package com.example.learning.datasource;
+
+import com.example.learning.juc.ThreadLocalDemo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读写分离演示：用 3 个内存 H2 数据库模拟 1 主 2 从，不需要 MySQL
+ * 直接运行 main，观察每条 SQL 落在哪个库：
+ * 1. 只读查询在两个从库之间轮询
+ * 2. 用户 1 写完之后 sticky-window 内读主库（读己之写），用户 2 仍然读从库
+ * 3. replica-2 停止“复制”，延迟超过 max-lag 后被摘除，只读查询都落到 replica-1
+ * 这里的复制是手动把主库的数据拷到从库（replicate），真实环境由 MySQL 主从复制完成
+ */
+public class ReadWriteSplitDemo {
+
+    public static void main(String[] args) throws Exception {
+        DataSource primary = h2("rw_primary");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", h2("rw_replica1"));
+        replicas.put("replica-2", h2("rw_replica2"));
+        for (DataSource dataSource : new DataSource[]{primary, replicas.get("replica-1"), replicas.get("replica-2")}) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("CREATE TABLE user (id BIGINT PRIMARY KEY, username VARCHAR(64), age INT)");
+            jdbc.execute("CREATE TABLE replication_heartbeat (id BIGINT PRIMARY KEY, ts BIGINT NOT NULL)");
+        }
+        new JdbcTemplate(primary).update("INSERT INTO user (id, username, age) VALUES (1, 'alice', 20)");
+
+        DataSourceRoutingProperties properties = new DataSourceRoutingProperties();
+        properties.setStickyWindow(Duration.ofMillis(500));
+        properties.setMaxLag(Duration.ofMillis(200));
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(properties);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReplicaHealthMonitor monitor = new ReplicaHealthMonitor(primary, replicas, properties, tracker);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, monitor, tracker);
+        routing.bindTo(meterRegistry);
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        System.out.println("=== 1. 两个从库都同步好了：只读查询轮询从库 ===");
+        monitor.check();
+        replicate(primary, replicas.values());
+        monitor.check();
+        System.out.println("从库延迟(ms)：" + monitor.lags());
+        for (int i = 0; i < 4; i++) {
+            read(jdbc, 2L);
+        }
+
+        System.out.println("=== 2. 用户 1 改了年龄（写主库），还没复制到从库 ===");
+        ThreadLocalDemo.setUserId(1L);
+        jdbc.update("UPDATE user SET age = 21 WHERE id = 1");
+        // 应用里由 WriteTrackingInterceptor 在 Mapper 写操作后调用
+        tracker.markWrite(1L);
+        read(jdbc, 1L);
+        read(jdbc, 2L);
+
+        System.out.println("=== 3. 只复制到 replica-1，replica-2 落后超过 max-lag ===");
+        Thread.sleep(300);
+        // 主库写一次新心跳，只复制到 replica-1
+        monitor.check();
+        replicate(primary, List.of(replicas.get("replica-1")));
+        monitor.check();
+        System.out.println("从库延迟(ms)：" + monitor.lags());
+        // 等读己之写窗口过去，用户 1 也开始读从库
+        Thread.sleep(500);
+        for (int i = 0; i < 3; i++) {
+            read(jdbc, 1L);
+        }
+        System.out.println("路由统计：");
+        meterRegistry.find("datasource.route").counters().forEach(counter ->
+                System.out.println("  " + counter.getId().getTag("target") + " / " + counter.getId().getTag("reason")
+                        + " = " + (long) counter.count()));
+        routing.close();
+    }
+
+    /**
+     * 以某个用户的身份做一次只读查询，打印落在哪个库、读到的值
+     */
+    private static void read(JdbcTemplate jdbc, Long userId) {
+        ThreadLocalDemo.setUserId(userId);
+        Boolean previous = RoutingContext.markReadOnly();
+        try {
+            Map<String, Object> row = jdbc.queryForMap("SELECT DATABASE() AS db, age FROM user WHERE id = 1");
+            System.out.println("用户 " + userId + " 读：" + row.get("db") + "，age = " + row.get("age"));
+        } finally {
+            RoutingContext.restore(previous);
+            ThreadLocalDemo.removeUserId();
+        }
+    }
+
+    /**
+     * 模拟主从复制：把主库的 user 表和心跳拷到从库
+     */
+    private static void replicate(DataSource primary, Iterable<DataSource> targets) {
+        JdbcTemplate source = new JdbcTemplate(primary);
+        List<Map<String, Object>> users = source.queryForList("SELECT id, username, age FROM user");
+        Long heartbeat = source.queryForObject("SELECT ts FROM replication_heartbeat WHERE id = 1", Long.class);
+        for (DataSource target : targets) {
+            JdbcTemplate jdbc = new JdbcTemplate(target);
+            jdbc.update("DELETE FROM user");
+            for (Map<String, Object> user : users) {
+                jdbc.update("INSERT INTO user (id, username, age) VALUES (?, ?, ?)", user.get("id"), user.get("username"), user.get("age"));
+            }
+            jdbc.update("MERGE INTO replication_heartbeat (id, ts) KEY (id) VALUES (1, ?)", heartbeat);
+        }
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1;NON_KEYWORDS=USER", "sa", "");
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.learning.datasource;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 读己之写：记录每个用户最近一次写库的时间，sticky-window 内他的只读请求也走主库，避免读到从库上的旧数据
+ * 只在本实例内有效（多实例部署时依赖负载均衡按用户粘滞，或把窗口放到 Redis / token 里）
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(DataSourceRoutingProperties properties) {
+        this.windowNanos = properties.getStickyWindow().toNanos();
+    }
+
+    public void markWrite(Long userId) {
+        if (userId != null) {
+            lastWrites.put(userId, System.nanoTime());
+        }
+    }
+
+    public boolean isSticky(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(userId);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    /**
+     * 清掉窗口已经过去的记录（ReplicaHealthMonitor 定时调用）
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.learning.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从库延迟检测（心跳表方式，和 pt-heartbeat 一样，不依赖具体数据库）
+ *
+ * 1. 每 check-interval 往主库心跳表写当前时间（毫秒）
+ * 2. 下一次检查时从每个从库读回心跳时间，延迟 = 上次写入主库的心跳 - 从库上的心跳
+ *    （复制跟得上时两者相等，延迟为 0；落后几个心跳就是几个 check-interval）
+ * 3. 延迟超过 max-lag 或者查询失败的从库摘掉，下次检查正常了再加回
+ * next() 在可用从库里轮询，一个都没有返回 null（调用方走主库）
+ * 指标：datasource.replica.lag{replica}（毫秒，查询失败为 -1）
+ */
+@Slf4j
+public class ReplicaHealthMonitor implements MeterBinder {
+
+    private final DataSource primary;
+    private final Map<String, ReplicaState> replicas = new LinkedHashMap<>();
+    private final DataSourceRoutingProperties properties;
+    private final ReadYourWritesTracker tracker;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private volatile List<String> healthy = Collections.emptyList();
+    // 上次成功写入主库的心跳，只有检查线程读写
+    private long lastHeartbeat;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaHealthMonitor(DataSource primary, Map<String, DataSource> replicas, DataSourceRoutingProperties properties,
+                                ReadYourWritesTracker tracker) {
+        this.primary = primary;
+        this.properties = properties;
+        this.tracker = tracker;
+        replicas.forEach((name, dataSource) -> this.replicas.put(name, new ReplicaState(dataSource)));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        replicas.forEach((name, state) -> Gauge.builder("datasource.replica.lag", state, s -> s.lagMillis)
+                .description("从库复制延迟（毫秒，检查失败为 -1）")
+                .tag("replica", name)
+                .register(meterRegistry));
+    }
+
+    public void start() {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 轮询取一个可用从库的名字，没有可用的返回 null
+     */
+    public String next() {
+        List<String> current = healthy;
+        if (current.isEmpty()) {
+            return null;
+        }
+        return current.get(Math.floorMod(cursor.getAndIncrement(), current.size()));
+    }
+
+    /**
+     * 各从库当前延迟（毫秒，-1 表示检查失败）
+     */
+    public Map<String, Long> lags() {
+        Map<String, Long> lags = new LinkedHashMap<>();
+        replicas.forEach((name, state) -> lags.put(name, state.lagMillis));
+        return lags;
+    }
+
+    /**
+     * 检查所有从库的延迟，再写一次主库心跳（定时调用，也可以手动调用）
+     */
+    public synchronized void check() {
+        long reference = lastHeartbeat != 0 ? lastHeartbeat : System.currentTimeMillis();
+        long maxLag = properties.getMaxLag().toMillis();
+        List<String> available = new ArrayList<>();
+        replicas.forEach((name, state) -> {
+            boolean wasHealthy = state.healthy;
+            try {
+                state.lagMillis = Math.max(0, reference - readHeartbeat(state.dataSource));
+                state.healthy = state.lagMillis <= maxLag;
+            } catch (Exception e) {
+                state.lagMillis = -1;
+                state.healthy = false;
+            }
+            if (state.healthy) {
+                available.add(name);
+            }
+            if (wasHealthy != state.healthy) {
+                log.info("从库 {} {}，延迟 {} ms", name, state.healthy ? "可用" : "摘除", state.lagMillis);
+            }
+        });
+        healthy = available;
+        try {
+            lastHeartbeat = writeHeartbeat();
+        } catch (Exception e) {
+            log.warn("写主库心跳失败：{}", e.getMessage());
+        }
+        tracker.evictExpired();
+    }
+
+    private long writeHeartbeat() throws Exception {
+        String table = properties.getHeartbeatTable();
+        try (Connection connection = primary.getConnection()) {
+            long now = System.currentTimeMillis();
+            int updated;
+            try (PreparedStatement update = connection.prepareStatement("UPDATE " + table + " SET ts = ? WHERE id = 1")) {
+                update.setLong(1, now);
+                updated = update.executeUpdate();
+            }
+            if (updated == 0) {
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table + " (id, ts) VALUES (1, ?)")) {
+                    insert.setLong(1, now);
+                    insert.executeUpdate();
+                }
+            }
+            return now;
+        }
+    }
+
+    private long readHeartbeat(DataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement query = connection.prepareStatement("SELECT ts FROM " + properties.getHeartbeatTable() + " WHERE id = 1");
+             ResultSet resultSet = query.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("从库还没有心跳记录");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static final class ReplicaState {
+
+        private final DataSource dataSource;
+        private volatile long lagMillis = -1;
+        private volatile boolean healthy;
+
+        private ReplicaState(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.learning.datasource;
+
+import com.example.learning.juc.ThreadLocalDemo;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读写分离数据源：每次取连接时决定走主库还是从库
+ *
+ * 走主库：不在 @ReadOnly 方法里（写、以及没标注的读）、处在读写事务里、当前用户在读己之写窗口内、没有可用从库
+ * 走从库：其它只读请求，在延迟正常的从库之间轮询
+ * 指标：datasource.route{target=primary|replica, reason=write|transaction|sticky|no_replica|read_only}、
+ * datasource.replica.lag{replica}、各连接池的 hikaricp.*{pool}
+ * 指标通过 MeterBinder 注册（数据源不能直接依赖 MeterRegistry：注册表初始化时要绑定数据源指标，会循环依赖）
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaHealthMonitor monitor;
+    private final ReadYourWritesTracker tracker;
+    private final List<DataSource> pools = new ArrayList<>();
+    private volatile Map<String, Counter> counters = new HashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaHealthMonitor monitor,
+                                    ReadYourWritesTracker tracker) {
+        this.monitor = monitor;
+        this.tracker = tracker;
+        pools.add(primary);
+        pools.addAll(replicas.values());
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Map<String, Counter> created = new HashMap<>();
+        for (String reason : new String[]{"write", "transaction", "sticky", "no_replica"}) {
+            created.put(reason, counter(meterRegistry, PRIMARY, reason));
+        }
+        created.put("read_only", counter(meterRegistry, "replica", "read_only"));
+        counters = created;
+        monitor.bindTo(meterRegistry);
+        for (DataSource pool : pools) {
+            if (pool instanceof HikariDataSource) {
+                ((HikariDataSource) pool).setMetricRegistry(meterRegistry);
+            }
+        }
+    }
+
+    public ReplicaHealthMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * 停止延迟检测，关闭主库和从库连接池
+     */
+    @Override
+    public void close() throws IOException {
+        monitor.stop();
+        for (DataSource pool : pools) {
+            if (pool instanceof Closeable) {
+                ((Closeable) pool).close();
+            }
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("datasource.route")
+                .description("取连接时路由到主库 / 从库的次数")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String reason = primaryReason();
+        if (reason == null) {
+            String replica = monitor.next();
+            if (replica != null) {
+                count("read_only");
+                return replica;
+            }
+            reason = "no_replica";
+        }
+        count(reason);
+        return PRIMARY;
+    }
+
+    private void count(String reason) {
+        // 指标绑定之前（启动早期）取连接不计数
+        Counter counter = counters.get(reason);
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    /**
+     * 必须走主库的原因，可以走从库返回 null
+     */
+    private String primaryReason() {
+        if (!RoutingContext.isReadOnly()) {
+            return "write";
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return "transaction";
+        }
+        if (tracker.isSticky(ThreadLocalDemo.getUserId())) {
+            return "sticky";
+        }
+        return null;
+    }
+}
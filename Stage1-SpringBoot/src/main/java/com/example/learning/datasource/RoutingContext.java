@@ -0,0 +1,33 @@
+package com.example.learning.datasource;
+
+/**
+ * 当前线程是否在 @ReadOnly 方法里（ReadOnlyAspect 设置，ReplicaRoutingDataSource 读取）
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    /**
+     * 标记只读，返回之前的值，用完交给 restore 还原（支持嵌套调用）
+     */
+    public static Boolean markReadOnly() {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restore(Boolean previous) {
+        if (previous == null) {
+            READ_ONLY.remove();
+        } else {
+            READ_ONLY.set(previous);
+        }
+    }
+}
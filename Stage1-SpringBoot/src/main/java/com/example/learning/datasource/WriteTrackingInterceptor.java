@@ -0,0 +1,32 @@
+package com.example.learning.datasource;
+
+import com.example.learning.juc.ThreadLocalDemo;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+
+/**
+ * MyBatis 插件：INSERT / UPDATE / DELETE 执行成功后记下当前登录用户（JWT 拦截器放进 ThreadLocal 的）写过库
+ * 后台线程的写（登录审计等）没有用户，不记录
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class WriteTrackingInterceptor implements Interceptor {
+
+    private final ReadYourWritesTracker tracker;
+
+    public WriteTrackingInterceptor(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        tracker.markWrite(ThreadLocalDemo.getUserId());
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.learning.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 缓存变更日志（表结构见 resources/db/cache_change_log.sql）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("cache_change_log")
+public class CacheChangeLog {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private String cacheKey;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+}
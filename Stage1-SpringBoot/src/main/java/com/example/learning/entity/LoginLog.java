@@ -0,0 +1,25 @@
+package com.example.learning.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 登录日志（表结构见 resources/db/login_log.sql）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("login_log")
+public class LoginLog {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private Long userId;
+    private String username;
+    private LocalDateTime loginTime;
+}
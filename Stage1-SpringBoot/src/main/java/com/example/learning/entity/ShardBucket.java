@@ -0,0 +1,41 @@
+package com.example.learning.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户分片路由：虚拟桶 -> 物理分片（表结构见 resources/db/user_sharding.sql）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("user_shard_bucket")
+public class ShardBucket {
+    @TableId(type = IdType.INPUT)
+    private Integer bucket;
+    private Integer shard;
+    /**
+     * 迁移中的目标分片，不迁移时为空
+     */
+    private Integer targetShard;
+    private State state;
+
+    public enum State {
+        /**
+         * 读写都在 shard
+         */
+        STABLE,
+        /**
+         * 迁移中：读 shard，写 shard 和 targetShard 两边
+         */
+        COPYING,
+        /**
+         * 已切读：读 targetShard，写还是两边（等所有实例都切过来再停写旧分片）
+         */
+        SWITCHED
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.learning.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户名 -> 用户ID 的全局索引（用户表按ID分片后，按用户名查先查这里；表结构见 resources/db/user_sharding.sql）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("user_username_index")
+public class UsernameIndex {
+    @TableId(type = IdType.INPUT)
+    private String username;
+    private Long userId;
+}
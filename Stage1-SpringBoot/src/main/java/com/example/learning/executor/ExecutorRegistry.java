@@ -0,0 +1,75 @@
+package com.example.learning.executor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命名线程池注册中心：所有业务线程池都从这里创建，统一暴露指标、统一在线调整、统一关闭
+ * 配置来自 thread-pools.pools.{名称}，没有配置的用 ThreadPoolProperties.Pool 的默认值
+ */
+@Component
+public class ExecutorRegistry {
+
+    private final ThreadPoolProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ManagedThreadPoolExecutor> executors = new ConcurrentHashMap<>();
+
+    public ExecutorRegistry(ThreadPoolProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 按名称创建（已存在则直接返回）
+     */
+    public ManagedThreadPoolExecutor create(String name) {
+        return executors.computeIfAbsent(name, key -> {
+            ThreadPoolProperties.Pool pool = properties.getPools().getOrDefault(key, new ThreadPoolProperties.Pool());
+            return new ManagedThreadPoolExecutor(key, pool, meterRegistry);
+        });
+    }
+
+    public ManagedThreadPoolExecutor get(String name) {
+        ManagedThreadPoolExecutor executor = executors.get(name);
+        if (executor == null) {
+            throw new RuntimeException("线程池不存在：" + name);
+        }
+        return executor;
+    }
+
+    public List<ThreadPoolSnapshot> snapshots() {
+        List<ThreadPoolSnapshot> snapshots = new ArrayList<>();
+        for (ManagedThreadPoolExecutor executor : executors.values()) {
+            snapshots.add(executor.snapshot());
+        }
+        return snapshots;
+    }
+
+    public ThreadPoolSnapshot resize(String name, ThreadPoolResizeRequest request) {
+        ManagedThreadPoolExecutor executor = get(name);
+        executor.resize(request.getCoreSize(), request.getMaxSize(), request.getQueueCapacity());
+        return executor.snapshot();
+    }
+
+    /**
+     * 应用关闭时先停止接收新任务，等队列里的任务跑完（最多 10 秒）
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ManagedThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+        for (ManagedThreadPoolExecutor executor : executors.values()) {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
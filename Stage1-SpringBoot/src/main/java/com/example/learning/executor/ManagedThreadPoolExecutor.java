@@ -0,0 +1,212 @@
+package com.example.learning.executor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可观测、可在线调整的线程池
+ *
+ * 1. 指标（都带 name 标签）：
+ *    threadpool.active / pool.size / core.size / max.size / queue.size / queue.capacity / completed（Gauge）
+ *    threadpool.rejected（Counter）
+ *    threadpool.task.wait：任务在队列里等了多久；threadpool.task.run：任务执行了多久（Timer，带直方图）
+ * 2. 在线调整：核心线程数、最大线程数、队列容量（见 resize）
+ * 3. 拒绝策略只有 ABORT / DISCARD / DISCARD_OLDEST，任务永远不会跑到提交方（Tomcat）线程上；
+ *    丢弃的如果是 submit 提交的任务，会把它的 Future 取消，等 get() 的线程马上拿到 CancellationException，不会永远等下去
+ */
+@Slf4j
+public class ManagedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private final String name;
+    private final ResizableLinkedBlockingQueue<Runnable> queue;
+    private final RejectPolicy rejectPolicy;
+    private final Counter rejected;
+    private final Timer waitTimer;
+    private final Timer runTimer;
+
+    public ManagedThreadPoolExecutor(String name, ThreadPoolProperties.Pool pool, MeterRegistry meterRegistry) {
+        this(name, pool, new ResizableLinkedBlockingQueue<>(pool.getQueueCapacity()), meterRegistry);
+    }
+
+    private ManagedThreadPoolExecutor(String name, ThreadPoolProperties.Pool pool,
+                                      ResizableLinkedBlockingQueue<Runnable> queue, MeterRegistry meterRegistry) {
+        super(pool.getCoreSize(), pool.getMaxSize(), pool.getKeepAliveSeconds(), TimeUnit.SECONDS, queue,
+                namedThreadFactory(name), new CountingRejectHandler(pool.getRejectPolicy()));
+        this.name = name;
+        this.queue = queue;
+        this.rejectPolicy = pool.getRejectPolicy();
+
+        Tags tags = Tags.of("name", name);
+        this.rejected = Counter.builder("threadpool.rejected")
+                .description("被拒绝的任务数")
+                .tags(tags)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("threadpool.task.wait")
+                .description("任务在队列里的等待时间")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("threadpool.task.run")
+                .description("任务执行时间")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("threadpool.active", this, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行任务的线程数").tags(tags).register(meterRegistry);
+        Gauge.builder("threadpool.pool.size", this, ThreadPoolExecutor::getPoolSize)
+                .description("当前线程数").tags(tags).register(meterRegistry);
+        Gauge.builder("threadpool.core.size", this, ThreadPoolExecutor::getCorePoolSize)
+                .description("核心线程数").tags(tags).register(meterRegistry);
+        Gauge.builder("threadpool.max.size", this, ThreadPoolExecutor::getMaximumPoolSize)
+                .description("最大线程数").tags(tags).register(meterRegistry);
+        Gauge.builder("threadpool.queue.size", queue, ResizableLinkedBlockingQueue::size)
+                .description("队列中等待的任务数").tags(tags).register(meterRegistry);
+        Gauge.builder("threadpool.queue.capacity", queue, ResizableLinkedBlockingQueue::getCapacity)
+                .description("队列容量").tags(tags).register(meterRegistry);
+        Gauge.builder("threadpool.completed", this, ThreadPoolExecutor::getCompletedTaskCount)
+                .description("已完成的任务数").tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * 包一层记录排队和执行耗时（submit 也会走到这里）
+     */
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedTask(command));
+    }
+
+    /**
+     * 在线调整参数，传 null 的保持不变
+     */
+    public synchronized void resize(Integer coreSize, Integer maxSize, Integer queueCapacity) {
+        int newCore = coreSize != null ? coreSize : getCorePoolSize();
+        int newMax = maxSize != null ? maxSize : getMaximumPoolSize();
+        if (newCore < 0 || newMax <= 0 || newCore > newMax) {
+            throw new IllegalArgumentException("线程数不合法：core=" + newCore + "，max=" + newMax);
+        }
+        // 先调哪个取决于方向，保证任何时刻都满足 core <= max，否则 ThreadPoolExecutor 会抛异常
+        if (newMax < getCorePoolSize()) {
+            setCorePoolSize(newCore);
+            setMaximumPoolSize(newMax);
+        } else {
+            setMaximumPoolSize(newMax);
+            setCorePoolSize(newCore);
+        }
+        if (queueCapacity != null) {
+            queue.setCapacity(queueCapacity);
+        }
+        log.info("线程池 {} 已调整：core={}，max={}，queueCapacity={}", name, newCore, newMax, queue.getCapacity());
+    }
+
+    public ThreadPoolSnapshot snapshot() {
+        ThreadPoolSnapshot snapshot = new ThreadPoolSnapshot();
+        snapshot.setName(name);
+        snapshot.setCoreSize(getCorePoolSize());
+        snapshot.setMaxSize(getMaximumPoolSize());
+        snapshot.setPoolSize(getPoolSize());
+        snapshot.setActiveCount(getActiveCount());
+        snapshot.setQueueSize(queue.size());
+        snapshot.setQueueCapacity(queue.getCapacity());
+        snapshot.setCompletedTaskCount(getCompletedTaskCount());
+        snapshot.setRejectedCount((long) rejected.count());
+        snapshot.setRejectPolicy(rejectPolicy.name());
+        return snapshot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private static ThreadFactory namedThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger(1);
+        return r -> {
+            Thread thread = new Thread(r);
+            thread.setName(name + "-thread-" + count.getAndIncrement());
+            return thread;
+        };
+    }
+
+    private class TimedTask implements Runnable {
+
+        private final Runnable delegate;
+        private final long submittedAt = System.nanoTime();
+
+        TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            waitTimer.record(start - submittedAt, TimeUnit.NANOSECONDS);
+            try {
+                delegate.run();
+            } finally {
+                runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 拒绝处理：计数 + 记日志，然后按策略抛异常或丢弃，不在提交线程上执行任务
+     */
+    private static class CountingRejectHandler implements RejectedExecutionHandler {
+
+        private final RejectPolicy policy;
+
+        CountingRejectHandler(RejectPolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            ManagedThreadPoolExecutor pool = (ManagedThreadPoolExecutor) executor;
+            pool.rejected.increment();
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("线程池 " + pool.name + " 已关闭");
+            }
+            switch (policy) {
+                case DISCARD_OLDEST:
+                    Runnable oldest = executor.getQueue().poll();
+                    log.warn("线程池 {} 已满，丢弃队列中最老的任务（拒绝总数 {}）", pool.name, (long) pool.rejected.count());
+                    if (oldest != null) {
+                        cancel(oldest);
+                    }
+                    if (oldest == null || !executor.getQueue().offer(task)) {
+                        log.warn("线程池 {} 已满，新任务也被丢弃", pool.name);
+                        cancel(task);
+                    }
+                    break;
+                case DISCARD:
+                    log.warn("线程池 {} 已满，丢弃任务（拒绝总数 {}）", pool.name, (long) pool.rejected.count());
+                    cancel(task);
+                    break;
+                default:
+                    throw new RejectedExecutionException("线程池 " + pool.name + " 已满（active=" + executor.getActiveCount()
+                            + "，queue=" + executor.getQueue().size() + "）");
+            }
+        }
+
+        /**
+         * 丢弃的是 submit 提交的任务（FutureTask）时取消它，释放在 get() 上等待的线程
+         */
+        private static void cancel(Runnable task) {
+            Runnable target = task instanceof TimedTask ? ((TimedTask) task).delegate : task;
+            if (target instanceof Future) {
+                ((Future<?>) target).cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.learning.executor;
+
+/**
+ * 线程池满了（队列满 + 线程数达到最大）之后的处理方式
+ * 故意不提供 CALLER_RUNS：那会让慢任务跑在提交它的 Tomcat 请求线程上，拖慢接口
+ */
+public enum RejectPolicy {
+
+    /**
+     * 抛出 RejectedExecutionException，由提交方决定怎么办
+     */
+    ABORT,
+
+    /**
+     * 丢弃新任务，记日志和拒绝次数；submit 提交的任务会取消它的 Future
+     */
+    DISCARD,
+
+    /**
+     * 丢弃队列里最老的任务（同样取消它的 Future），新任务入队
+     */
+    DISCARD_OLDEST
+}
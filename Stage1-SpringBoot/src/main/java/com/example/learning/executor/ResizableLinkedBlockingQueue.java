@@ -0,0 +1,63 @@
+package com.example.learning.executor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 容量可以在运行时调整的任务队列
+ * LinkedBlockingQueue 的容量是 final 的，这里底层用无界队列，在入队时按 capacity 自己判断是否已满
+ * 调小容量时已经在队列里的任务不受影响，只是新任务要等队列降到新容量以下才能进来
+ */
+public class ResizableLinkedBlockingQueue<E> extends LinkedBlockingQueue<E> {
+
+    private final ReentrantLock offerLock = new ReentrantLock();
+    private volatile int capacity;
+
+    public ResizableLinkedBlockingQueue(int capacity) {
+        super();
+        setCapacity(capacity);
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于 0：" + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - size());
+    }
+
+    /**
+     * 线程池提交任务只调用 offer，判断容量和入队放在同一把锁里，不会超出容量
+     */
+    @Override
+    public boolean offer(E e) {
+        offerLock.lock();
+        try {
+            return size() < capacity && super.offer(e);
+        } finally {
+            offerLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        // 线程池不会用到带超时的 offer，这里不等待，和 offer(e) 一致
+        return offer(e);
+    }
+
+    @Override
+    public void put(E e) {
+        if (!offer(e)) {
+            throw new IllegalStateException("队列已满");
+        }
+    }
+}
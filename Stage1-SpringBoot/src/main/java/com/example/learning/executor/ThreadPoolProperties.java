@@ -0,0 +1,48 @@
+package com.example.learning.executor;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 线程池配置（thread-pools.pools.{名称}.*），启动时的初始值，运行时可以通过 /admin/thread-pools 调整
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "thread-pools")
+public class ThreadPoolProperties {
+
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+
+        /**
+         * 核心线程数，默认 CPU 核数
+         */
+        private int coreSize = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 最大线程数，默认 CPU 核数 * 2
+         */
+        private int maxSize = Runtime.getRuntime().availableProcessors() * 2;
+
+        /**
+         * 任务队列容量
+         */
+        private int queueCapacity = 100;
+
+        /**
+         * 非核心线程空闲多久回收（秒）
+         */
+        private long keepAliveSeconds = 60;
+
+        /**
+         * 拒绝策略，默认 ABORT：提交方马上拿到异常，不会拿着一个永远不完成的 Future
+         */
+        private RejectPolicy rejectPolicy = RejectPolicy.ABORT;
+    }
+}
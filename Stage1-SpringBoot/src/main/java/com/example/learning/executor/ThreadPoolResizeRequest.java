@@ -0,0 +1,13 @@
+package com.example.learning.executor;
+
+import lombok.Data;
+
+/**
+ * 调整线程池参数的请求，不传的字段保持不变
+ */
+@Data
+public class ThreadPoolResizeRequest {
+    private Integer coreSize;
+    private Integer maxSize;
+    private Integer queueCapacity;
+}
@@ -0,0 +1,20 @@
+package com.example.learning.executor;
+
+import lombok.Data;
+
+/**
+ * 线程池当前状态（/admin/thread-pools 返回）
+ */
+@Data
+public class ThreadPoolSnapshot {
+    private String name;
+    private int coreSize;
+    private int maxSize;
+    private int poolSize;
+    private int activeCount;
+    private int queueSize;
+    private int queueCapacity;
+    private long completedTaskCount;
+    private long rejectedCount;
+    private String rejectPolicy;
+}
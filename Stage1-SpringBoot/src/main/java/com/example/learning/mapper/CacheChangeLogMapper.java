@@ -0,0 +1,28 @@
+package com.example.learning.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.learning.entity.CacheChangeLog;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface CacheChangeLogMapper extends BaseMapper<CacheChangeLog> {
+
+    /**
+     * before 之前写入、还没处理的变更（按写入顺序）
+     */
+    List<CacheChangeLog> selectPending(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 批量标记已处理，返回更新行数
+     */
+    int markProcessed(@Param("ids") List<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * 删除 before 之前已处理的记录，返回删除行数
+     */
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,29 @@
+package com.example.learning.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.learning.entity.LoginLog;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface LoginLogMapper extends BaseMapper<LoginLog> {
+
+    /**
+     * 批量插入（一条多行 INSERT），返回插入行数
+     */
+    int insertBatch(@Param("logs") List<LoginLog> logs);
+
+    /**
+     * 某个用户最近的登录记录（按时间倒序）
+     */
+    List<LoginLog> selectRecentByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * since 之后登录过的用户ID，按最近登录时间倒序分页（启动预热用）
+     */
+    List<Long> selectActiveUserIds(@Param("since") LocalDateTime since, @Param("offset") int offset, @Param("limit") int limit);
+
+}
@@ -0,0 +1,33 @@
+package com.example.learning.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.learning.entity.ShardBucket;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface ShardBucketMapper extends BaseMapper<ShardBucket> {
+
+    /**
+     * 多行 INSERT 初始化路由表，返回插入行数
+     */
+    int insertBatch(@Param("buckets") List<ShardBucket> buckets);
+
+    /**
+     * 开始迁移：STABLE 的桶标记为 COPYING，目标分片 targetShard
+     */
+    int startCopying(@Param("buckets") Collection<Integer> buckets, @Param("targetShard") int targetShard);
+
+    /**
+     * 切读：COPYING -> SWITCHED
+     */
+    int switchReads(@Param("buckets") Collection<Integer> buckets);
+
+    /**
+     * 迁移完成：SWITCHED -> STABLE，shard 改成 targetShard
+     */
+    int finish(@Param("buckets") Collection<Integer> buckets);
+}
@@ -5,10 +5,29 @@ import com.example.learning.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
+/**
+ * 用户表；分片后同一套 SQL 由 ShardTableNameHandler 改写到 user_N 上执行
+ */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
     // MyBatis-Plus 已经提供了基础的 CRUD 方法
-    // TODO: 自定义 SQL 方法可以在这里添加
     User selectByUsername(@Param("username") String username);
 
-}
\ No newline at end of file
+    /**
+     * 按ID顺序取 afterId 之后的 limit 条（afterId 为空从头取），用于分片分页归并和迁移扫描
+     */
+    List<User> selectAfterId(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 已存在（同ID）就跳过，返回插入行数
+     */
+    int insertIgnore(User user);
+
+    /**
+     * 不存在就插入，存在就整行覆盖
+     */
+    int upsert(User user);
+
+}
@@ -0,0 +1,9 @@
+package com.example.learning.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.learning.entity.UsernameIndex;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface UsernameIndexMapper extends BaseMapper<UsernameIndex> {
+}
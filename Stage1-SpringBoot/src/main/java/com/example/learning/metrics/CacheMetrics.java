@@ -0,0 +1,44 @@
+package com.example.learning.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存命中统计：cache.requests{cache=缓存名, result=hit|miss|null_hit}
+ * 命中率 = hit / (hit + miss)；null_hit 是命中了空值缓存（防穿透），单独统计
+ * Counter 按 缓存名+结果 缓存起来，热路径上只是一次 Map 查找 + 一次累加
+ */
+@Component
+public class CacheMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public CacheMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void hit(String cache) {
+        counter(cache, "hit").increment();
+    }
+
+    public void miss(String cache) {
+        counter(cache, "miss").increment();
+    }
+
+    public void nullHit(String cache) {
+        counter(cache, "null_hit").increment();
+    }
+
+    private Counter counter(String cache, String result) {
+        return counters.computeIfAbsent(cache + ':' + result, key -> Counter.builder("cache.requests")
+                .description("缓存请求数")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.learning.metrics;
+
+import lombok.Data;
+
+/**
+ * 单个接口的资源消耗汇总（/admin/request-resources 返回）
+ */
+@Data
+public class EndpointResourceSnapshot {
+    /**
+     * 方法 + URI 模板，例如 GET /users/{id}
+     */
+    private String endpoint;
+    private long requests;
+    private long allocatedBytes;
+    private long avgAllocatedBytes;
+    private long maxAllocatedBytes;
+    /**
+     * 占所有接口分配总量的百分比
+     */
+    private double allocatedShare;
+    private long cpuMillis;
+    private long avgCpuMicros;
+    private long maxCpuMicros;
+}
@@ -0,0 +1,140 @@
+package com.example.learning.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单请求资源统计：每个请求在请求线程上分配了多少字节、用了多少 CPU 时间
+ *
+ * 请求前后各读一次线程级 JMX 计数（com.sun.management.ThreadMXBean 的 getCurrentThreadAllocatedBytes /
+ * getCurrentThreadCpuTime），差值就是这个请求的消耗；按“方法 + URI 模板”汇总（/users/{id} 不会按ID炸开）
+ * 1. 分布：http.server.requests.allocation{method, uri}（字节）、http.server.requests.cpu{method, uri}，都带直方图
+ * 2. 排行：累计值交给 RequestResourceStats，GET /admin/request-resources 看分配最多的接口
+ * 只统计请求线程本身：扔到线程池里执行的部分（比如 /users/{id}/profile 的并行查询）记不到接口头上
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestResourceFilter extends OncePerRequestFilter {
+
+    private final RequestResourceProperties properties;
+    private final RequestResourceStats stats;
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final boolean allocationEnabled;
+    private final boolean cpuEnabled;
+    private final Map<String, DistributionSummary> allocationSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> cpuTimers = new ConcurrentHashMap<>();
+
+    public RequestResourceFilter(RequestResourceProperties properties, RequestResourceStats stats, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stats = stats;
+        this.meterRegistry = meterRegistry;
+        this.threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.allocationEnabled = properties.isAllocation() && enableAllocation();
+        this.cpuEnabled = properties.isCpu() && enableCpuTime();
+    }
+
+    private boolean enableAllocation() {
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            log.warn("当前 JVM 不支持线程内存分配统计，request-resource.allocation 不生效");
+            return false;
+        }
+        if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+
+    private boolean enableCpuTime() {
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+            log.warn("当前 JVM 不支持线程 CPU 时间统计，request-resource.cpu 不生效");
+            return false;
+        }
+        if (!threadMXBean.isThreadCpuTimeEnabled()) {
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        }
+        return true;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || (!allocationEnabled && !cpuEnabled);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long allocatedBefore = allocationEnabled ? threadMXBean.getCurrentThreadAllocatedBytes() : 0;
+        long cpuBefore = cpuEnabled ? threadMXBean.getCurrentThreadCpuTime() : 0;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long allocated = allocationEnabled ? threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore : -1;
+            long cpu = cpuEnabled ? threadMXBean.getCurrentThreadCpuTime() - cpuBefore : -1;
+            record(request.getMethod(), uri(request, response), allocated, cpu);
+        }
+    }
+
+    private void record(String method, String uri, long allocatedBytes, long cpuNanos) {
+        String endpoint = method + ' ' + uri;
+        if (allocatedBytes >= 0) {
+            allocationSummaries.computeIfAbsent(endpoint, key -> DistributionSummary.builder("http.server.requests.allocation")
+                    .description("单个请求在请求线程上分配的内存")
+                    .baseUnit("bytes")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(1024.0)
+                    .maximumExpectedValue(1024.0 * 1024 * 1024)
+                    .register(meterRegistry)).record(allocatedBytes);
+        }
+        if (cpuNanos >= 0) {
+            cpuTimers.computeIfAbsent(endpoint, key -> Timer.builder("http.server.requests.cpu")
+                    .description("单个请求在请求线程上消耗的 CPU 时间")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(10)))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry)).record(cpuNanos, TimeUnit.NANOSECONDS);
+        }
+        stats.record(endpoint, allocatedBytes, cpuNanos);
+    }
+
+    /**
+     * 和 http.server.requests 的 uri 标签一致：用匹配到的 URI 模板，匹配不到的归成几类，避免标签基数失控
+     */
+    private static String uri(HttpServletRequest request, HttpServletResponse response) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        int status = response.getStatus();
+        if (status == HttpServletResponse.SC_NOT_FOUND) {
+            return "NOT_FOUND";
+        }
+        if (status >= 300 && status < 400) {
+            return "REDIRECTION";
+        }
+        return "UNKNOWN";
+    }
+}
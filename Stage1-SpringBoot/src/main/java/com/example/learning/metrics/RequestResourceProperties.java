@@ -0,0 +1,26 @@
+package com.example.learning.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 单请求资源统计配置（request-resource.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "request-resource")
+public class RequestResourceProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 统计请求线程分配的字节数（ThreadMXBean.getCurrentThreadAllocatedBytes）
+     */
+    private boolean allocation = true;
+
+    /**
+     * 统计请求线程的 CPU 时间（ThreadMXBean.getCurrentThreadCpuTime，每次大约 1 微秒）
+     */
+    private boolean cpu = true;
+}
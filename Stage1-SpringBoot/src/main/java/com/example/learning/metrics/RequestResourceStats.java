@@ -0,0 +1,88 @@
+package com.example.learning.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口累计每个请求的内存分配和 CPU 时间，用来排“哪个接口在制造 GC 压力”
+ * 分布（P99 等）看 Prometheus 里的 http.server.requests.allocation / http.server.requests.cpu，
+ * 这里只做进程内累计，方便直接在 /admin/request-resources 看排行；累计值可以随时清零重新统计
+ */
+@Component
+public class RequestResourceStats {
+
+    public enum SortBy {
+        ALLOCATED, CPU
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String endpoint, long allocatedBytes, long cpuNanos) {
+        Endpoint stats = endpoints.computeIfAbsent(endpoint, key -> new Endpoint());
+        stats.requests.increment();
+        if (allocatedBytes >= 0) {
+            stats.allocated.add(allocatedBytes);
+            stats.maxAllocated.accumulate(allocatedBytes);
+        }
+        if (cpuNanos >= 0) {
+            stats.cpu.add(cpuNanos);
+            stats.maxCpu.accumulate(cpuNanos);
+        }
+    }
+
+    /**
+     * 按分配总量（或 CPU 总时间）从高到低取前 limit 个接口，limit 小于 0 按 0 处理
+     */
+    public List<EndpointResourceSnapshot> top(int limit, SortBy sortBy) {
+        List<EndpointResourceSnapshot> snapshots = new ArrayList<>(endpoints.size());
+        long totalAllocated = 0;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            EndpointResourceSnapshot snapshot = entry.getValue().snapshot(entry.getKey());
+            totalAllocated += snapshot.getAllocatedBytes();
+            snapshots.add(snapshot);
+        }
+        for (EndpointResourceSnapshot snapshot : snapshots) {
+            snapshot.setAllocatedShare(totalAllocated == 0 ? 0
+                    : Math.round(snapshot.getAllocatedBytes() * 10000.0 / totalAllocated) / 100.0);
+        }
+        snapshots.sort(Comparator.comparingLong(sortBy == SortBy.CPU
+                ? EndpointResourceSnapshot::getCpuMillis : EndpointResourceSnapshot::getAllocatedBytes).reversed());
+        return snapshots.subList(0, Math.max(0, Math.min(limit, snapshots.size())));
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static class Endpoint {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAccumulator maxAllocated = new LongAccumulator(Math::max, 0);
+        private final LongAdder cpu = new LongAdder();
+        private final LongAccumulator maxCpu = new LongAccumulator(Math::max, 0);
+
+        private EndpointResourceSnapshot snapshot(String endpoint) {
+            long count = requests.sum();
+            long allocatedBytes = allocated.sum();
+            long cpuNanos = cpu.sum();
+            EndpointResourceSnapshot snapshot = new EndpointResourceSnapshot();
+            snapshot.setEndpoint(endpoint);
+            snapshot.setRequests(count);
+            snapshot.setAllocatedBytes(allocatedBytes);
+            snapshot.setAvgAllocatedBytes(count == 0 ? 0 : allocatedBytes / count);
+            snapshot.setMaxAllocatedBytes(maxAllocated.get());
+            snapshot.setCpuMillis(TimeUnit.NANOSECONDS.toMillis(cpuNanos));
+            snapshot.setAvgCpuMicros(count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(cpuNanos / count));
+            snapshot.setMaxCpuMicros(TimeUnit.NANOSECONDS.toMicros(maxCpu.get()));
+            return snapshot;
+        }
+    }
+}
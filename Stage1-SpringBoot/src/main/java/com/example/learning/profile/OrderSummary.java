@@ -0,0 +1,15 @@
+package com.example.learning.profile;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 订单汇总（由订单侧写入 Redis：order:summary:{userId}，这里只读）
+ */
+@Data
+public class OrderSummary {
+    private Integer orderCount;
+    private BigDecimal totalAmount;
+    private Long lastOrderTime;
+}
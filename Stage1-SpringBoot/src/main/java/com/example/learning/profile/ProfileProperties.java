@@ -0,0 +1,36 @@
+package com.example.learning.profile;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户画像聚合配置（profile.*）：每个分支单独的超时时间
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "profile")
+public class ProfileProperties {
+
+    /**
+     * 用户信息（缓存 + DB）
+     */
+    private Duration userTimeout = Duration.ofMillis(300);
+
+    /**
+     * 订单汇总（只查 Redis）
+     */
+    private Duration orderSummaryTimeout = Duration.ofMillis(100);
+
+    /**
+     * 最近登录记录（查 login_log）
+     */
+    private Duration recentLoginsTimeout = Duration.ofMillis(200);
+
+    /**
+     * 最近登录记录取几条
+     */
+    private int recentLoginsLimit = 5;
+}
@@ -0,0 +1,20 @@
+package com.example.learning.profile;
+
+import com.example.learning.entity.LoginLog;
+import com.example.learning.entity.User;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 用户画像：一次请求聚合用户信息、订单汇总、最近登录记录
+ * degraded 列出超时或失败、用了兜底值的部分，前端据此决定是否提示"部分信息加载失败"
+ */
+@Data
+public class UserProfile {
+    private User user;
+    private OrderSummary orderSummary;
+    private List<LoginLog> recentLogins;
+    private List<String> degraded;
+    private long costMs;
+}
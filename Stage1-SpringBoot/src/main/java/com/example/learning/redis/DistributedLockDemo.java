@@ -1,6 +1,8 @@
 package com.example.learning.redis;
 
 import com.example.learning.common.RedisUtil;
+import com.example.learning.redis.failover.RedisHealthGuard;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -9,12 +11,17 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 分布式锁实战：秒杀库存扣减（解决分布式系统并发安全）
+ * 库存和锁都在 Redis 里，Redis 降级期间没法保证不超卖，直接快速失败，不让请求线程去等超时
  */
+@Slf4j
 @Component
 public class DistributedLockDemo {
     @Resource
     private RedisUtil redisUtil;
 
+    @Resource
+    private RedisHealthGuard redisHealthGuard;
+
     // 库存key（Redis中存储库存数量）
     private static final String STOCK_KEY = "seckill:stock:1";
     // 分布式锁key
@@ -23,8 +30,15 @@ public class DistributedLockDemo {
     // 初始化库存（项目启动时执行）
     @PostConstruct
     public void initStock() {
-        // 模拟秒杀库存100件
-        redisUtil.set(STOCK_KEY, 100, 24, TimeUnit.HOURS);
+        // 模拟秒杀库存100件（Redis 不可用时不影响启动）
+        try {
+            redisUtil.set(STOCK_KEY, 100, 24, TimeUnit.HOURS);
+        } catch (RuntimeException e) {
+            if (!redisHealthGuard.recordFailure(e)) {
+                throw e;
+            }
+            log.warn("初始化秒杀库存失败，Redis 不可用：{}", e.getMessage());
+        }
     }
 
     /**
@@ -32,6 +46,9 @@ public class DistributedLockDemo {
      * @return 秒杀结果（成功/失败）
      */
     public String seckill() {
+        if (redisHealthGuard.isOpen()) {
+            return "秒杀失败，服务降级中，请稍后重试！";
+        }
         String lockValue = null;
         try {
             // 1. 获取分布式锁（过期时间5秒，防止死锁）
@@ -41,8 +58,8 @@ public class DistributedLockDemo {
                 return "秒杀失败，当前排队人数过多，请重试！";
             }
 
-            // 2. 抢到锁，查询库存
-            Integer stock = (Integer) redisUtil.get(STOCK_KEY);
+            // 2. 抢到锁，查询库存（直接读 Redis：热点本地副本可能是别的实例扣减前的旧值，会超卖）
+            Integer stock = (Integer) redisUtil.getFromRedis(STOCK_KEY);
             if (stock == null || stock <= 0) {
                 return "秒杀失败，库存已售罄！";
             }
@@ -50,15 +67,26 @@ public class DistributedLockDemo {
             // 3. 扣减库存（模拟业务耗时）
             Thread.sleep(100);
             redisUtil.set(STOCK_KEY, stock - 1, 24, TimeUnit.HOURS);
-            System.out.println("秒杀成功，剩余库存：" + (stock - 1));
+            log.debug("秒杀成功，剩余库存：{}", stock - 1);
             return "秒杀成功！剩余库存：" + (stock - 1);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            Thread.currentThread().interrupt();
+            log.warn("秒杀被中断", e);
             return "秒杀异常，请重试！";
+        } catch (RuntimeException e) {
+            if (!redisHealthGuard.recordFailure(e)) {
+                throw e;
+            }
+            return "秒杀失败，服务降级中，请稍后重试！";
         } finally {
-            // 4. 释放锁（必须在finally中，确保锁一定释放）
-            if (lockValue != null) {
-                redisUtil.unlock(LOCK_KEY, lockValue);
+            // 4. 释放锁（必须在finally中，确保锁一定释放；Redis 已降级就不再去等超时，锁 5 秒后自动过期）
+            if (lockValue != null && !redisHealthGuard.isOpen()) {
+                try {
+                    redisUtil.unlock(LOCK_KEY, lockValue);
+                } catch (RuntimeException e) {
+                    redisHealthGuard.recordFailure(e);
+                    log.warn("释放秒杀锁失败，等待自动过期：{}", e.getMessage());
+                }
             }
         }
     }
@@ -71,20 +99,20 @@ public class DistributedLockDemo {
         // 第一次获取锁
         String lockValue = redisUtil.tryLock(lockKey, 10, TimeUnit.SECONDS);
         if (lockValue != null) {
-            System.out.println("第一次获取锁成功");
+            log.debug("第一次获取锁成功");
             // 同一线程重入锁
             boolean reentrant = redisUtil.reentrantLock(lockKey, lockValue, 10, TimeUnit.SECONDS);
             if (reentrant) {
-                System.out.println("重入锁成功");
+                log.debug("重入锁成功");
                 // 执行业务逻辑
                 // ...
                 // 释放重入锁（释放一次即可，因为锁的key只有一个）
                 redisUtil.unlock(lockKey, lockValue);
-                System.out.println("重入锁释放成功");
+                log.debug("重入锁释放成功");
             }
             // 释放第一次的锁
             redisUtil.unlock(lockKey, lockValue);
-            System.out.println("第一次锁释放成功");
+            log.debug("第一次锁释放成功");
         }
     }
 }
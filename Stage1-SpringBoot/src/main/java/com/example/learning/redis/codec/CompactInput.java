@@ -0,0 +1,87 @@
+package com.example.learning.redis.codec;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 紧凑二进制读取，和 CompactOutput 对应；数据不完整时抛 SerializationException
+ */
+public class CompactInput {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    public CompactInput(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    public int readInt() {
+        require(4);
+        int value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+                | (buffer[position + 2] & 0xFF) << 8 | (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    public long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new SerializationException("varint 格式错误");
+    }
+
+    public String readString() {
+        int length = (int) readVarLong();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public Long readNullableLong() {
+        return readByte() == 0 ? null : readVarLong();
+    }
+
+    public Integer readNullableInt() {
+        return readByte() == 0 ? null : (int) readVarLong();
+    }
+
+    public String readNullableString() {
+        return readByte() == 0 ? null : readString();
+    }
+
+    public byte[] readRemaining() {
+        byte[] rest = new byte[limit - position];
+        System.arraycopy(buffer, position, rest, 0, rest.length);
+        position = limit;
+        return rest;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    private void require(int bytes) {
+        if (bytes < 0 || position + bytes > limit) {
+            throw new SerializationException("数据不完整：需要 " + bytes + " 字节，剩余 " + (limit - position));
+        }
+    }
+}
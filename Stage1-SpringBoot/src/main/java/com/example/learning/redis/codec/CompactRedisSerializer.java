@@ -0,0 +1,175 @@
+package com.example.learning.redis.codec;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑二进制的 Redis 值序列化器，替代 GenericJackson2JsonRedisSerializer（不再在每个值里写 @class 类名）
+ *
+ * 格式：[0xB1 魔数][flags][typeId varint][version varint][压缩时：原始长度 int][数据]
+ * 1. 注册了 RedisTypeCodec 的类型（如 User）按字段写二进制；String / Long / Integer 内置；
+ *    其它类型仍然写 JSON（typeId = 15），保证任何对象都能存
+ * 2. 编码后超过 compression-threshold 的值用 LZ4 压缩（flags 第 0 位），压完没变小就不压
+ * 3. 兼容老数据：第一个字节不是 0xB1 的按原来的 JSON 格式读（JSON 的第一个字节不可能是 0xB1），
+ *    迁移期间不用清缓存，老 key 过期或被重写后自然变成新格式；redis.codec.legacy.reads 降到 0 说明迁移完了
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final int MAGIC = 0xB1;
+    static final int FLAG_LZ4 = 1;
+
+    static final int TYPE_STRING = 1;
+    static final int TYPE_LONG = 2;
+    static final int TYPE_INTEGER = 3;
+    static final int TYPE_JSON = 15;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final Map<Class<?>, RedisTypeCodec<?>> codecsByType = new HashMap<>();
+    private final Map<Integer, RedisTypeCodec<?>> codecsById = new HashMap<>();
+    private final boolean writeJson;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+    private final Counter legacyReads;
+
+    public CompactRedisSerializer(List<RedisTypeCodec<?>> codecs, RedisCodecProperties properties, MeterRegistry meterRegistry) {
+        for (RedisTypeCodec<?> codec : codecs) {
+            if (codec.typeId() <= TYPE_JSON) {
+                throw new IllegalArgumentException(codec.getClass().getSimpleName() + " 的 typeId 必须大于 " + TYPE_JSON);
+            }
+            RedisTypeCodec<?> existing = codecsById.put(codec.typeId(), codec);
+            if (existing != null) {
+                throw new IllegalArgumentException("typeId " + codec.typeId() + " 重复：" + existing.getClass().getSimpleName()
+                        + " 和 " + codec.getClass().getSimpleName());
+            }
+            codecsByType.put(codec.type(), codec);
+        }
+        this.writeJson = properties.getFormat() == RedisCodecProperties.Format.JSON;
+        this.compressionThreshold = properties.isCompressionEnabled()
+                ? (int) properties.getCompressionThreshold().toBytes() : Integer.MAX_VALUE;
+        this.legacyReads = Counter.builder("redis.codec.legacy.reads")
+                .description("读到老 JSON 格式的次数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (writeJson) {
+            return jsonSerializer.serialize(value);
+        }
+        RedisTypeCodec codec = codecsByType.get(value.getClass());
+        CompactOutput body = new CompactOutput(64);
+        int typeId;
+        int version = 1;
+        if (codec != null) {
+            typeId = codec.typeId();
+            version = codec.version();
+            codec.encode(value, body);
+        } else if (value instanceof String) {
+            typeId = TYPE_STRING;
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            body.writeBytes(bytes, 0, bytes.length);
+        } else if (value instanceof Long) {
+            typeId = TYPE_LONG;
+            body.writeVarLong((Long) value);
+        } else if (value instanceof Integer) {
+            typeId = TYPE_INTEGER;
+            body.writeVarLong((Integer) value);
+        } else {
+            typeId = TYPE_JSON;
+            byte[] json = jsonSerializer.serialize(value);
+            body.writeBytes(json, 0, json.length);
+        }
+        return frame(typeId, version, body);
+    }
+
+    private byte[] frame(int typeId, int version, CompactOutput body) {
+        byte[] data = body.array();
+        int length = body.size();
+        CompactOutput header = new CompactOutput(16);
+        header.writeByte(MAGIC);
+        if (length >= compressionThreshold) {
+            byte[] compressed = new byte[compressor.maxCompressedLength(length)];
+            int compressedLength = compressor.compress(data, 0, length, compressed, 0, compressed.length);
+            if (compressedLength + 4 < length) {
+                header.writeByte(FLAG_LZ4);
+                header.writeVarLong(typeId);
+                header.writeVarLong(version);
+                header.writeInt(length);
+                data = compressed;
+                length = compressedLength;
+            }
+        }
+        if (header.size() == 1) {
+            header.writeByte(0);
+            header.writeVarLong(typeId);
+            header.writeVarLong(version);
+        }
+        // 头部 + 数据一次拷贝到结果数组
+        byte[] result = new byte[header.size() + length];
+        System.arraycopy(header.array(), 0, result, 0, header.size());
+        System.arraycopy(data, 0, result, header.size(), length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC) {
+            legacyReads.increment();
+            return jsonSerializer.deserialize(bytes);
+        }
+        CompactInput header = new CompactInput(bytes, 1, bytes.length - 1);
+        int flags = header.readByte();
+        int typeId = (int) header.readVarLong();
+        int version = (int) header.readVarLong();
+        CompactInput body;
+        if ((flags & FLAG_LZ4) != 0) {
+            int length = header.readInt();
+            byte[] restored = new byte[length];
+            try {
+                decompressor.decompress(bytes, header.position(), restored, 0, length);
+            } catch (RuntimeException e) {
+                throw new SerializationException("LZ4 解压失败", e);
+            }
+            body = new CompactInput(restored, 0, length);
+        } else {
+            body = header;
+        }
+        switch (typeId) {
+            case TYPE_STRING:
+                return new String(body.readRemaining(), StandardCharsets.UTF_8);
+            case TYPE_LONG:
+                return body.readVarLong();
+            case TYPE_INTEGER:
+                return (int) body.readVarLong();
+            case TYPE_JSON:
+                return jsonSerializer.deserialize(body.readRemaining());
+            default:
+                RedisTypeCodec<?> codec = codecsById.get(typeId);
+                if (codec == null) {
+                    throw new SerializationException("未注册的 typeId：" + typeId);
+                }
+                return codec.decode(version, body);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.learning.redis.codec;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Redis 值序列化配置（redis-codec.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "redis-codec")
+public class RedisCodecProperties {
+
+    /**
+     * 写入格式：COMPACT 二进制；JSON 原来的 GenericJackson2JsonRedisSerializer（出问题时可以切回去）
+     * 两种格式都能读，切换不需要清缓存
+     */
+    private Format format = Format.COMPACT;
+
+    /**
+     * 是否对大的值做 LZ4 压缩
+     */
+    private boolean compressionEnabled = true;
+
+    /**
+     * 编码后超过这个大小才压缩（小值压缩收益小，还浪费 CPU）
+     */
+    private DataSize compressionThreshold = DataSize.ofBytes(512);
+
+    public enum Format {
+        COMPACT,
+        JSON
+    }
+}
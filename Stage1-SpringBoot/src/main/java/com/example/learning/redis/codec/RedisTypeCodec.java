@@ -0,0 +1,26 @@
+package com.example.learning.redis.codec;
+
+/**
+ * 某个类型的二进制编解码（注册成 Bean 后由 CompactRedisSerializer 自动使用）
+ *
+ * 约定：
+ * 1. typeId 全局唯一且上线后不能改（它写在每个值的头部），1 ~ 15 留给内置类型
+ * 2. 加字段时只能往后追加，并提升 version；decode 要能读所有老版本（读不到的新字段给默认值）
+ */
+public interface RedisTypeCodec<T> {
+
+    int typeId();
+
+    Class<T> type();
+
+    /**
+     * 当前写入的格式版本
+     */
+    default int version() {
+        return 1;
+    }
+
+    void encode(T value, CompactOutput out);
+
+    T decode(int version, CompactInput in);
+}
@@ -0,0 +1,40 @@
+package com.example.learning.redis.codec;
+
+import com.example.learning.entity.User;
+import org.springframework.stereotype.Component;
+
+/**
+ * User 的二进制格式（version 1）：id、username、age、password 依次写入，都可以为空
+ * 缓存里的 user:{id} 从 JSON 的 ~180 字节降到 ~80 字节（主要是密码哈希）
+ */
+@Component
+public class UserRedisCodec implements RedisTypeCodec<User> {
+
+    @Override
+    public int typeId() {
+        return 16;
+    }
+
+    @Override
+    public Class<User> type() {
+        return User.class;
+    }
+
+    @Override
+    public void encode(User user, CompactOutput out) {
+        out.writeNullableLong(user.getId());
+        out.writeNullableString(user.getUsername());
+        out.writeNullableInt(user.getAge());
+        out.writeNullableString(user.getPassword());
+    }
+
+    @Override
+    public User decode(int version, CompactInput in) {
+        User user = new User();
+        user.setId(in.readNullableLong());
+        user.setUsername(in.readNullableString());
+        user.setAge(in.readNullableInt());
+        user.setPassword(in.readNullableString());
+        return user;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.learning.redis.failover;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 降级期间用的本地缓存：按最近最少使用淘汰，带过期时间
+ * 值按 Redis 的序列化格式存成字节，每次读反序列化一份新对象，调用方改了也不影响缓存
+ */
+class LocalFallbackCache {
+
+    private final RedisSerializer<Object> serializer;
+    private final Map<String, Entry> entries;
+
+    LocalFallbackCache(int maxEntries, RedisSerializer<Object> serializer) {
+        this.serializer = serializer;
+        // accessOrder = true：get 会把 key 移到末尾，超出上限时删最前面的（最久没用的）
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    Object get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() >= entry.expireAt) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        return entry == null ? null : serializer.deserialize(entry.value);
+    }
+
+    void put(String key, Object value, long ttlMillis) {
+        Entry entry = new Entry(serializer.serialize(value), System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    void remove(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+
+        private final byte[] value;
+        private final long expireAt;
+
+        private Entry(byte[] value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.learning.redis.failover;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Redis 故障降级配置（redis-failover.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "redis-failover")
+public class RedisFailoverProperties {
+
+    /**
+     * 连续多少次连接失败 / 超时后切到降级模式
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * 降级期间后台 PING 的间隔
+     */
+    private Duration probeInterval = Duration.ofSeconds(1);
+
+    /**
+     * 连续 PING 成功多少次才切回 Redis（避免 Redis 刚起来又抖动时来回切）
+     */
+    private int recoverySuccesses = 2;
+
+    /**
+     * 降级期间本地缓存最多多少个 key（超出按最近最少使用淘汰）
+     */
+    private int localMaxEntries = 10000;
+
+    /**
+     * 本地缓存的最长过期时间（写入时取它和原过期时间的较小值）
+     */
+    private Duration localTtl = Duration.ofSeconds(30);
+
+    /**
+     * 降级期间同时查数据库的请求数上限，拿不到许可的请求直接失败，保护 MySQL
+     */
+    private int dbMaxConcurrency = 16;
+
+    /**
+     * 等数据库许可的最长时间
+     */
+    private Duration dbAcquireTimeout = Duration.ofMillis(100);
+
+    /**
+     * 降级期间最多记录多少个被修改的 key（恢复后把它们从 Redis 删掉，避免读到降级前的旧值）
+     */
+    private int maxDirtyKeys = 10000;
+}
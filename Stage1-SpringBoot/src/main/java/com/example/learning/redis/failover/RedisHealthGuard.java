@@ -0,0 +1,199 @@
+package com.example.learning.redis.failover;
+
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisConnectionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Redis 健康状态（熔断器）
+ *
+ * 1. 正常：请求线程照常访问 Redis，成功清零、连接失败 / 超时累加，连续 failure-threshold 次就熔断
+ * 2. 熔断：isOpen() 为 true，请求线程不再碰 Redis（不会再等 1 秒超时），由调用方走本地兜底
+ * 3. 探测：只有后台线程 redis-probe 每 probe-interval PING 一次，连续 recovery-successes 次成功后恢复，分两段：
+ *    先执行 onRecovery 回调（批量的慢操作，比如把降级期间改过的 key 从 Redis 删掉，这期间降级写还在继续）；
+ *    再拿写锁执行 onClosing 回调（只处理这之后新增的少量数据）并切回正常
+ * 4. 降级写（写本地、记下改过的 key）用 runIfOpen 在读锁里做：要么赶在切换之前、被 onClosing 处理到，
+ *    要么发现已经恢复、改走 Redis，不会在收尾之后才记下而被漏掉
+ * 指标：redis.degraded（1 表示降级中）、redis.failover.transitions{state=open|closed}
+ */
+@Slf4j
+@Component
+public class RedisHealthGuard {
+
+    private final RedisFailoverProperties properties;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> closingListeners = new CopyOnWriteArrayList<>();
+    // 读锁：降级写；写锁：恢复收尾 + 切回正常
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final Counter opened;
+    private final Counter closed;
+    private volatile boolean open;
+    private int probeSuccesses;
+    private ScheduledExecutorService prober;
+
+    public RedisHealthGuard(RedisFailoverProperties properties, RedisTemplate<String, Object> redisTemplate,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.opened = transition(meterRegistry, "open");
+        this.closed = transition(meterRegistry, "closed");
+        Gauge.builder("redis.degraded", this, guard -> guard.open ? 1 : 0)
+                .description("Redis 是否处于降级模式（1 降级，0 正常）")
+                .register(meterRegistry);
+    }
+
+    private static Counter transition(MeterRegistry meterRegistry, String state) {
+        return Counter.builder("redis.failover.transitions")
+                .description("Redis 降级 / 恢复次数")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getProbeInterval().toMillis();
+        prober.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        prober.shutdownNow();
+    }
+
+    /**
+     * 是否降级中：true 时请求线程不要访问 Redis
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * 降级中就在读锁里执行 action 并返回 true；已经恢复返回 false，调用方改走 Redis
+     */
+    public boolean runIfOpen(Runnable action) {
+        stateLock.readLock().lock();
+        try {
+            if (!open) {
+                return false;
+            }
+            action.run();
+            return true;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    public void recordSuccess() {
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * 记录一次失败，返回这个异常是不是 Redis 不可用（连接失败 / 超时）
+     * 不是的话（比如序列化错误）不计数，调用方应该原样抛出
+     */
+    public boolean recordFailure(Throwable e) {
+        if (!isOutage(e)) {
+            return false;
+        }
+        if (consecutiveFailures.incrementAndGet() >= properties.getFailureThreshold()) {
+            trip(e);
+        }
+        return true;
+    }
+
+    /**
+     * 恢复时（切回正常之前）执行的回调，回调抛异常则继续保持降级
+     */
+    public void onRecovery(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * 切回正常的那一刻执行的回调（持有写锁，runIfOpen 的降级写都在等它），只做少量收尾；抛异常则继续保持降级
+     */
+    public void onClosing(Runnable listener) {
+        closingListeners.add(listener);
+    }
+
+    private static boolean isOutage(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            // 管道里的命令失败时异常不经过 Spring 转换，是 Lettuce 原始的超时 / 连接异常
+            if (cause instanceof RedisConnectionFailureException || cause instanceof QueryTimeoutException
+                    || cause instanceof RedisCommandTimeoutException || cause instanceof RedisConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void trip(Throwable e) {
+        if (open) {
+            return;
+        }
+        open = true;
+        opened.increment();
+        log.warn("Redis 连续 {} 次不可用，切换到本地降级模式：{}", consecutiveFailures.get(), e.getMessage());
+    }
+
+    /**
+     * 后台线程执行：降级期间 PING，连续成功后恢复
+     */
+    private void probe() {
+        if (!open) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            if (++probeSuccesses < properties.getRecoverySuccesses()) {
+                return;
+            }
+            for (Runnable listener : recoveryListeners) {
+                listener.run();
+            }
+            stateLock.writeLock().lock();
+            try {
+                for (Runnable listener : closingListeners) {
+                    listener.run();
+                }
+                consecutiveFailures.set(0);
+                open = false;
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+            probeSuccesses = 0;
+            closed.increment();
+            log.info("Redis 已恢复，退出降级模式");
+        } catch (Exception e) {
+            probeSuccesses = 0;
+            log.debug("Redis 探测失败：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.learning.redis.failover;
+
+import com.example.learning.common.RedisUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 带降级的缓存门面：业务缓存读写都走这里，不直接用 RedisUtil
+ *
+ * Redis 正常：和 RedisUtil 一样；连接失败 / 超时交给 RedisHealthGuard 计数，这一次先按未命中处理
+ * Redis 降级：
+ * 1. 读写只走本地缓存（LocalFallbackCache），请求线程不会再等 Redis 超时
+ * 2. 查数据库要先拿许可（loadFromDb），最多 db-max-concurrency 个并发，拿不到直接失败，避免缓存失效把 MySQL 打垮
+ * 3. 降级期间写过 / 删过的 key 记下来，恢复时从 Redis 删掉，再清空本地缓存，保证不会读到降级前的旧值：
+ *    先在降级状态下批量删（resync），切回正常的那一刻再把这期间新记下的 key 删掉（finishResync，和降级写互斥）
+ * 指标：redis.fallback.local.size、redis.fallback.db.rejected
+ */
+@Slf4j
+@Component
+public class ResilientCache {
+
+    private final RedisFailoverProperties properties;
+    private final RedisUtil redisUtil;
+    private final RedisHealthGuard guard;
+    private final LocalFallbackCache local;
+    private final Semaphore dbPermits;
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet();
+    private final Counter dbRejected;
+    private volatile boolean dirtyOverflow;
+
+    @SuppressWarnings("unchecked")
+    public ResilientCache(RedisFailoverProperties properties, RedisUtil redisUtil, RedisHealthGuard guard,
+                          RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisUtil = redisUtil;
+        this.guard = guard;
+        this.local = new LocalFallbackCache(properties.getLocalMaxEntries(),
+                (RedisSerializer<Object>) redisTemplate.getValueSerializer());
+        this.dbPermits = new Semaphore(properties.getDbMaxConcurrency());
+        this.dbRejected = Counter.builder("redis.fallback.db.rejected")
+                .description("Redis 降级期间因数据库并发上限被拒绝的请求数")
+                .register(meterRegistry);
+        Gauge.builder("redis.fallback.local.size", local, LocalFallbackCache::size)
+                .description("降级本地缓存的 key 个数")
+                .register(meterRegistry);
+        guard.onRecovery(this::resync);
+        guard.onClosing(this::finishResync);
+    }
+
+    public boolean isDegraded() {
+        return guard.isOpen();
+    }
+
+    public Object get(String key) {
+        if (!guard.isOpen()) {
+            try {
+                Object value = redisUtil.get(key);
+                guard.recordSuccess();
+                return value;
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+        return local.get(key);
+    }
+
+    public void set(String key, Object value, long timeout, TimeUnit unit) {
+        write(() -> redisUtil.set(key, value, timeout, unit), () -> {
+            local.put(key, value, Math.min(unit.toMillis(timeout), properties.getLocalTtl().toMillis()));
+            markDirty(key);
+        });
+    }
+
+    /**
+     * 删除，返回是否在 Redis 里删掉了（降级时只删本地副本，返回 false，恢复时再从 Redis 删）
+     */
+    public boolean delete(String key) {
+        return write(() -> redisUtil.delete(key), () -> {
+            local.remove(key);
+            markDirty(key);
+        });
+    }
+
+    /**
+     * 批量获取，见 RedisUtil.multiGet
+     */
+    public List<Object> multiGet(List<String> keys) {
+        if (!guard.isOpen()) {
+            try {
+                List<Object> values = redisUtil.multiGet(keys);
+                guard.recordSuccess();
+                return values;
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+        List<Object> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(local.get(key));
+        }
+        return values;
+    }
+
+    /**
+     * 批量写入，见 RedisUtil.multiSet
+     */
+    public void multiSet(Map<String, ?> values, Function<String, Duration> ttl) {
+        long maxTtl = properties.getLocalTtl().toMillis();
+        write(() -> redisUtil.multiSet(values, ttl), () -> values.forEach((key, value) -> {
+            local.put(key, value, Math.min(ttl.apply(key).toMillis(), maxTtl));
+            markDirty(key);
+        }));
+    }
+
+    /**
+     * 批量删除，返回 Redis 里实际删除的个数；降级时只删本地副本，返回 -1
+     */
+    public long deleteAll(Collection<String> keys) {
+        long[] deleted = {-1};
+        write(() -> deleted[0] = redisUtil.deleteAll(keys), () -> {
+            for (String key : keys) {
+                local.remove(key);
+                markDirty(key);
+            }
+        });
+        return deleted[0];
+    }
+
+    /**
+     * 其它 Redis 操作（位图、管道等）：正常时执行，连接失败 / 超时计入熔断器后返回 fallback；降级时直接返回 fallback
+     * 没有本地兜底，调用方要能接受 fallback
+     */
+    public <T> T execute(Function<RedisUtil, T> action, T fallback) {
+        if (!guard.isOpen()) {
+            try {
+                T result = action.apply(redisUtil);
+                guard.recordSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Redis 从降级恢复时回调（探测线程里执行，在切回正常的那一刻，和 runIfDegraded 互斥，所以直接给 RedisUtil）
+     * 降级期间用 runIfDegraded 记下的数据在这里补写，不会漏；回调抛异常则继续保持降级，下次探测成功再回调
+     */
+    public void onRecovery(Consumer<RedisUtil> listener) {
+        guard.onClosing(() -> listener.accept(redisUtil));
+    }
+
+    /**
+     * 降级中就执行 action（记下恢复时要补写的数据）并返回 true；已经恢复返回 false，调用方直接写 Redis
+     */
+    public boolean runIfDegraded(Runnable action) {
+        return guard.runIfOpen(action);
+    }
+
+    /**
+     * 缓存未命中后查数据库：正常时直接查；降级时限制并发，拿不到许可抛异常
+     */
+    public <T> T loadFromDb(Supplier<T> loader) {
+        if (!guard.isOpen()) {
+            return loader.get();
+        }
+        boolean acquired;
+        try {
+            acquired = dbPermits.tryAcquire(properties.getDbAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            dbRejected.increment();
+            throw new RuntimeException("系统繁忙，请稍后再试");
+        }
+        try {
+            return loader.get();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    /**
+     * 写操作：正常时写 Redis，返回 true；Redis 失败但还没熔断，写本地并记下 key（下次恢复时处理）
+     * 降级时在 RedisHealthGuard 的读锁里写本地并记下 key，正好赶上恢复就重新走 Redis
+     */
+    private boolean write(Runnable redisWrite, Runnable localWrite) {
+        if (!guard.isOpen()) {
+            try {
+                redisWrite.run();
+                guard.recordSuccess();
+                return true;
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+            if (!guard.isOpen()) {
+                localWrite.run();
+                return false;
+            }
+        }
+        if (guard.runIfOpen(localWrite)) {
+            return false;
+        }
+        return write(redisWrite, localWrite);
+    }
+
+    private void onFailure(RuntimeException e) {
+        if (!guard.recordFailure(e)) {
+            throw e;
+        }
+        log.debug("Redis 访问失败，本次走本地缓存：{}", e.getMessage());
+    }
+
+    private void markDirty(String key) {
+        if (dirtyKeys.size() < properties.getMaxDirtyKeys()) {
+            dirtyKeys.add(key);
+        } else {
+            dirtyOverflow = true;
+        }
+    }
+
+    /**
+     * Redis 恢复、切回正常之前调用（探测线程）：批量删掉降级期间改过的 key，这期间降级写还在继续
+     */
+    private void resync() {
+        List<String> keys = new ArrayList<>(dirtyKeys);
+        if (!keys.isEmpty()) {
+            redisUtil.deleteAll(keys);
+            keys.forEach(dirtyKeys::remove);
+        }
+        if (dirtyOverflow) {
+            dirtyOverflow = false;
+            log.warn("降级期间修改的 key 超过 {} 个，超出部分在 Redis 里可能是旧值，直到自然过期", properties.getMaxDirtyKeys());
+        }
+        log.info("Redis 恢复：已删除降级期间修改过的 {} 个 key", keys.size());
+    }
+
+    /**
+     * 切回正常的那一刻调用（持有 RedisHealthGuard 的写锁，降级写都在等）：删掉 resync 之后新记下的 key，清空本地缓存
+     */
+    private void finishResync() {
+        List<String> keys = new ArrayList<>(dirtyKeys);
+        if (!keys.isEmpty()) {
+            redisUtil.deleteAll(keys);
+            keys.forEach(dirtyKeys::remove);
+            log.info("Redis 恢复：补删恢复期间修改过的 {} 个 key", keys.size());
+        }
+        local.clear();
+    }
+}
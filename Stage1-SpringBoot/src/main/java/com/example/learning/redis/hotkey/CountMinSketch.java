@@ -0,0 +1,70 @@
+package com.example.learning.redis.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch：固定内存（depth × width 个计数器）估算每个 key 的出现次数
+ *
+ * 每行用不同的哈希把 key 映射到一个计数器上加一，估算时取各行的最小值
+ * 只会多估（哈希冲突）不会少估，width 越大冲突越少
+ * 计数器用 AtomicLongArray，多线程并发累加不加锁
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int depth, int requestedWidth) {
+        if (depth <= 0 || requestedWidth <= 0) {
+            throw new IllegalArgumentException("depth 和 width 必须大于 0");
+        }
+        this.depth = depth;
+        // 向上取 2 的幂，下标用位运算
+        int width = requestedWidth == 1 ? 1 : Integer.highestOneBit(requestedWidth - 1) << 1;
+        this.mask = width - 1;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    /**
+     * 计数加一，返回加完之后的估算值
+     */
+    public long add(int hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.incrementAndGet(index(hash, row)));
+        }
+        return min;
+    }
+
+    public long estimate(int hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(hash, row)));
+        }
+        return min;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * 第 row 行的下标：用两个哈希组合出 depth 个哈希（h1 + row * h2），不用为每行单独算一次哈希
+     */
+    private int index(int hash, int row) {
+        int h1 = hash;
+        int h2 = Integer.reverse(hash * 0x9E3779B9) | 1;
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+
+    /**
+     * 把 String.hashCode 再打散一次，避免相似的 key 落到相邻的计数器
+     */
+    public static int hash(String key) {
+        int h = key.hashCode() * 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.learning.redis.hotkey;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点 key 探测 + 本地缓存
+ *
+ * 1. record：RedisUtil.get 每次调用，按 sample-rate 采样计入滑动窗口 Count-Min Sketch，
+ *    估算 qps = 窗口计数 / 采样率 / 窗口秒数，达到 promote-qps 就升级为热点
+ * 2. 热点 key 的值在本地缓存 local-ttl（存 Redis 里的原始字节，每次读反序列化一份新对象，调用方改了也不影响别人），
+ *    这段时间内同一个 key 的读不再打到 Redis
+ * 3. 后台线程每 window / buckets 滑动一次窗口，并重新估算热点 key 的 qps，降到 promote-qps * demote-ratio 以下就降级
+ * 本实例 set / delete 会立即清掉本地副本；其它实例的修改最多 local-ttl 后可见
+ * 读 Redis 和写本地副本之间可能插进一次 invalidate：读之前先取 version，putLocal 时版本变了就不写，
+ * 避免把失效前读到的旧字节放回本地缓存
+ * 指标：hotkey.count（当前热点数）、hotkey.events{event=promoted|demoted}、hotkey.local.hits
+ */
+@Slf4j
+@Component
+public class HotKeyDetector {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final HotKeyProperties properties;
+    private final SlidingWindowSketch sketch;
+    private final Map<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+    // 版本号全局递增：升级和每次失效都取一个新值，降级后重新升级的 key 也不会和旧版本号撞上
+    private final AtomicLong versions = new AtomicLong();
+    private final double windowSeconds;
+    private final long localTtlNanos;
+    private final Counter promoted;
+    private final Counter demoted;
+    private final Counter localHits;
+    private ScheduledExecutorService scheduler;
+
+    public HotKeyDetector(HotKeyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.sketch = new SlidingWindowSketch(properties.getBuckets(), properties.getSketchDepth(), properties.getSketchWidth());
+        this.windowSeconds = properties.getWindow().toMillis() / 1000.0;
+        this.localTtlNanos = properties.getLocalTtl().toNanos();
+        this.promoted = event(meterRegistry, "promoted");
+        this.demoted = event(meterRegistry, "demoted");
+        this.localHits = Counter.builder("hotkey.local.hits")
+                .description("热点 key 本地缓存命中次数（没有打到 Redis）")
+                .register(meterRegistry);
+        Gauge.builder("hotkey.count", hotKeys, Map::size)
+                .description("当前热点 key 个数")
+                .register(meterRegistry);
+    }
+
+    private static Counter event(MeterRegistry meterRegistry, String event) {
+        return Counter.builder("hotkey.events")
+                .description("热点 key 升级 / 降级次数")
+                .tag("event", event)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-key-window");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long bucketMillis = Math.max(1, properties.getWindow().toMillis() / properties.getBuckets());
+        scheduler.scheduleAtFixedRate(this::slide, bucketMillis, bucketMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录一次读，返回这个 key 当前是不是热点
+     */
+    public boolean record(String key) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        HotKey hotKey = hotKeys.get(key);
+        if (ThreadLocalRandom.current().nextDouble() < properties.getSampleRate()) {
+            double qps = toQps(sketch.add(CountMinSketch.hash(key)));
+            if (hotKey != null) {
+                hotKey.qps = qps;
+            } else if (qps >= properties.getPromoteQps() && hotKeys.size() < properties.getMaxHotKeys()) {
+                hotKey = promote(key, qps);
+            }
+        }
+        return hotKey != null;
+    }
+
+    /**
+     * 热点 key 的本地副本，没有或已过期返回 null
+     */
+    public LocalValue getLocal(String key) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey == null) {
+            return null;
+        }
+        LocalValue value = hotKey.value;
+        if (value == null || System.nanoTime() - value.loadedAt >= localTtlNanos) {
+            return null;
+        }
+        hotKey.localHits.increment();
+        localHits.increment();
+        return value;
+    }
+
+    /**
+     * 热点 key 当前的版本号（不是热点返回 -1），读 Redis 之前取，放进本地缓存时交给 putLocal
+     */
+    public long version(String key) {
+        HotKey hotKey = hotKeys.get(key);
+        return hotKey == null ? -1 : hotKey.version;
+    }
+
+    /**
+     * 从 Redis 读到热点 key 后放进本地缓存（raw 为 null 表示 key 不存在，也缓存，防止热点空 key 穿透到 Redis）
+     * version 是读 Redis 之前取的版本号，期间失效过（版本变了）就不写
+     */
+    public void putLocal(String key, byte[] raw, long version) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey == null || hotKey.version != version) {
+            return;
+        }
+        hotKey.value = new LocalValue(raw, System.nanoTime());
+        // 检查和写入之间也可能刚好失效，写完再看一次，变了就撤掉
+        if (hotKey.version != version) {
+            hotKey.value = null;
+        }
+    }
+
+    /**
+     * 本实例修改了 key，清掉本地副本（先换版本号，正在读 Redis 的 putLocal 就不会再把旧值写回来）
+     */
+    public void invalidate(String key) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey != null) {
+            hotKey.version = versions.incrementAndGet();
+            hotKey.value = null;
+        }
+    }
+
+    /**
+     * 当前所有热点 key，按 qps 从高到低
+     */
+    public List<HotKeySnapshot> snapshots() {
+        List<HotKeySnapshot> snapshots = new ArrayList<>(hotKeys.size());
+        hotKeys.forEach((key, hotKey) -> snapshots.add(new HotKeySnapshot(key, Math.round(hotKey.qps * 10) / 10.0,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(hotKey.promotedAt), ZONE), hotKey.localHits.sum())));
+        snapshots.sort(Comparator.comparingDouble(HotKeySnapshot::getQps).reversed());
+        return snapshots;
+    }
+
+    private HotKey promote(String key, double qps) {
+        HotKey created = new HotKey(qps, versions.incrementAndGet());
+        HotKey existing = hotKeys.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        promoted.increment();
+        log.info("热点 key 升级到本地缓存：{}，估算 qps {}", key, Math.round(qps));
+        return created;
+    }
+
+    /**
+     * 滑动窗口，重新估算热点 key 的 qps，冷下来的降级
+     */
+    private void slide() {
+        try {
+            sketch.rotate();
+            double demoteQps = properties.getPromoteQps() * properties.getDemoteRatio();
+            hotKeys.forEach((key, hotKey) -> {
+                hotKey.qps = toQps(sketch.estimate(CountMinSketch.hash(key)));
+                if (hotKey.qps < demoteQps && hotKeys.remove(key, hotKey)) {
+                    demoted.increment();
+                    log.info("热点 key 降级：{}，估算 qps {}，本地命中 {} 次", key, Math.round(hotKey.qps), hotKey.localHits.sum());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("热点 key 窗口滑动失败", e);
+        }
+    }
+
+    private double toQps(long windowCount) {
+        return windowCount / properties.getSampleRate() / windowSeconds;
+    }
+
+    private static final class HotKey {
+
+        private final long promotedAt = System.currentTimeMillis();
+        private final LongAdder localHits = new LongAdder();
+        private volatile double qps;
+        private volatile LocalValue value;
+        private volatile long version;
+
+        private HotKey(double qps, long version) {
+            this.qps = qps;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 本地副本：Redis 里的原始字节 + 读到的时间
+     */
+    public static final class LocalValue {
+
+        private final byte[] raw;
+        private final long loadedAt;
+
+        private LocalValue(byte[] raw, long loadedAt) {
+            this.raw = raw;
+            this.loadedAt = loadedAt;
+        }
+
+        public byte[] getRaw() {
+            return raw;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.learning.redis.hotkey;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 热点 key 探测配置（hot-key.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "hot-key")
+public class HotKeyProperties {
+
+    /**
+     * 是否开启探测，关掉后 RedisUtil.get 不做任何统计
+     */
+    private boolean enabled = true;
+
+    /**
+     * 采样率：只有这个比例的 get 会计入 sketch，统计开销按比例下降，估算时再除回来
+     */
+    private double sampleRate = 0.1;
+
+    /**
+     * 滑动窗口长度，以及切成几个桶（窗口每 window / buckets 滑动一次）
+     */
+    private Duration window = Duration.ofSeconds(10);
+    private int buckets = 10;
+
+    /**
+     * 每秒访问量（估算）达到多少算热点，升级到本地缓存
+     */
+    private double promoteQps = 500;
+
+    /**
+     * 降到 promoteQps 的多少比例以下才降级，留出区间避免在阈值附近反复升降
+     */
+    private double demoteRatio = 0.5;
+
+    /**
+     * 本地缓存的过期时间：其它实例改了这个 key，本实例最多晚这么久看到
+     */
+    private Duration localTtl = Duration.ofSeconds(1);
+
+    /**
+     * 最多同时有多少个热点 key（本地缓存上限）
+     */
+    private int maxHotKeys = 100;
+
+    /**
+     * Count-Min Sketch 的行数和每行的计数器个数
+     */
+    private int sketchDepth = 4;
+    private int sketchWidth = 4096;
+}
@@ -0,0 +1,28 @@
+package com.example.learning.redis.hotkey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一个热点 key 的当前状态（/admin/hot-keys 返回）
+ */
+@Data
+@AllArgsConstructor
+public class HotKeySnapshot {
+
+    private String key;
+
+    /**
+     * 估算的每秒访问量（滑动窗口内）
+     */
+    private double qps;
+
+    private LocalDateTime promotedAt;
+
+    /**
+     * 升级以来本地缓存命中次数（这些请求没有打到 Redis）
+     */
+    private long localHits;
+}
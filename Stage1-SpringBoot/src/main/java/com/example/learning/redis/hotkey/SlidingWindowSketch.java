@@ -0,0 +1,50 @@
+package com.example.learning.redis.hotkey;
+
+/**
+ * 滑动窗口计数：窗口切成 buckets 个桶，每个桶一个 CountMinSketch
+ * 计数只加在当前桶上，估算时把所有桶加起来；每过一个桶的时长 rotate 一次，清空最老的桶当新的当前桶
+ * 这样窗口里始终是最近 buckets 个时间片的访问量，过去的热度会自动滑出窗口
+ */
+public class SlidingWindowSketch {
+
+    private final CountMinSketch[] buckets;
+    private volatile int current;
+
+    public SlidingWindowSketch(int bucketCount, int depth, int width) {
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+        }
+    }
+
+    /**
+     * 计数加一，返回整个窗口的估算值
+     */
+    public long add(int hash) {
+        int index = current;
+        long total = buckets[index].add(hash);
+        for (int i = 0; i < buckets.length; i++) {
+            if (i != index) {
+                total += buckets[i].estimate(hash);
+            }
+        }
+        return total;
+    }
+
+    public long estimate(int hash) {
+        long total = 0;
+        for (CountMinSketch bucket : buckets) {
+            total += bucket.estimate(hash);
+        }
+        return total;
+    }
+
+    /**
+     * 滑动一个桶（只能由一个线程调用）：先清空下一个桶再切过去，正在并发累加的请求最多少算几次，不影响判断
+     */
+    public void rotate() {
+        int next = (current + 1) % buckets.length;
+        buckets[next].clear();
+        current = next;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.learning.redis.invalidation;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 缓存失效配置（cache-invalidation.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache-invalidation")
+public class CacheInvalidationProperties {
+
+    /**
+     * 提交后第一次删除之后，隔多久再删一次（要比一次“读库 + 回填缓存”的耗时长）
+     */
+    private Duration secondDeleteDelay = Duration.ofMillis(500);
+
+    /**
+     * 后台多久扫一次没处理完的变更日志
+     */
+    private Duration replayInterval = Duration.ofSeconds(5);
+
+    /**
+     * 每次最多补删多少条
+     */
+    private int replayBatchSize = 500;
+
+    /**
+     * 已处理的变更日志保留多久
+     */
+    private Duration retention = Duration.ofDays(1);
+}
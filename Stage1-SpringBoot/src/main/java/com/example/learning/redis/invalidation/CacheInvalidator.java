@@ -0,0 +1,156 @@
+package com.example.learning.redis.invalidation;
+
+import com.example.learning.entity.CacheChangeLog;
+import com.example.learning.mapper.CacheChangeLogMapper;
+import com.example.learning.redis.failover.ResilientCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写路径缓存失效：改库之后删缓存（Cache Aside），再延迟双删，漏删的由变更日志补
+ *
+ * 1. invalidate：在业务事务里写一条 cache_change_log（和业务数据一起提交或回滚）
+ * 2. 事务提交后立即删一次缓存（提交前删的话，别的请求可能在提交前把旧值又读回缓存）
+ * 3. second-delete-delay 之后再删一次：兜住“删缓存之前已经读到旧值、删完才回填”的并发读；删完标记日志已处理
+ * 4. 后台每 replay-interval 扫一次没处理的日志补删（进程在删之前挂了、Redis 不可用等），扫完清理过期日志
+ * 删除都走 ResilientCache，同时清掉 RedisUtil 的热点 key 本地副本；没删到 Redis（降级中）的不标记已处理，恢复后再补删
+ * 变更日志是 binlog 订阅（Canal 等）的简化替代：同样保证“数据改了，缓存最终一定会被删”
+ * 指标：cache.invalidations{stage=first|second|replay}
+ */
+@Slf4j
+@Component
+public class CacheInvalidator {
+
+    private final CacheInvalidationProperties properties;
+    private final CacheChangeLogMapper changeLogMapper;
+    private final ResilientCache resilientCache;
+    private final Counter firstDeletes;
+    private final Counter secondDeletes;
+    private final Counter replayed;
+    private ScheduledExecutorService scheduler;
+
+    public CacheInvalidator(CacheInvalidationProperties properties, CacheChangeLogMapper changeLogMapper,
+                            ResilientCache resilientCache, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.changeLogMapper = changeLogMapper;
+        this.resilientCache = resilientCache;
+        this.firstDeletes = counter(meterRegistry, "first");
+        this.secondDeletes = counter(meterRegistry, "second");
+        this.replayed = counter(meterRegistry, "replay");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String stage) {
+        return Counter.builder("cache.invalidations")
+                .description("缓存失效删除次数")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getReplayInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::replay, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 还没执行的第二次删除直接丢弃，日志没标记已处理，下次启动由 replay 补删
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 数据改了，让缓存 key 失效；在事务里调用时等提交后才删，没有事务就立即删
+     */
+    public void invalidate(String key) {
+        CacheChangeLog changeLog = new CacheChangeLog(null, key, LocalDateTime.now(), null);
+        changeLogMapper.insert(changeLog);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteAfterCommit(changeLog.getId(), key);
+                }
+            });
+        } else {
+            deleteAfterCommit(changeLog.getId(), key);
+        }
+    }
+
+    private void deleteAfterCommit(Long changeLogId, String key) {
+        try {
+            resilientCache.delete(key);
+            firstDeletes.increment();
+        } catch (Exception e) {
+            // 删失败不影响业务，第二次删除或者 replay 会补上
+            log.warn("删除缓存失败，稍后重试：{}，{}", key, e.getMessage());
+        }
+        scheduler.schedule(() -> secondDelete(changeLogId, key),
+                properties.getSecondDeleteDelay().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void secondDelete(Long changeLogId, String key) {
+        try {
+            // 降级时只删了本地副本，不标记已处理，Redis 恢复后由 replay 补删
+            if (resilientCache.delete(key)) {
+                secondDeletes.increment();
+                changeLogMapper.markProcessed(Collections.singletonList(changeLogId), LocalDateTime.now());
+            }
+        } catch (Exception e) {
+            log.warn("延迟删除缓存失败，等待补删：{}，{}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 补删没处理的变更：只看写入超过 2 倍 second-delete-delay 的，正常流程里的还在等第二次删除
+     */
+    private void replay() {
+        try {
+            if (resilientCache.isDegraded()) {
+                return;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime before = now.minus(properties.getSecondDeleteDelay().multipliedBy(2));
+            List<CacheChangeLog> pending;
+            do {
+                pending = changeLogMapper.selectPending(before, properties.getReplayBatchSize());
+                if (pending.isEmpty()) {
+                    break;
+                }
+                List<String> keys = new ArrayList<>(pending.size());
+                List<Long> ids = new ArrayList<>(pending.size());
+                for (CacheChangeLog changeLog : pending) {
+                    keys.add(changeLog.getCacheKey());
+                    ids.add(changeLog.getId());
+                }
+                if (resilientCache.deleteAll(keys) < 0) {
+                    return;
+                }
+                changeLogMapper.markProcessed(ids, now);
+                replayed.increment(ids.size());
+                log.info("补删缓存 {} 个 key", ids.size());
+            } while (pending.size() == properties.getReplayBatchSize());
+            changeLogMapper.deleteProcessedBefore(now.minus(properties.getRetention()));
+        } catch (Exception e) {
+            log.warn("补删缓存失败：{}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.learning.service;
+
+import com.example.learning.profile.UserProfile;
+
+public interface ProfileService {
+
+    /**
+     * 聚合用户画像：用户信息、订单汇总、最近登录记录并行查询
+     * 某个部分超时或失败时用兜底值，并记在 UserProfile.degraded 里
+     * @param userId 用户ID
+     * @return 用户画像
+     */
+    UserProfile getProfile(Long userId);
+}
@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.learning.entity.User;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface UserService {
     Page<User> page(Integer current, Integer size);  // 分页查询
     User getById(Long id);  // 按ID查询
@@ -34,6 +37,19 @@ public interface UserService {
      */
     User getUserWithCacheAndProtection(Long id);
 
+    /**
+     * 批量按ID查询（走缓存）：一次 MGET 查缓存，未命中的一次 IN 查询DB，再用管道批量回填
+     * @param ids 用户ID
+     * @return 查到的用户，顺序和 ids 一致，不存在的ID跳过
+     */
+    List<User> getUsersByIds(Collection<Long> ids);
+
+    /**
+     * 批量清空用户缓存
+     * @param ids 用户ID
+     */
+    void evictUserCache(Collection<Long> ids);
+
     /**
      * 清空指定缓存（用于测试）
      * @param key 缓存key
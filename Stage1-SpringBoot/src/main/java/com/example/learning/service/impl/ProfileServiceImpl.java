@@ -0,0 +1,134 @@
+package com.example.learning.service.impl;
+
+import com.example.learning.common.RedisUtil;
+import com.example.learning.entity.LoginLog;
+import com.example.learning.entity.User;
+import com.example.learning.executor.ExecutorRegistry;
+import com.example.learning.mapper.LoginLogMapper;
+import com.example.learning.profile.OrderSummary;
+import com.example.learning.profile.ProfileProperties;
+import com.example.learning.profile.UserProfile;
+import com.example.learning.service.ProfileService;
+import com.example.learning.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 用户画像聚合（CountDownLatchDemo / CompletableFutureDemo 的实战版）
+ *
+ * 1. 三个分支在专用线程池 profile 上并行执行，接口耗时 ≈ 最慢的分支，而不是三者之和
+ * 2. 每个分支有自己的超时（profile.*-timeout），超时、异常、线程池满都返回兜底值，不影响其它分支
+ * 3. 线程池用 ABORT 拒绝策略：池满时立刻走兜底，不会把查询放到 Tomcat 线程上执行
+ * 指标：profile.branch{branch, result=success|timeout|error|rejected}
+ */
+@Slf4j
+@Service
+public class ProfileServiceImpl implements ProfileService {
+
+    private static final String ORDER_SUMMARY_KEY = "order:summary:";
+
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private LoginLogMapper loginLogMapper;
+
+    @Resource
+    private RedisUtil redisUtil;
+
+    @Resource
+    private ProfileProperties profileProperties;
+
+    @Resource
+    private ExecutorRegistry executorRegistry;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService profileThreadPool;
+
+    @PostConstruct
+    public void init() {
+        profileThreadPool = executorRegistry.create("profile");
+    }
+
+    @Override
+    public UserProfile getProfile(Long userId) {
+        long start = System.nanoTime();
+        Set<String> degraded = ConcurrentHashMap.newKeySet();
+
+        CompletableFuture<User> user = branch("user", profileProperties.getUserTimeout(), null, degraded,
+                () -> userService.getUserWithCacheAndProtection(userId));
+        CompletableFuture<OrderSummary> orderSummary = branch("orderSummary", profileProperties.getOrderSummaryTimeout(),
+                null, degraded, () -> (OrderSummary) redisUtil.get(ORDER_SUMMARY_KEY + userId));
+        CompletableFuture<List<LoginLog>> recentLogins = branch("recentLogins", profileProperties.getRecentLoginsTimeout(),
+                Collections.emptyList(), degraded,
+                () -> loginLogMapper.selectRecentByUserId(userId, profileProperties.getRecentLoginsLimit()));
+
+        // 每个分支都有超时和兜底，join 不会抛异常，最多等最慢分支的超时时间
+        CompletableFuture.allOf(user, orderSummary, recentLogins).join();
+
+        UserProfile profile = new UserProfile();
+        User userInfo = user.join();
+        if (userInfo != null) {
+            // 画像是给前端展示的，不带密码哈希
+            userInfo.setPassword(null);
+        }
+        profile.setUser(userInfo);
+        profile.setOrderSummary(orderSummary.join());
+        profile.setRecentLogins(recentLogins.join());
+        profile.setDegraded(new ArrayList<>(degraded));
+        profile.setCostMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return profile;
+    }
+
+    /**
+     * 提交一个分支：超时 / 异常 / 被拒绝时返回 fallback，并把分支名记进 degraded
+     */
+    private <T> CompletableFuture<T> branch(String name, Duration timeout, T fallback, Set<String> degraded, Supplier<T> loader) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(loader, profileThreadPool);
+        } catch (RuntimeException e) {
+            // 线程池满（ABORT 策略）：直接兜底
+            count(name, "rejected");
+            degraded.add(name);
+            return CompletableFuture.completedFuture(fallback);
+        }
+        return future
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .handle((value, error) -> {
+                    if (error == null) {
+                        count(name, "success");
+                        return value;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    boolean timedOut = cause instanceof TimeoutException;
+                    count(name, timedOut ? "timeout" : "error");
+                    log.warn("用户画像分支 {} {}，使用兜底值：{}", name, timedOut ? "超时（" + timeout.toMillis() + "ms）" : "失败",
+                            cause.toString());
+                    degraded.add(name);
+                    return fallback;
+                });
+    }
+
+    private void count(String branch, String result) {
+        meterRegistry.counter("profile.branch", "branch", branch, "result", result).increment();
+    }
+}
@@ -2,131 +2,216 @@ package com.example.learning.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.learning.audit.LoginAuditPipeline;
+import com.example.learning.audit.LoginEvent;
 import com.example.learning.common.JwtUtil;
-import com.example.learning.common.RedisUtil;
+import com.example.learning.credential.CredentialCache;
+import com.example.learning.credential.CredentialCacheProperties;
+import com.example.learning.datasource.ReadOnly;
 import com.example.learning.entity.User;
-import com.example.learning.mapper.UserMapper;
+import com.example.learning.metrics.CacheMetrics;
+import com.example.learning.redis.failover.ResilientCache;
+import com.example.learning.redis.invalidation.CacheInvalidator;
 import com.example.learning.service.UserService;
+import com.example.learning.sharding.UserStore;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
-import java.util.concurrent.ExecutorService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 public class UserServiceImpl implements UserService {
 
+    // 用户缓存（user:{id}）在 cache.requests 指标里的名字
+    private static final String USER_CACHE = "user";
+    private static final String USER_KEY = "user:";
+
+    private static final BCryptPasswordEncoder PASSWORD_ENCODER = new BCryptPasswordEncoder();
+    // 用户名不存在时拿来比对的假哈希（和真实密码同样的 cost），拒绝登录都要做一次 BCrypt
+    private static final String DUMMY_HASH = PASSWORD_ENCODER.encode(UUID.randomUUID().toString());
+    private static final String LOGIN_FAILED = "用户名或密码错误";
+
+    // 用户表访问：单表或者按ID分片（user-sharding.enabled）
     @Autowired
-    private UserMapper userMapper;
+    private UserStore userStore;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    // 用户缓存都走带降级的门面：Redis 不可用时用本地缓存，查库限流
+    @Resource
+    private ResilientCache resilientCache;
+
+    // 写库后删缓存（提交后删 + 延迟双删 + 变更日志补删）
+    @Resource
+    private CacheInvalidator cacheInvalidator;
+
+    // 用户缓存过期时间：写路径保证会删缓存，过期时间只是兜底，可以设得比较长
+    @Value("${user-cache.ttl:30m}")
+    private Duration userCacheTtl;
+
+    @Resource
+    private CacheMetrics cacheMetrics;
+
+    // 登录凭据缓存（布隆过滤器 + 空值缓存挡住不存在的用户名）
     @Resource
-    private RedisUtil redisUtil;
+    private CredentialCache credentialCache;
 
-    // 注入自定义线程池
-    @Resource(name = "userThreadPool")
-    private ExecutorService userThreadPool;
+    @Resource
+    private CredentialCacheProperties credentialCacheProperties;
+
+    // 登录审计流水线
+    @Resource
+    private LoginAuditPipeline loginAuditPipeline;
 
     @Override
+    @ReadOnly // 开启读写分离时走从库
     public Page<User> page(Integer current, Integer size) {
-        Page<User> page = new Page<>(current, size);
-        return userMapper.selectPage(page, null);
+        return userStore.selectPage(current, size);
     }
 
     @Override
+    @ReadOnly
     public User getById(Long id) {
-        return userMapper.selectById(id);
+        return userStore.selectById(id);
     }
 
     @Override
+    @Transactional // 分片时要同时写用户名索引和分片表
     public boolean save(User user) {
-        return userMapper.insert(user) > 0;
+        credentialCache.registered(user.getUsername());
+        return userStore.insert(user) > 0;
     }
 
     @Override
+    @Transactional
     public boolean updateById(User user) {
-        return userMapper.updateById(user) > 0;
+        // 改用户名或密码时登录凭据缓存也要删，先查出旧用户名
+        User old = user.getUsername() != null || user.getPassword() != null ? userStore.selectById(user.getId()) : null;
+        if (old != null && user.getUsername() != null && !user.getUsername().equals(old.getUsername())) {
+            credentialCache.registered(user.getUsername());
+        }
+        boolean success = userStore.updateById(user) > 0;
+        // 改完删缓存（事务提交后才删），下次读再回填
+        cacheInvalidator.invalidate(USER_KEY + user.getId());
+        if (old != null) {
+            credentialCache.invalidate(old.getUsername());
+        }
+        return success;
     }
 
     @Override
+    @Transactional
     public boolean removeById(Long id) {
-        return userMapper.deleteById(id) > 0;
+        User old = userStore.selectById(id);
+        boolean success = userStore.deleteById(id) > 0;
+        cacheInvalidator.invalidate(USER_KEY + id);
+        if (old != null) {
+            credentialCache.invalidate(old.getUsername());
+        }
+        return success;
     }
 
     @Override
+    @ReadOnly
     public User getOne(QueryWrapper<User> queryWrapper) {
-        return userMapper.selectOne(queryWrapper);
+        return userStore.selectOne(queryWrapper);
     }
 
     /**
      * 用户登录
+     * 用户名不存在和密码错误返回同样的错误信息，也都做一次 BCrypt；查凭据的耗时因用户名是否存在而不同
+     * （布隆过滤器挡掉的不查库，存在的用户名缓存未命中还要查库），所以失败的登录都补齐到
+     * credential-cache.failed-login-min-time 再返回，响应时间看不出用户名是否存在
      * @param username 用户名
      * @param password 密码
      * @return token
      */
     @Override
     public String login(String username, String password) {
-        // 1. 根据用户名查询用户
-        User user = userMapper.selectByUsername(username);
+        long start = System.nanoTime();
+        // 1. 根据用户名查询登录凭据（布隆过滤器 / 空值缓存命中的不存在用户名不查库）
+        User user = credentialCache.get(username);
 
-        // 2. 用户不存在
-        if (user == null) {
-            throw new RuntimeException("用户名不存在");
+        // 2. 验证密码：用户不存在（或者存的不是 BCrypt 哈希）也照样和假哈希比一次，
+        //    拒绝登录都要做一次 BCrypt、错误信息也相同，耗时补齐到固定时长
+        boolean known = user != null && user.getPassword() != null && user.getPassword().startsWith("$2");
+        boolean matches = PASSWORD_ENCODER.matches(password, known ? user.getPassword() : DUMMY_HASH);
+        if (!known || !matches) {
+            padFailedLogin(start);
+            throw new RuntimeException(LOGIN_FAILED);
         }
 
-        // 3. 验证密码
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-        if (!encoder.matches(password, user.getPassword())) {
-            throw new RuntimeException("密码错误");
-        }
+        // 异步记录登录日志（只入队，不阻塞登录接口响应；批量写库由 LoginAuditPipeline 的消费线程完成）
+        loginAuditPipeline.record(new LoginEvent(user.getId(), username, System.currentTimeMillis()));
 
-        // 异步记录登录日志（不阻塞登录接口响应）
-        userThreadPool.submit(() -> {
-            try {
-                // 模拟日志记录耗时操作
-                Thread.sleep(500);
-                System.out.println("【登录日志】用户：" + username + "，ID：" + user.getId() + "，登录时间：" + System.currentTimeMillis());
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        });
-
-        // 4. 生成 token 并返回
+        // 3. 生成 token 并返回
         return jwtUtil.generateToken(user.getId());
     }
 
+    /**
+     * 失败的登录睡到 failed-login-min-time 再返回；本身已经超过的（比如查库很慢）不再等，超出的部分会打 warn 方便调大配置
+     */
+    private void padFailedLogin(long start) {
+        long remaining = credentialCacheProperties.getFailedLoginMinTime().toNanos() - (System.nanoTime() - start);
+        if (remaining <= 0) {
+            log.warn("登录失败耗时超过 credential-cache.failed-login-min-time（{}），超出 {} ms",
+                    credentialCacheProperties.getFailedLoginMinTime(), TimeUnit.NANOSECONDS.toMillis(-remaining));
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * 缓存穿透测试 - 无防护版本
      * 问题：查询不存在的用户ID时，每次都会查DB，导致缓存穿透
      */
     @Override
     public User getUserWithCache(Long id) {
-        String key = "user:" + id;
+        String key = USER_KEY + id;
 
         // 1. 查缓存
-        User user = (User) redisUtil.get(key);
+        User user = (User) resilientCache.get(key);
         if (user != null) {
-            System.out.println("【缓存命中】用户ID: " + id);
+            cacheMetrics.hit(USER_CACHE);
+            log.debug("【缓存命中】用户ID: {}", id);
             return user;
         }
 
         // 2. 缓存没有，查DB
-        System.out.println("【缓存未命中，查询DB】用户ID: " + id);
-        user = userMapper.selectById(id);
+        cacheMetrics.miss(USER_CACHE);
+        log.debug("【缓存未命中，查询DB】用户ID: {}", id);
+        user = resilientCache.loadFromDb(() -> userStore.selectById(id));
 
         // 3. DB没有，直接返回（穿透！）
         if (user == null) {
-            System.out.println("【DB查询为空，缓存穿透】用户ID: " + id);
+            log.debug("【DB查询为空，缓存穿透】用户ID: {}", id);
             return null;
         }
 
-        // 4. DB有，写入缓存（过期时间5分钟）
-        System.out.println("【DB查询成功，写入缓存】用户ID: " + id);
-        redisUtil.set(key, user, 5, TimeUnit.MINUTES);
+        // 4. DB有，写入缓存（过期时间 user-cache.ttl）
+        log.debug("【DB查询成功，写入缓存】用户ID: {}", id);
+        resilientCache.set(key, user, userCacheTtl.toMillis(), TimeUnit.MILLISECONDS);
         return user;
     }
 
@@ -136,43 +221,117 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public User getUserWithCacheAndProtection(Long id) {
-        String key = "user:" + id;
+        String key = USER_KEY + id;
 
         // 1. 查缓存（包括空值）
-        Object cached = redisUtil.get(key);
+        Object cached = resilientCache.get(key);
         if (cached != null) {
             // 判断是否是空值
             if (cached instanceof String && ((String) cached).isEmpty()) {
-                System.out.println("【空值缓存命中】用户ID: " + id);
+                cacheMetrics.nullHit(USER_CACHE);
+                log.debug("【空值缓存命中】用户ID: {}", id);
                 return null;
             }
-            System.out.println("【缓存命中】用户ID: " + id);
+            cacheMetrics.hit(USER_CACHE);
+            log.debug("【缓存命中】用户ID: {}", id);
             return (User) cached;
         }
 
         // 2. 缓存没有，查DB
-        System.out.println("【缓存未命中，查询DB】用户ID: " + id);
-        User user = userMapper.selectById(id);
+        cacheMetrics.miss(USER_CACHE);
+        log.debug("【缓存未命中，查询DB】用户ID: {}", id);
+        User user = resilientCache.loadFromDb(() -> userStore.selectById(id));
 
         // 3. DB没有，写入空值缓存（过期时间1分钟，避免缓存膨胀）
         if (user == null) {
-            System.out.println("【DB查询为空，写入空值缓存】用户ID: " + id);
-            redisUtil.set(key, "", 1, TimeUnit.MINUTES);
+            log.debug("【DB查询为空，写入空值缓存】用户ID: {}", id);
+            resilientCache.set(key, "", 1, TimeUnit.MINUTES);
             return null;
         }
 
-        // 4. DB有，写入缓存（过期时间5分钟）
-        System.out.println("【DB查询成功，写入缓存】用户ID: " + id);
-        redisUtil.set(key, user, 5, TimeUnit.MINUTES);
+        // 4. DB有，写入缓存（过期时间 user-cache.ttl）
+        log.debug("【DB查询成功，写入缓存】用户ID: {}", id);
+        resilientCache.set(key, user, userCacheTtl.toMillis(), TimeUnit.MILLISECONDS);
         return user;
     }
 
+    /**
+     * 批量查询：N 个ID 原来要 N 次 GET + 最多 N 次 selectById，现在是
+     * 1. 一次 MGET 查缓存（超过 redis-batch.chunk-size 自动分批）
+     * 2. 未命中的ID一次 selectBatchIds（IN 查询）
+     * 3. 查到的用管道批量回填，过期时间 user-cache.ttl 加最多 10% 的随机抖动，避免同一批 key 同时过期；
+     *    DB里没有的ID写空值缓存（1分钟），和 getUserWithCacheAndProtection 一样防穿透
+     */
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> idList = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<String> keys = new ArrayList<>(idList.size());
+        for (Long id : idList) {
+            keys.add(USER_KEY + id);
+        }
+
+        // 1. 批量查缓存
+        List<Object> cached = resilientCache.multiGet(keys);
+        Map<Long, User> found = new HashMap<>();
+        List<Long> missIds = new ArrayList<>();
+        for (int i = 0; i < idList.size(); i++) {
+            Object value = cached.get(i);
+            if (value instanceof User) {
+                cacheMetrics.hit(USER_CACHE);
+                found.put(idList.get(i), (User) value);
+            } else if (value instanceof String && ((String) value).isEmpty()) {
+                cacheMetrics.nullHit(USER_CACHE);
+            } else {
+                cacheMetrics.miss(USER_CACHE);
+                missIds.add(idList.get(i));
+            }
+        }
+
+        // 2. 未命中的一次查DB，3. 批量回填
+        if (!missIds.isEmpty()) {
+            log.debug("【批量查询缓存未命中，查询DB】用户ID: {}", missIds);
+            Map<String, Object> toCache = new HashMap<>();
+            for (User user : resilientCache.loadFromDb(() -> userStore.selectBatchIds(missIds))) {
+                found.put(user.getId(), user);
+                toCache.put(USER_KEY + user.getId(), user);
+            }
+            for (Long id : missIds) {
+                toCache.putIfAbsent(USER_KEY + id, "");
+            }
+            resilientCache.multiSet(toCache, key -> toCache.get(key) instanceof User
+                    ? userCacheTtl.plusMillis(ThreadLocalRandom.current().nextLong(userCacheTtl.toMillis() / 10 + 1))
+                    : Duration.ofMinutes(1));
+        }
+
+        List<User> users = new ArrayList<>(found.size());
+        for (Long id : idList) {
+            User user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public void evictUserCache(Collection<Long> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(USER_KEY + id);
+        }
+        long deleted = resilientCache.deleteAll(keys);
+        log.debug("【批量清空用户缓存】{} 个ID，删除 {} 个key", keys.size(), deleted);
+    }
+
     /**
      * 清空指定缓存（用于测试）
      */
     @Override
     public void clearCacheByKey(String key) {
-        redisUtil.delete(key);
-        System.out.println("【缓存已清空】key: " + key);
+        resilientCache.delete(key);
+        log.debug("【缓存已清空】key: {}", key);
     }
 }
\ No newline at end of file
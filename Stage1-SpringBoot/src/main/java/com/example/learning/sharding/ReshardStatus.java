@@ -0,0 +1,40 @@
+package com.example.learning.sharding;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 在线重新分片的进度（/admin/user-sharding 展示）
+ * 只有迁移线程写，其它线程读到的可能慢一步，展示够用
+ */
+@Data
+public class ReshardStatus {
+
+    public enum Phase {
+        PLANNING, COPYING, VERIFYING, SWITCHING, FINISHING, CLEANING, DONE, FAILED
+    }
+
+    private volatile Phase phase;
+    private volatile int targetShards;
+    private volatile int movingBuckets;
+    /**
+     * 拷贝到新分片的行数
+     */
+    private volatile long copiedRows;
+    /**
+     * 校验时补拷的行数
+     */
+    private volatile long repairedRows;
+    /**
+     * 校验时在新分片上删掉的多余行数（拷贝和删除并发时拷过去的）
+     */
+    private volatile long orphanRows;
+    /**
+     * 迁移完在旧分片上清理掉的行数
+     */
+    private volatile long cleanedRows;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+}
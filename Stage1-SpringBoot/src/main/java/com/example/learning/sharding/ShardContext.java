@@ -0,0 +1,35 @@
+package com.example.learning.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程要访问的用户分片，ShardTableNameHandler 按它把 SQL 里的 user 改写成 user_N
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * 在指定分片上执行（可以嵌套，执行完恢复外层的分片）
+     */
+    public static <T> T call(int shard, Supplier<T> action) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        }
+    }
+
+    public static Integer current() {
+        return SHARD.get();
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.learning.sharding;
+
+import com.example.learning.entity.ShardBucket;
+import com.example.learning.mapper.ShardBucketMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户分片路由：用户ID -> 虚拟桶 -> 物理分片
+ *
+ * 1. 桶 = hash(ID) % 桶数：雪花ID的低位是序列号，低并发时几乎都是 0，直接取模会全落到一个分片，所以先打散
+ * 2. 桶 -> 分片的映射存在 user_shard_bucket，所有实例共享；第一次启动按 initial-shards 初始化
+ * 3. 扩缩容只改映射、搬桶里的数据，ID 和桶的关系永远不变
+ * 4. 每 route-refresh-interval 重新加载一次映射，迁移过程中桶的读写分片跟着状态变（见 ShardBucket.State）
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-sharding", name = "enabled", havingValue = "true")
+public class ShardRouter {
+
+    private final UserShardingProperties properties;
+    private final ShardBucketMapper shardBucketMapper;
+    private volatile ShardBucket[] routes;
+    private ScheduledExecutorService scheduler;
+
+    public ShardRouter(UserShardingProperties properties, ShardBucketMapper shardBucketMapper) {
+        this.properties = properties;
+        this.shardBucketMapper = shardBucketMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-route-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getRouteRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Exception e) {
+                // 加载失败继续用旧路由
+                log.warn("刷新分片路由失败：{}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 从 user_shard_bucket 重新加载映射，表是空的就初始化
+     */
+    public void refresh() {
+        List<ShardBucket> buckets = shardBucketMapper.selectList(null);
+        if (buckets.isEmpty()) {
+            buckets = initialize();
+        }
+        ShardBucket[] loaded = new ShardBucket[buckets.size()];
+        for (ShardBucket bucket : buckets) {
+            loaded[bucket.getBucket()] = bucket;
+        }
+        routes = loaded;
+    }
+
+    private List<ShardBucket> initialize() {
+        int shards = properties.getInitialShards();
+        if (shards <= 0 || shards > properties.getBuckets()) {
+            throw new IllegalStateException("initial-shards 必须在 1 ~ " + properties.getBuckets() + " 之间：" + shards);
+        }
+        List<ShardBucket> buckets = new ArrayList<>(properties.getBuckets());
+        for (int bucket = 0; bucket < properties.getBuckets(); bucket++) {
+            buckets.add(new ShardBucket(bucket, bucket % shards, null, ShardBucket.State.STABLE));
+        }
+        try {
+            shardBucketMapper.insertBatch(buckets);
+            log.info("初始化用户分片路由：{} 个桶，{} 个分片", buckets.size(), shards);
+            return buckets;
+        } catch (DuplicateKeyException e) {
+            // 别的实例同时在初始化，以它写进去的为准
+            return shardBucketMapper.selectList(null);
+        }
+    }
+
+    /**
+     * ID 所在的桶（murmur3 fmix64 打散后取模）
+     */
+    public int bucketOf(long id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) routes.length);
+    }
+
+    /**
+     * 读哪个分片：迁移切读之前读旧分片，之后读新分片
+     */
+    public int readShard(long id) {
+        ShardBucket route = routes[bucketOf(id)];
+        return route.getState() == ShardBucket.State.SWITCHED ? route.getTargetShard() : route.getShard();
+    }
+
+    /**
+     * 写哪些分片：第一个是权威分片（和 readShard 相同），迁移中还要同步到第二个
+     */
+    public int[] writeShards(long id) {
+        ShardBucket route = routes[bucketOf(id)];
+        switch (route.getState()) {
+            case COPYING:
+                return new int[]{route.getShard(), route.getTargetShard()};
+            case SWITCHED:
+                return new int[]{route.getTargetShard(), route.getShard()};
+            default:
+                return new int[]{route.getShard()};
+        }
+    }
+
+    /**
+     * 分片上的这一行是否应该留着（它所在的桶读或写这个分片），迁移完清理旧分片时用
+     */
+    public boolean owns(int shard, long id) {
+        for (int writeShard : writeShards(id)) {
+            if (writeShard == shard) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 当前有数据可读的分片（分页、条件查询要扫这些）
+     */
+    public List<Integer> readShards() {
+        TreeSet<Integer> shards = new TreeSet<>();
+        for (ShardBucket route : routes) {
+            shards.add(route.getState() == ShardBucket.State.SWITCHED ? route.getTargetShard() : route.getShard());
+        }
+        return new ArrayList<>(shards);
+    }
+
+    /**
+     * 当前路由表（按桶号）
+     */
+    public List<ShardBucket> routes() {
+        List<ShardBucket> list = new ArrayList<>(routes.length);
+        Collections.addAll(list, routes);
+        return list;
+    }
+
+    /**
+     * 每个分片各有多少个桶（按读分片算）
+     */
+    public Map<Integer, Integer> bucketCounts() {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (ShardBucket route : routes) {
+            counts.merge(route.getState() == ShardBucket.State.SWITCHED ? route.getTargetShard() : route.getShard(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.learning.sharding;
+
+import com.baomidou.mybatisplus.extension.plugins.handler.TableNameHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分片表名改写：SQL 里的逻辑表 user 换成 ShardContext 指定的物理表
+ * 分片开启后逻辑表已经不存在了，没指定分片就访问 user 直接报错，防止有代码绕过 UserStore
+ */
+@Component
+@ConditionalOnProperty(prefix = "user-sharding", name = "enabled", havingValue = "true")
+public class ShardTableNameHandler implements TableNameHandler {
+
+    public static final String LOGICAL_TABLE = "user";
+
+    private final String tablePrefix;
+
+    public ShardTableNameHandler(UserShardingProperties properties) {
+        this.tablePrefix = properties.getTablePrefix();
+    }
+
+    @Override
+    public String dynamicTableName(String sql, String tableName) {
+        if (!LOGICAL_TABLE.equalsIgnoreCase(tableName)) {
+            return tableName;
+        }
+        Integer shard = ShardContext.current();
+        if (shard == null) {
+            throw new IllegalStateException("user 表已按ID分片，请通过 UserStore 访问：" + sql);
+        }
+        return tablePrefix + shard;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.learning.sharding;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.learning.entity.User;
+import com.example.learning.entity.UsernameIndex;
+import com.example.learning.mapper.UserMapper;
+import com.example.learning.mapper.UsernameIndexMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 按ID分片的用户表：物理表 user_0 ~ user_N，路由见 ShardRouter
+ *
+ * 1. ID 用雪花算法（IdWorker）在应用里生成，不再依赖单表自增，全局唯一、大致递增
+ * 2. 按ID读写：只访问一个分片；迁移中的桶写权威分片后把整行同步到另一边（存在就覆盖，不存在就删）
+ * 3. 按用户名查：先查全局索引 user_username_index 拿到ID，再按ID查；索引的主键顺便保证了用户名全局唯一
+ * 4. 分页、条件查询：每个分片都查（scatter），按ID归并（gather）；只收“读分片就是这个分片”的行，迁移中两边都有的不会重复
+ * 分片都在同一个库里，UserService 上的 @Transactional 能把多张表和索引的修改放进一个事务
+ * 指标：user.sharding.queries{type=single|scatter}
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-sharding", name = "enabled", havingValue = "true")
+public class ShardedUserStore implements UserStore {
+
+    private final UserShardingProperties properties;
+    private final ShardRouter router;
+    private final UserMapper userMapper;
+    private final UsernameIndexMapper usernameIndexMapper;
+    private final Counter singleQueries;
+    private final Counter scatterQueries;
+
+    public ShardedUserStore(UserShardingProperties properties, ShardRouter router, UserMapper userMapper,
+                            UsernameIndexMapper usernameIndexMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.router = router;
+        this.userMapper = userMapper;
+        this.usernameIndexMapper = usernameIndexMapper;
+        this.singleQueries = counter(meterRegistry, "single");
+        this.scatterQueries = counter(meterRegistry, "scatter");
+        if (properties.getWorkerId() != null && properties.getDatacenterId() != null) {
+            IdWorker.initSequence(properties.getWorkerId(), properties.getDatacenterId());
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("user.sharding.queries")
+                .description("用户分片查询次数（single 只访问一个分片，scatter 访问所有分片）")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public User selectById(Long id) {
+        if (id == null) {
+            return null;
+        }
+        singleQueries.increment();
+        return ShardContext.call(router.readShard(id), () -> userMapper.selectById(id));
+    }
+
+    @Override
+    public List<User> selectBatchIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // 按分片分组，每个分片一次 IN 查询
+        Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        for (Long id : ids) {
+            idsByShard.computeIfAbsent(router.readShard(id), shard -> new ArrayList<>()).add(id);
+        }
+        List<User> users = new ArrayList<>(ids.size());
+        for (Map.Entry<Integer, List<Long>> entry : idsByShard.entrySet()) {
+            singleQueries.increment();
+            users.addAll(ShardContext.call(entry.getKey(), () -> userMapper.selectBatchIds(entry.getValue())));
+        }
+        return users;
+    }
+
+    @Override
+    public User selectByUsername(String username) {
+        UsernameIndex index = usernameIndexMapper.selectById(username);
+        if (index == null) {
+            return null;
+        }
+        User user = selectById(index.getUserId());
+        // 索引和数据不在同一张表，改名的瞬间可能对不上，以用户表为准
+        return user != null && username.equals(user.getUsername()) ? user : null;
+    }
+
+    @Override
+    public User selectOne(QueryWrapper<User> queryWrapper) {
+        scatterQueries.increment();
+        User found = null;
+        for (Integer shard : router.readShards()) {
+            for (User user : ShardContext.call(shard, () -> userMapper.selectList(queryWrapper))) {
+                if (router.readShard(user.getId()) != shard) {
+                    continue;
+                }
+                if (found != null) {
+                    throw new TooManyResultsException("One record is expected, but the query result is multiple records");
+                }
+                found = user;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 每个分片各取按ID排序的前 offset + size 条，归并后截取这一页
+     * 越往后翻每个分片要取的越多，超过 max-page-window 直接拒绝；total 是各分片行数之和，迁移中会偏大
+     */
+    @Override
+    public Page<User> selectPage(long current, long size) {
+        long pageNo = Math.max(1, current);
+        long offset = (pageNo - 1) * size;
+        long window = offset + size;
+        if (window > properties.getMaxPageWindow()) {
+            throw new RuntimeException("分页太深，最多只能查看前 " + properties.getMaxPageWindow() + " 条");
+        }
+        scatterQueries.increment();
+        List<User> merged = new ArrayList<>();
+        long total = 0;
+        for (Integer shard : router.readShards()) {
+            merged.addAll(ownedRowsAfter(shard, null, (int) window));
+            total += ShardContext.call(shard, () -> userMapper.selectCount(null));
+        }
+        merged.sort(Comparator.comparing(User::getId));
+        Page<User> page = new Page<>(pageNo, size, total);
+        int from = (int) Math.min(offset, merged.size());
+        int to = (int) Math.min(window, merged.size());
+        page.setRecords(new ArrayList<>(merged.subList(from, to)));
+        return page;
+    }
+
+    @Override
+    public List<User> selectAfterId(Long afterId, int limit) {
+        scatterQueries.increment();
+        List<User> merged = new ArrayList<>();
+        for (Integer shard : router.readShards()) {
+            merged.addAll(ownedRowsAfter(shard, afterId, limit));
+        }
+        merged.sort(Comparator.comparing(User::getId));
+        return new ArrayList<>(merged.subList(0, Math.min(limit, merged.size())));
+    }
+
+    /**
+     * 分片上按ID排序、归这个分片读的 startAfter 之后的 limit 行（迁移中拷贝过来还没切读的行要跳过，跳过了就接着往后取）
+     */
+    private List<User> ownedRowsAfter(int shard, Long startAfter, int limit) {
+        List<User> owned = new ArrayList<>(limit);
+        Long afterId = startAfter;
+        while (owned.size() < limit) {
+            int batchSize = limit - owned.size();
+            Long from = afterId;
+            List<User> batch = ShardContext.call(shard, () -> userMapper.selectAfterId(from, batchSize));
+            for (User user : batch) {
+                if (router.readShard(user.getId()) == shard) {
+                    owned.add(user);
+                }
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        return owned;
+    }
+
+    @Override
+    public int insert(User user) {
+        if (user.getId() == null) {
+            user.setId(IdWorker.getId());
+        }
+        long id = user.getId();
+        boolean indexed = insertIndex(user.getUsername(), id);
+        try {
+            int[] shards = router.writeShards(id);
+            int rows = ShardContext.call(shards[0], () -> userMapper.insert(user));
+            syncCopies(shards, id);
+            return rows;
+        } catch (RuntimeException e) {
+            if (indexed) {
+                usernameIndexMapper.deleteById(user.getUsername());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public int updateById(User user) {
+        Long id = user.getId();
+        if (id == null) {
+            return 0;
+        }
+        int[] shards = router.writeShards(id);
+        // 改用户名：先占新名字，改成功再释放旧名字
+        String oldUsername = null;
+        if (user.getUsername() != null) {
+            User current = ShardContext.call(shards[0], () -> userMapper.selectById(id));
+            if (current == null) {
+                return 0;
+            }
+            if (!user.getUsername().equals(current.getUsername())) {
+                insertIndex(user.getUsername(), id);
+                oldUsername = current.getUsername();
+            }
+        }
+        int rows;
+        try {
+            rows = ShardContext.call(shards[0], () -> userMapper.updateById(user));
+            syncCopies(shards, id);
+        } catch (RuntimeException e) {
+            if (oldUsername != null) {
+                usernameIndexMapper.deleteById(user.getUsername());
+            }
+            throw e;
+        }
+        if (oldUsername != null) {
+            deleteIndex(oldUsername, id);
+        }
+        return rows;
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        if (id == null) {
+            return 0;
+        }
+        int[] shards = router.writeShards(id);
+        User current = ShardContext.call(shards[0], () -> userMapper.selectById(id));
+        int rows = ShardContext.call(shards[0], () -> userMapper.deleteById(id));
+        for (int i = 1; i < shards.length; i++) {
+            ShardContext.call(shards[i], () -> userMapper.deleteById(id));
+        }
+        if (current != null && current.getUsername() != null) {
+            deleteIndex(current.getUsername(), id);
+        }
+        return rows;
+    }
+
+    /**
+     * 迁移中的桶：把权威分片上的最新一行同步到另一边
+     */
+    private void syncCopies(int[] shards, long id) {
+        if (shards.length == 1) {
+            return;
+        }
+        User latest = ShardContext.call(shards[0], () -> userMapper.selectById(id));
+        for (int i = 1; i < shards.length; i++) {
+            ShardContext.call(shards[i], () -> latest != null ? userMapper.upsert(latest) : userMapper.deleteById(id));
+        }
+    }
+
+    private boolean insertIndex(String username, long id) {
+        if (username == null) {
+            return false;
+        }
+        try {
+            usernameIndexMapper.insert(new UsernameIndex(username, id));
+            return true;
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("用户名已存在");
+        }
+    }
+
+    private void deleteIndex(String username, long id) {
+        // 只删还指向这个用户的索引，名字可能已经被别人占了
+        usernameIndexMapper.delete(new QueryWrapper<UsernameIndex>().eq("username", username).eq("user_id", id));
+    }
+}
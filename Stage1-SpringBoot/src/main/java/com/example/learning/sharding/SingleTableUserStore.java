@@ -0,0 +1,73 @@
+package com.example.learning.sharding;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.OrderItem;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.learning.entity.User;
+import com.example.learning.mapper.UserMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 不分片：直接访问 user 表
+ */
+@Component
+@ConditionalOnProperty(prefix = "user-sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class SingleTableUserStore implements UserStore {
+
+    private final UserMapper userMapper;
+
+    public SingleTableUserStore(UserMapper userMapper) {
+        this.userMapper = userMapper;
+    }
+
+    @Override
+    public User selectById(Long id) {
+        return userMapper.selectById(id);
+    }
+
+    @Override
+    public List<User> selectBatchIds(Collection<Long> ids) {
+        return userMapper.selectBatchIds(ids);
+    }
+
+    @Override
+    public User selectByUsername(String username) {
+        return userMapper.selectByUsername(username);
+    }
+
+    @Override
+    public User selectOne(QueryWrapper<User> queryWrapper) {
+        return userMapper.selectOne(queryWrapper);
+    }
+
+    @Override
+    public Page<User> selectPage(long current, long size) {
+        Page<User> page = new Page<>(current, size);
+        page.addOrder(OrderItem.asc("id"));
+        return userMapper.selectPage(page, null);
+    }
+
+    @Override
+    public List<User> selectAfterId(Long afterId, int limit) {
+        return userMapper.selectAfterId(afterId, limit);
+    }
+
+    @Override
+    public int insert(User user) {
+        return userMapper.insert(user);
+    }
+
+    @Override
+    public int updateById(User user) {
+        return userMapper.updateById(user);
+    }
+
+    @Override
+    public int deleteById(Long id) {
+        return userMapper.deleteById(id);
+    }
+}
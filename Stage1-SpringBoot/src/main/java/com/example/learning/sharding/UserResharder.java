@@ -0,0 +1,290 @@
+package com.example.learning.sharding;
+
+import com.example.learning.entity.ShardBucket;
+import com.example.learning.entity.User;
+import com.example.learning.mapper.ShardBucketMapper;
+import com.example.learning.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 在线重新分片：把桶从旧分片搬到新分片，搬的过程中线上照常读写
+ *
+ * 1. 规划：桶 b 的新分片 = b % 新分片数，和现在不同的桶要搬；路由表里还有没搬完的桶（上次中断）就先接着搬上次的
+ * 2. COPYING：这些桶开始双写（读旧分片，写两边），等两个刷新周期让所有实例都切到双写
+ * 3. 拷贝：按ID分段扫旧分片，要搬的行 INSERT IGNORE 到新分片（双写已经写过去的是新数据，不能被覆盖）
+ * 4. 校验：再扫一遍旧分片补漏；扫新分片，旧分片上已经没有的行删掉（拷贝读到之后、写入之前被删的行会被拷回来）
+ * 5. SWITCHED：读切到新分片，写仍然两边；等两个刷新周期
+ * 6. STABLE：只写新分片；再等两个刷新周期，清理旧分片上已经不归它的行
+ * 每一步都可以重复执行，失败或者进程重启后重新发起，会按路由表里记录的状态接着做
+ * 新分片的表要提前建好（resources/db/user_sharding.sql）
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "user-sharding", name = "enabled", havingValue = "true")
+public class UserResharder {
+
+    private final UserShardingProperties properties;
+    private final ShardRouter router;
+    private final ShardBucketMapper shardBucketMapper;
+    private final UserMapper userMapper;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReshardStatus status;
+
+    public UserResharder(UserShardingProperties properties, ShardRouter router, ShardBucketMapper shardBucketMapper,
+                         UserMapper userMapper) {
+        this.properties = properties;
+        this.router = router;
+        this.shardBucketMapper = shardBucketMapper;
+        this.userMapper = userMapper;
+    }
+
+    /**
+     * 发起重新分片（后台线程执行，同一时间只能有一个），返回初始进度
+     */
+    public ReshardStatus start(int targetShards) {
+        if (targetShards <= 0 || targetShards > properties.getBuckets()) {
+            throw new RuntimeException("分片数必须在 1 ~ " + properties.getBuckets() + " 之间");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("已经有重新分片在进行中");
+        }
+        ReshardStatus started = new ReshardStatus();
+        started.setPhase(ReshardStatus.Phase.PLANNING);
+        started.setTargetShards(targetShards);
+        started.setStartedAt(LocalDateTime.now());
+        status = started;
+        Thread thread = new Thread(() -> {
+            try {
+                reshard(started);
+                started.setPhase(ReshardStatus.Phase.DONE);
+            } catch (Exception e) {
+                started.setPhase(ReshardStatus.Phase.FAILED);
+                started.setError(e.getMessage());
+                log.error("重新分片失败，修复后重新发起会从当前状态接着做", e);
+            } finally {
+                started.setFinishedAt(LocalDateTime.now());
+                running.set(false);
+            }
+        }, "user-reshard");
+        thread.setDaemon(true);
+        thread.start();
+        return started;
+    }
+
+    /**
+     * 最近一次重新分片的进度，没有发起过返回 null
+     */
+    public ReshardStatus status() {
+        return status;
+    }
+
+    private void reshard(ReshardStatus status) throws InterruptedException {
+        router.refresh();
+        // 桶 -> {旧分片, 新分片}
+        Map<Integer, int[]> moves = plan(status.getTargetShards());
+        status.setMovingBuckets(moves.size());
+        if (moves.isEmpty()) {
+            log.info("分片已经是 {} 个，不需要迁移", status.getTargetShards());
+            return;
+        }
+        Set<Integer> targets = new TreeSet<>();
+        for (int[] move : moves.values()) {
+            targets.add(move[1]);
+        }
+        for (Integer target : targets) {
+            checkTable(target);
+        }
+        log.info("开始重新分片：{} 个桶要搬，目标分片 {}", moves.size(), targets);
+
+        // 2. 双写
+        Map<Integer, List<Integer>> bucketsByTarget = new TreeMap<>();
+        for (Map.Entry<Integer, int[]> entry : moves.entrySet()) {
+            bucketsByTarget.computeIfAbsent(entry.getValue()[1], target -> new ArrayList<>()).add(entry.getKey());
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : bucketsByTarget.entrySet()) {
+            shardBucketMapper.startCopying(entry.getValue(), entry.getKey());
+        }
+        awaitPropagation();
+
+        // 3. 拷贝（接着上次做、已经切读的桶拷贝校验过了，跳过；新分片是它们的权威分片，再删“多余行”会误删刚插入的）
+        Map<Integer, int[]> copying = new TreeMap<>();
+        for (ShardBucket route : router.routes()) {
+            if (route.getState() == ShardBucket.State.COPYING && moves.containsKey(route.getBucket())) {
+                copying.put(route.getBucket(), moves.get(route.getBucket()));
+            }
+        }
+        status.setPhase(ReshardStatus.Phase.COPYING);
+        copy(copying, status::setCopiedRows);
+
+        // 4. 校验：补漏 + 删多余
+        status.setPhase(ReshardStatus.Phase.VERIFYING);
+        copy(copying, status::setRepairedRows);
+        removeOrphans(copying, status);
+
+        // 5. 切读
+        status.setPhase(ReshardStatus.Phase.SWITCHING);
+        List<Integer> buckets = new ArrayList<>(moves.keySet());
+        shardBucketMapper.switchReads(buckets);
+        awaitPropagation();
+
+        // 6. 停写旧分片，清理
+        status.setPhase(ReshardStatus.Phase.FINISHING);
+        shardBucketMapper.finish(buckets);
+        awaitPropagation();
+        status.setPhase(ReshardStatus.Phase.CLEANING);
+        Set<Integer> sources = new TreeSet<>();
+        for (int[] move : moves.values()) {
+            sources.add(move[0]);
+        }
+        for (Integer source : sources) {
+            cleanUp(source, status);
+        }
+        log.info("重新分片完成：拷贝 {} 行，补拷 {} 行，删除多余 {} 行，清理旧分片 {} 行", status.getCopiedRows(),
+                status.getRepairedRows(), status.getOrphanRows(), status.getCleanedRows());
+    }
+
+    private Map<Integer, int[]> plan(int targetShards) {
+        Map<Integer, int[]> pending = new TreeMap<>();
+        Map<Integer, int[]> planned = new TreeMap<>();
+        for (ShardBucket route : router.routes()) {
+            if (route.getState() != ShardBucket.State.STABLE) {
+                pending.put(route.getBucket(), new int[]{route.getShard(), route.getTargetShard()});
+            } else if (route.getShard() != route.getBucket() % targetShards) {
+                planned.put(route.getBucket(), new int[]{route.getShard(), route.getBucket() % targetShards});
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.warn("上次重新分片没有完成，先继续搬这 {} 个桶，完成后请重新发起", pending.size());
+            return pending;
+        }
+        return planned;
+    }
+
+    private void checkTable(int shard) {
+        try {
+            ShardContext.call(shard, () -> userMapper.selectAfterId(null, 1));
+        } catch (Exception e) {
+            throw new RuntimeException("分片表 " + properties.getTablePrefix() + shard + " 不可用，请先建表："
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 扫旧分片，要搬的行 INSERT IGNORE 到新分片
+     */
+    private void copy(Map<Integer, int[]> moves, Consumer<Long> progress) throws InterruptedException {
+        Map<Integer, Set<Integer>> bucketsBySource = new TreeMap<>();
+        for (Map.Entry<Integer, int[]> entry : moves.entrySet()) {
+            bucketsBySource.computeIfAbsent(entry.getValue()[0], source -> new HashSet<>()).add(entry.getKey());
+        }
+        long copied = 0;
+        for (Map.Entry<Integer, Set<Integer>> entry : bucketsBySource.entrySet()) {
+            int source = entry.getKey();
+            Long afterId = null;
+            List<User> batch;
+            do {
+                batch = scan(source, afterId);
+                for (User user : batch) {
+                    int bucket = router.bucketOf(user.getId());
+                    if (entry.getValue().contains(bucket)) {
+                        copied += ShardContext.call(moves.get(bucket)[1], () -> userMapper.insertIgnore(user));
+                    }
+                }
+                progress.accept(copied);
+                afterId = batch.isEmpty() ? afterId : batch.get(batch.size() - 1).getId();
+                pause();
+            } while (batch.size() == properties.getMigration().getBatchSize());
+        }
+    }
+
+    /**
+     * 扫新分片，搬过来的桶里旧分片已经没有的行删掉
+     */
+    private void removeOrphans(Map<Integer, int[]> moves, ReshardStatus status) throws InterruptedException {
+        Set<Integer> targets = new TreeSet<>();
+        for (int[] move : moves.values()) {
+            targets.add(move[1]);
+        }
+        long orphans = 0;
+        for (Integer target : targets) {
+            Long afterId = null;
+            List<User> batch;
+            do {
+                batch = scan(target, afterId);
+                // 按旧分片分组批量查是否还在
+                Map<Integer, List<Long>> idsBySource = new HashMap<>();
+                for (User user : batch) {
+                    int[] move = moves.get(router.bucketOf(user.getId()));
+                    if (move != null && move[1] == target) {
+                        idsBySource.computeIfAbsent(move[0], source -> new ArrayList<>()).add(user.getId());
+                    }
+                }
+                for (Map.Entry<Integer, List<Long>> entry : idsBySource.entrySet()) {
+                    Set<Long> missing = new HashSet<>(entry.getValue());
+                    for (User existing : ShardContext.call(entry.getKey(), () -> userMapper.selectBatchIds(entry.getValue()))) {
+                        missing.remove(existing.getId());
+                    }
+                    if (!missing.isEmpty()) {
+                        orphans += ShardContext.call(target, () -> userMapper.deleteBatchIds(missing));
+                    }
+                }
+                status.setOrphanRows(orphans);
+                afterId = batch.isEmpty() ? afterId : batch.get(batch.size() - 1).getId();
+                pause();
+            } while (batch.size() == properties.getMigration().getBatchSize());
+        }
+    }
+
+    /**
+     * 删掉旧分片上已经不归它的行
+     */
+    private void cleanUp(int source, ReshardStatus status) throws InterruptedException {
+        Long afterId = null;
+        List<User> batch;
+        do {
+            batch = scan(source, afterId);
+            List<Long> stale = new ArrayList<>();
+            for (User user : batch) {
+                if (!router.owns(source, user.getId())) {
+                    stale.add(user.getId());
+                }
+            }
+            if (!stale.isEmpty()) {
+                int deleted = ShardContext.call(source, () -> userMapper.deleteBatchIds(stale));
+                status.setCleanedRows(status.getCleanedRows() + deleted);
+            }
+            afterId = batch.isEmpty() ? afterId : batch.get(batch.size() - 1).getId();
+            pause();
+        } while (batch.size() == properties.getMigration().getBatchSize());
+    }
+
+    private List<User> scan(int shard, Long afterId) {
+        return ShardContext.call(shard, () -> userMapper.selectAfterId(afterId, properties.getMigration().getBatchSize()));
+    }
+
+    private void pause() throws InterruptedException {
+        Thread.sleep(properties.getMigration().getPause().toMillis());
+    }
+
+    /**
+     * 改完路由表等两个刷新周期，保证所有实例都已经按新状态读写，再进入下一步
+     */
+    private void awaitPropagation() throws InterruptedException {
+        Thread.sleep(properties.getRouteRefreshInterval().toMillis() * 2);
+        router.refresh();
+    }
+}
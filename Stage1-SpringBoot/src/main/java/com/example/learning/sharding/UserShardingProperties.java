@@ -0,0 +1,70 @@
+package com.example.learning.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户表分片配置（user-sharding.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "user-sharding")
+public class UserShardingProperties {
+
+    /**
+     * 是否分片；关闭时还是单表 user
+     */
+    private boolean enabled = false;
+
+    /**
+     * 物理表名前缀，分片 N 对应 {table-prefix}N
+     */
+    private String tablePrefix = "user_";
+
+    /**
+     * 虚拟桶个数（ID 先散列到桶，桶再映射到物理表），只在第一次初始化路由表时使用，之后不能改；
+     * 也是分片数的上限
+     */
+    private int buckets = 1024;
+
+    /**
+     * 第一次初始化路由表时的分片数（桶 b 放在 b % initial-shards），之后扩缩容用 /admin/user-sharding/reshard
+     */
+    private int initialShards = 4;
+
+    /**
+     * 多久从 user_shard_bucket 重新加载一次路由；迁移每切一个阶段都要等两个周期，保证所有实例都看到了
+     */
+    private Duration routeRefreshInterval = Duration.ofSeconds(2);
+
+    /**
+     * 分页最多看到第几条（每个分片都要取 offset + size 条再归并，翻得越深越贵）
+     */
+    private int maxPageWindow = 10000;
+
+    /**
+     * ID 生成器的机器号和数据中心号（0 ~ 31），不配就由 MyBatis-Plus 按网卡和进程号推算；
+     * 多实例部署建议显式配置，保证不重复
+     */
+    private Long workerId;
+    private Long datacenterId;
+
+    private Migration migration = new Migration();
+
+    @Data
+    public static class Migration {
+
+        /**
+         * 每批扫描多少行
+         */
+        private int batchSize = 500;
+
+        /**
+         * 每批之间停多久，给线上请求让路
+         */
+        private Duration pause = Duration.ofMillis(20);
+    }
+}
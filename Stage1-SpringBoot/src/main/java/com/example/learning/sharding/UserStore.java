@@ -0,0 +1,42 @@
+package com.example.learning.sharding;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.learning.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户数据访问入口：UserService 只依赖它，不直接用 UserMapper
+ * user-sharding.enabled=false 时是单表（SingleTableUserStore），true 时按ID分片（ShardedUserStore）
+ */
+public interface UserStore {
+
+    User selectById(Long id);
+
+    List<User> selectBatchIds(Collection<Long> ids);
+
+    User selectByUsername(String username);
+
+    /**
+     * 条件查询单个用户（分片时每个分片都要查一遍）
+     */
+    User selectOne(QueryWrapper<User> queryWrapper);
+
+    /**
+     * 按ID升序分页
+     */
+    Page<User> selectPage(long current, long size);
+
+    /**
+     * 按ID升序取 afterId 之后的 limit 条（afterId 为空从头取），用于全表分段扫描
+     */
+    List<User> selectAfterId(Long afterId, int limit);
+
+    int insert(User user);
+
+    int updateById(User user);
+
+    int deleteById(Long id);
+}
@@ -0,0 +1,104 @@
+package com.example.learning.warmup;
+
+import com.example.learning.audit.LoginEvent;
+import com.example.learning.common.RedisUtil;
+import com.example.learning.mapper.LoginLogMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 活跃用户榜：预热时按活跃度从高到低分页取用户ID
+ *
+ * 来源 1：Redis ZSET（cache-warmup.hot-list-key），登录审计每写完一批就用管道更新，score 是最近登录时间
+ * 来源 2：login_log 按最近登录时间分页查（活跃榜为空时兜底，比如 Redis 刚清过）
+ */
+@Slf4j
+@Component
+public class ActiveUserList {
+
+    private final CacheWarmupProperties properties;
+    private final RedisUtil redisUtil;
+    private final LoginLogMapper loginLogMapper;
+
+    public ActiveUserList(CacheWarmupProperties properties, RedisUtil redisUtil, LoginLogMapper loginLogMapper) {
+        this.properties = properties;
+        this.redisUtil = redisUtil;
+        this.loginLogMapper = loginLogMapper;
+    }
+
+    /**
+     * 记录一批登录（由登录审计消费线程调用），失败只打日志，不影响审计
+     */
+    public void touch(List<LoginEvent> events) {
+        String key = properties.getHotListKey();
+        try {
+            redisUtil.pipelined(operations -> {
+                for (LoginEvent event : events) {
+                    operations.opsForZSet().add(key, event.getUserId(), event.getLoginTime());
+                }
+                // 只保留最近登录的 hot-list-max-size 个
+                operations.opsForZSet().removeRange(key, 0, -properties.getHotListMaxSize() - 1L);
+            });
+        } catch (Exception e) {
+            log.warn("更新活跃用户榜失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按活跃度从高到低，每取到 pageSize 个ID回调一次，最多 limit 个，返回一共取到多少个
+     * 分页取，不会一次把几万个ID读进内存
+     */
+    public int stream(int limit, int pageSize, Consumer<List<Long>> page) {
+        if (properties.getSource() == CacheWarmupProperties.Source.HOT_LIST) {
+            int count = streamHotList(limit, pageSize, page);
+            if (count > 0) {
+                return count;
+            }
+            log.info("活跃用户榜 {} 为空，改查 login_log", properties.getHotListKey());
+        }
+        return streamQuery(limit, pageSize, page);
+    }
+
+    private int streamHotList(int limit, int pageSize, Consumer<List<Long>> page) {
+        int count = 0;
+        while (count < limit) {
+            int size = Math.min(pageSize, limit - count);
+            List<Long> ids = new ArrayList<>(size);
+            for (Object member : redisUtil.reverseRange(properties.getHotListKey(), count, count + size - 1L)) {
+                ids.add(((Number) member).longValue());
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+            count += ids.size();
+            page.accept(ids);
+            if (ids.size() < size) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private int streamQuery(int limit, int pageSize, Consumer<List<Long>> page) {
+        LocalDateTime since = LocalDateTime.now().minusDays(properties.getActiveDays());
+        int count = 0;
+        while (count < limit) {
+            int size = Math.min(pageSize, limit - count);
+            List<Long> ids = loginLogMapper.selectActiveUserIds(since, count, size);
+            if (ids.isEmpty()) {
+                break;
+            }
+            count += ids.size();
+            page.accept(ids);
+            if (ids.size() < size) {
+                break;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.learning.warmup;
+
+import com.example.learning.executor.ExecutorRegistry;
+import com.example.learning.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动预热：刚发布的节点缓存是空的，直接接流量会把所有请求都打到 MySQL
+ *
+ * 1. 应用启动完成后，后台线程从 ActiveUserList 分页取最活跃的 top-n 个用户ID
+ * 2. 每取到一页就交给 warmup 线程池，调用 UserService.getUsersByIds 批量回填缓存（MGET + IN 查询 + 管道写入），
+ *    同时在跑的批数不超过 max-in-flight，ID 边取边加载，不会一次全读进内存
+ * 3. 加载完 required-coverage 比例的ID，或者 time-budget 用完，才标记就绪
+ * 就绪状态通过健康检查 cacheWarmup 暴露，并加进了 readiness 分组（/actuator/health/readiness），
+ * 没预热完之前负载均衡不会把流量切过来；liveness 不受影响
+ */
+@Slf4j
+@Component("cacheWarmup")
+public class CacheWarmup implements HealthIndicator {
+
+    private final CacheWarmupProperties properties;
+    private final ActiveUserList activeUserList;
+    private final UserService userService;
+    private final ExecutorService warmupPool;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile int streamed;
+    private volatile boolean streamDone;
+    private volatile boolean ready;
+    private volatile String result = "pending";
+    private volatile long startedAt;
+    private volatile long elapsedMs;
+
+    public CacheWarmup(CacheWarmupProperties properties, ActiveUserList activeUserList, UserService userService,
+                       ExecutorRegistry executorRegistry) {
+        this.properties = properties;
+        this.activeUserList = activeUserList;
+        this.userService = userService;
+        this.warmupPool = executorRegistry.create("warmup");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            finish("disabled");
+            return;
+        }
+        Thread thread = new Thread(this::run, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        startedAt = System.currentTimeMillis();
+        long deadline = System.nanoTime() + properties.getTimeBudget().toNanos();
+        Semaphore inFlight = new Semaphore(properties.getMaxInFlight());
+        List<Future<?>> futures = new ArrayList<>();
+        log.info("开始预热用户缓存：top {}，每批 {}，并发 {} 批，时间预算 {} 秒", properties.getTopN(),
+                properties.getChunkSize(), properties.getMaxInFlight(), properties.getTimeBudget().getSeconds());
+        try {
+            activeUserList.stream(properties.getTopN(), properties.getChunkSize(), ids -> {
+                if (!acquire(inFlight, deadline)) {
+                    throw new BudgetExhaustedException();
+                }
+                streamed += ids.size();
+                try {
+                    futures.add(warmupPool.submit(() -> load(ids, inFlight)));
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    failed.addAndGet(ids.size());
+                }
+            });
+            streamDone = true;
+            finish(awaitCoverage(deadline) ? "coverage" : "timeout");
+        } catch (BudgetExhaustedException e) {
+            finish("timeout");
+        } catch (Exception e) {
+            log.warn("预热失败，直接就绪", e);
+            finish("error");
+        }
+        if ("timeout".equals(result)) {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void load(List<Long> ids, Semaphore inFlight) {
+        try {
+            userService.getUsersByIds(ids);
+            loaded.addAndGet(ids.size());
+        } catch (Exception e) {
+            failed.addAndGet(ids.size());
+            log.warn("预热一批用户缓存失败（{} 个）：{}", ids.size(), e.getMessage());
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * 等到加载比例达到 required-coverage（或者全部跑完），超过 deadline 返回 false
+     */
+    private boolean awaitCoverage(long deadline) throws InterruptedException {
+        int required = (int) Math.ceil(streamed * properties.getRequiredCoverage());
+        while (loaded.get() < required && loaded.get() + failed.get() < streamed) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        return true;
+    }
+
+    private boolean acquire(Semaphore inFlight, long deadline) {
+        try {
+            return inFlight.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void finish(String result) {
+        this.result = result;
+        this.elapsedMs = startedAt == 0 ? 0 : System.currentTimeMillis() - startedAt;
+        this.ready = true;
+        log.info("用户缓存预热结束（{}）：取到 {} 个ID，加载 {} 个，失败 {} 个，耗时 {} ms",
+                result, streamed, loaded.get(), failed.get(), elapsedMs);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = ready ? Health.up() : Health.outOfService();
+        return builder.withDetail("result", result)
+                .withDetail("streamed", streamed)
+                .withDetail("streamDone", streamDone)
+                .withDetail("loaded", loaded.get())
+                .withDetail("failed", failed.get())
+                .withDetail("elapsedMs", ready ? elapsedMs : System.currentTimeMillis() - startedAt)
+                .build();
+    }
+
+    /**
+     * 取ID的过程中时间预算用完，用来跳出 ActiveUserList.stream
+     */
+    private static class BudgetExhaustedException extends RuntimeException {
+
+        BudgetExhaustedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.learning.warmup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 启动预热配置（cache-warmup.*）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache-warmup")
+public class CacheWarmupProperties {
+
+    /**
+     * 是否预热，关掉后启动即就绪
+     */
+    private boolean enabled = true;
+
+    /**
+     * 活跃用户ID从哪里取：HOT_LIST 先读 Redis 里的活跃榜，榜是空的再查 login_log；QUERY 只查 login_log
+     */
+    private Source source = Source.HOT_LIST;
+
+    /**
+     * 预热最活跃的前多少个用户
+     */
+    private int topN = 5000;
+
+    /**
+     * 每批多少个ID（一批 = 一次 MGET + 一次 IN 查询 + 一次管道回填）
+     */
+    private int chunkSize = 200;
+
+    /**
+     * 同时在跑的批数上限（线程数见 thread-pools.pools.warmup）
+     */
+    private int maxInFlight = 4;
+
+    /**
+     * 加载完这个比例就算就绪，剩下的继续在后台加载
+     */
+    private double requiredCoverage = 0.9;
+
+    /**
+     * 最多等多久，超时后不管覆盖率都标记就绪，没跑完的批取消
+     */
+    private Duration timeBudget = Duration.ofSeconds(30);
+
+    /**
+     * 活跃榜：Redis ZSET，member 是用户ID，score 是最近一次登录时间；每次登录审计写完一批后更新
+     */
+    private String hotListKey = "user:active";
+
+    /**
+     * 活跃榜最多保留多少个用户（超出的按最近登录时间从旧到新裁掉）
+     */
+    private int hotListMaxSize = 20000;
+
+    /**
+     * 查 login_log 时只看最近多少天登录过的用户
+     */
+    private int activeDays = 7;
+
+    public enum Source {
+        HOT_LIST,
+        QUERY
+    }
+}
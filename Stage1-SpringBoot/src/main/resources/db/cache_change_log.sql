@@ -0,0 +1,8 @@
+-- 缓存变更日志（CacheInvalidator 在业务事务里写入，删完缓存后标记已处理；没处理的由后台补删）
+CREATE TABLE IF NOT EXISTS cache_change_log (
+    id           BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    cache_key    VARCHAR(128) NOT NULL,
+    created_at   DATETIME(3)  NOT NULL,
+    processed_at DATETIME(3)  NULL,
+    KEY idx_processed_created (processed_at, created_at)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
@@ -0,0 +1,8 @@
+-- 登录日志表（LoginAuditPipeline 批量写入）
+CREATE TABLE IF NOT EXISTS login_log (
+    id         BIGINT      NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    user_id    BIGINT      NOT NULL,
+    username   VARCHAR(64) NOT NULL,
+    login_time DATETIME(3) NOT NULL,
+    KEY idx_user_time (user_id, login_time)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
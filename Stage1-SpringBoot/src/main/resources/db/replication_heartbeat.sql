@@ -0,0 +1,5 @@
+-- 复制心跳表（读写分离时 ReplicaHealthMonitor 定时写主库，从库上读出来算复制延迟）
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id BIGINT NOT NULL PRIMARY KEY,
+    ts BIGINT NOT NULL COMMENT '主库写入时的时间戳（毫秒）'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
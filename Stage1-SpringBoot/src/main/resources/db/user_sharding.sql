@@ -0,0 +1,70 @@
+-- 用户表按ID分片（user-sharding.enabled=true 时使用，路由见 ShardRouter）
+-- 分片表 user_0 ~ user_7：先用 initial-shards 个，扩容时 /admin/user-sharding/reshard 在线搬到更多的表上，要用到的表提前建好
+CREATE TABLE IF NOT EXISTS user_0 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_1 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_2 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_3 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_4 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_5 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_6 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+CREATE TABLE IF NOT EXISTS user_7 (
+    id       BIGINT       NOT NULL PRIMARY KEY COMMENT '雪花ID，应用生成',
+    username VARCHAR(64)  NULL,
+    password VARCHAR(100) NULL,
+    age      INT          NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 用户名 -> 用户ID 全局索引（按用户名登录先查这里再按ID查分片；主键保证用户名全局唯一）
+CREATE TABLE IF NOT EXISTS user_username_index (
+    username VARCHAR(64) NOT NULL PRIMARY KEY,
+    user_id  BIGINT      NOT NULL
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 虚拟桶 -> 分片的路由表（第一次启动自动初始化，迁移时由 UserResharder 更新）
+CREATE TABLE IF NOT EXISTS user_shard_bucket (
+    bucket       INT         NOT NULL PRIMARY KEY,
+    shard        INT         NOT NULL,
+    target_shard INT         NULL COMMENT '迁移中的目标分片',
+    state        VARCHAR(16) NOT NULL COMMENT 'STABLE / COPYING / SWITCHED'
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 从单表 user 切到分片：把 user 当成唯一的分片 user_0，建好索引，配置 initial-shards: 1 开启分片，
+-- 再在线重新分片到 N 个（老数据的自增ID比雪花ID小得多，不会冲突）
+-- DROP TABLE user_0;
+-- RENAME TABLE user TO user_0;
+-- INSERT INTO user_username_index (username, user_id) SELECT username, id FROM user_0;
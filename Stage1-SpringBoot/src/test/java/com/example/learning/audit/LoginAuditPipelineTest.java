@@ -0,0 +1,142 @@
+package com.example.learning.audit;
+
+import com.example.learning.entity.LoginLog;
+import com.example.learning.mapper.LoginLogMapper;
+import com.example.learning.warmup.ActiveUserList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 登录审计流水线：队列满的丢弃计数、攒批写库、写库失败改写文件、关闭时写完剩余事件
+ */
+class LoginAuditPipelineTest {
+
+    @TempDir
+    Path fallbackDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginLogMapper mapper = mock(LoginLogMapper.class);
+    private final ActiveUserList activeUserList = mock(ActiveUserList.class);
+
+    @Test
+    void countsDroppedEventsAndFlushesAcceptedOnStop() throws InterruptedException {
+        LoginAuditPipeline pipeline = pipeline(4, 100);
+        // 消费线程还没启动，队列满了之后的都被丢弃
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (pipeline.record(event(i))) {
+                accepted++;
+            }
+        }
+        assertThat(accepted).isEqualTo(4);
+        assertThat(count("dropped")).isEqualTo(6);
+        assertThat(gauge()).isEqualTo(4);
+
+        pipeline.start();
+        pipeline.stop();
+        assertThat(count("written_db")).isEqualTo(4);
+        assertThat(count("written_file")).isZero();
+        assertThat(gauge()).isZero();
+        assertThat(writtenUserIds()).containsExactly(0L, 1L, 2L, 3L);
+    }
+
+    @Test
+    void writesInBatchesOfAtMostBatchSize() throws InterruptedException {
+        LoginAuditPipeline pipeline = pipeline(64, 3);
+        for (int i = 0; i < 7; i++) {
+            assertThat(pipeline.record(event(i))).isTrue();
+        }
+        pipeline.start();
+        pipeline.stop();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LoginLog>> batches = ArgumentCaptor.forClass(List.class);
+        verify(mapper, atLeastOnce()).insertBatch(batches.capture());
+        assertThat(batches.getAllValues()).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(3));
+        assertThat(batches.getAllValues().stream().mapToInt(List::size).sum()).isEqualTo(7);
+        assertThat(count("written_db")).isEqualTo(7);
+        verify(activeUserList, atLeastOnce()).touch(anyList());
+    }
+
+    @Test
+    void fallsBackToFileWhenDatabaseFails() throws Exception {
+        when(mapper.insertBatch(anyList())).thenThrow(new IllegalStateException("db down"));
+        LoginAuditPipeline pipeline = pipeline(64, 100);
+        for (int i = 0; i < 5; i++) {
+            pipeline.record(event(i));
+        }
+        pipeline.start();
+        pipeline.stop();
+
+        assertThat(count("written_db")).isZero();
+        assertThat(count("written_file")).isEqualTo(5);
+        assertThat(count("lost")).isZero();
+        List<String> lines = Files.readAllLines(fallbackDir.resolve("login-audit.log"), StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0)).startsWith("0\tuser0\t");
+    }
+
+    @Test
+    void blockPolicyWaitsBrieflyThenDrops() {
+        LoginAuditProperties properties = properties(1, 100);
+        properties.setOverflowPolicy(LoginAuditProperties.OverflowPolicy.BLOCK);
+        properties.setBlockTimeout(Duration.ofMillis(5));
+        LoginAuditPipeline pipeline = new LoginAuditPipeline(properties, mapper, activeUserList, meterRegistry);
+        assertThat(pipeline.record(event(1))).isTrue();
+        assertThat(pipeline.record(event(2))).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(pipeline.record(event(3))).isFalse();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(5).toNanos());
+        assertThat(count("dropped")).isEqualTo(1);
+        verify(mapper, never()).insertBatch(anyList());
+    }
+
+    private LoginAuditPipeline pipeline(int bufferSize, int batchSize) {
+        return new LoginAuditPipeline(properties(bufferSize, batchSize), mapper, activeUserList, meterRegistry);
+    }
+
+    private LoginAuditProperties properties(int bufferSize, int batchSize) {
+        LoginAuditProperties properties = new LoginAuditProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setBatchSize(batchSize);
+        properties.setFlushInterval(Duration.ofMillis(20));
+        properties.setFallbackDir(fallbackDir.toString());
+        return properties;
+    }
+
+    private static LoginEvent event(long userId) {
+        return new LoginEvent(userId, "user" + userId, 1_700_000_000_000L + userId);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("login.audit.events").tag("result", result).counter().count();
+    }
+
+    private double gauge() {
+        return meterRegistry.get("login.audit.buffer.size").gauge().value();
+    }
+
+    private List<Long> writtenUserIds() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LoginLog>> batches = ArgumentCaptor.forClass(List.class);
+        verify(mapper, atLeastOnce()).insertBatch(batches.capture());
+        return batches.getAllValues().stream().flatMap(List::stream).map(LoginLog::getUserId).collect(java.util.stream.Collectors.toList());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.learning.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 无锁环形队列：容量、满了拒绝、先进先出、多生产者下不丢不重
+ */
+class MpscRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(1).capacity()).isEqualTo(2);
+        assertThat(new MpscRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(8).capacity()).isEqualTo(8);
+        assertThatThrownBy(() -> new MpscRingBuffer<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void smallestBufferDoesNotOverwrite() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(1);
+        assertThat(buffer.offer(1)).isTrue();
+        assertThat(buffer.offer(2)).isTrue();
+        assertThat(buffer.offer(3)).isFalse();
+        List<Integer> drained = new ArrayList<>();
+        buffer.drain(drained::add, 10);
+        assertThat(drained).containsExactly(1, 2);
+    }
+
+    @Test
+    void rejectsWhenFullAndAcceptsAgainAfterDrain() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 3)).isEqualTo(3);
+        assertThat(drained).containsExactly(0, 1, 2);
+        assertThat(buffer.size()).isEqualTo(1);
+
+        // 腾出来的槽位下一圈可以再用
+        for (int i = 5; i < 8; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(8)).isFalse();
+        drained.clear();
+        assertThat(buffer.drain(drained::add, 100)).isEqualTo(4);
+        assertThat(drained).containsExactly(3, 5, 6, 7);
+        assertThat(buffer.drain(drained::add, 100)).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepPerProducerOrder() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 200_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(new long[]{producer, i})) {
+                        accepted.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+
+        long[] lastSeen = new long[producers];
+        java.util.Arrays.fill(lastSeen, -1);
+        long[] consumed = new long[1];
+        boolean[] ordered = {true};
+        while (done.getCount() > 0 || buffer.size() > 0) {
+            buffer.drain(element -> {
+                int producer = (int) element[0];
+                if (element[1] <= lastSeen[producer]) {
+                    ordered[0] = false;
+                }
+                lastSeen[producer] = element[1];
+                consumed[0]++;
+            }, 256);
+        }
+        done.await();
+        buffer.drain(element -> consumed[0]++, Integer.MAX_VALUE);
+
+        assertThat(accepted.get() + rejected.get()).isEqualTo(producers * perProducer);
+        assertThat(consumed[0]).isEqualTo(accepted.get());
+        assertThat(ordered[0]).isTrue();
+        assertThat(buffer.size()).isZero();
+    }
+}
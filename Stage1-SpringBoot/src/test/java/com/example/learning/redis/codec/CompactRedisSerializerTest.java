@@ -0,0 +1,176 @@
+package com.example.learning.redis.codec;
+
+import com.example.learning.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 紧凑序列化：每种注册类型和内置类型的往返、LZ4 阈值、兼容读取老的 GenericJackson2JsonRedisSerializer 数据
+ */
+class CompactRedisSerializerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CompactRedisSerializer serializer = serializer(new RedisCodecProperties());
+
+    @Test
+    void roundTripsEveryRegisteredCodec() {
+        // 所有 RedisTypeCodec 实现都要在这里出现，新增类型时补上
+        List<RedisTypeCodec<?>> codecs = Collections.singletonList(new UserRedisCodec());
+        List<Object> samples = Arrays.asList(
+                user(1L, "alice", 20, "$2a$10$abcdefghijklmnopqrstuv"),
+                user(null, null, null, null),
+                user(Long.MAX_VALUE, "张三", -1, ""));
+        for (RedisTypeCodec<?> codec : codecs) {
+            List<Object> ofType = new ArrayList<>();
+            for (Object sample : samples) {
+                if (codec.type().isInstance(sample)) {
+                    ofType.add(sample);
+                }
+            }
+            assertThat(ofType).as("%s 没有测试样本", codec.getClass().getSimpleName()).isNotEmpty();
+            for (Object sample : ofType) {
+                byte[] bytes = serializer.serialize(sample);
+                assertThat(bytes[0] & 0xFF).isEqualTo(CompactRedisSerializer.MAGIC);
+                assertThat(serializer.deserialize(bytes)).isEqualTo(sample);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsBuiltInTypes() {
+        for (Object value : Arrays.asList("", "hello", "登录", 0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE,
+                0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+            Object restored = serializer.deserialize(serializer.serialize(value));
+            assertThat(restored).isEqualTo(value).hasSameClassAs(value);
+        }
+    }
+
+    @Test
+    void unregisteredTypesFallBackToEmbeddedJson() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", 3);
+        map.put("names", Arrays.asList("a", "b"));
+        byte[] bytes = serializer.serialize(map);
+        assertThat(bytes[0] & 0xFF).isEqualTo(CompactRedisSerializer.MAGIC);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(map);
+        assertThat(legacyReads()).isZero();
+    }
+
+    @Test
+    void emptyAndNullValues() {
+        assertThat(serializer.serialize(null)).isEmpty();
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void readsLegacyJsonWrittenByGenericJackson2JsonRedisSerializer() {
+        GenericJackson2JsonRedisSerializer legacy = new GenericJackson2JsonRedisSerializer();
+        User user = user(7L, "bob", 30, "$2a$10$hash");
+        assertThat(serializer.deserialize(legacy.serialize(user))).isEqualTo(user);
+        assertThat(serializer.deserialize(legacy.serialize("token"))).isEqualTo("token");
+        assertThat(serializer.deserialize(legacy.serialize(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+        assertThat(serializer.deserialize(legacy.serialize(Arrays.asList("x", "y")))).isEqualTo(Arrays.asList("x", "y"));
+        assertThat(legacyReads()).isEqualTo(4);
+    }
+
+    @Test
+    void jsonFormatWritesLegacyBytesThatBothFormatsRead() {
+        RedisCodecProperties properties = new RedisCodecProperties();
+        properties.setFormat(RedisCodecProperties.Format.JSON);
+        CompactRedisSerializer jsonWriter = serializer(properties);
+        User user = user(8L, "carol", 41, "pw");
+        byte[] bytes = jsonWriter.serialize(user);
+        assertThat(bytes).isEqualTo(new GenericJackson2JsonRedisSerializer().serialize(user));
+        assertThat(serializer.deserialize(bytes)).isEqualTo(user);
+    }
+
+    @Test
+    void compressesOnlyAtOrAboveThreshold() {
+        RedisCodecProperties properties = new RedisCodecProperties();
+        properties.setCompressionThreshold(DataSize.ofBytes(64));
+        CompactRedisSerializer small = serializer(properties);
+
+        String below = "a".repeat(40);
+        byte[] plain = small.serialize(below);
+        assertThat(plain[1] & CompactRedisSerializer.FLAG_LZ4).isZero();
+
+        String above = "a".repeat(4096);
+        byte[] compressed = small.serialize(above);
+        assertThat(compressed[1] & CompactRedisSerializer.FLAG_LZ4).isEqualTo(CompactRedisSerializer.FLAG_LZ4);
+        assertThat(compressed.length).isLessThan(200);
+        assertThat(small.deserialize(compressed)).isEqualTo(above);
+
+        User big = user(9L, above, 1, above);
+        byte[] compressedUser = small.serialize(big);
+        assertThat(compressedUser[1] & CompactRedisSerializer.FLAG_LZ4).isEqualTo(CompactRedisSerializer.FLAG_LZ4);
+        assertThat(small.deserialize(compressedUser)).isEqualTo(big);
+    }
+
+    @Test
+    void keepsIncompressibleValuesUncompressed() {
+        RedisCodecProperties properties = new RedisCodecProperties();
+        properties.setCompressionThreshold(DataSize.ofBytes(16));
+        CompactRedisSerializer small = serializer(properties);
+        Random random = new Random(42);
+        StringBuilder noise = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            noise.append((char) ('!' + random.nextInt(90)));
+        }
+        byte[] bytes = small.serialize(noise.toString());
+        assertThat(bytes[1] & CompactRedisSerializer.FLAG_LZ4).isZero();
+        assertThat(small.deserialize(bytes)).isEqualTo(noise.toString());
+    }
+
+    @Test
+    void compressionCanBeDisabled() {
+        RedisCodecProperties properties = new RedisCodecProperties();
+        properties.setCompressionEnabled(false);
+        byte[] bytes = serializer(properties).serialize("a".repeat(8192));
+        assertThat(bytes[1] & CompactRedisSerializer.FLAG_LZ4).isZero();
+    }
+
+    @Test
+    void rejectsReservedOrDuplicateTypeIds() {
+        RedisTypeCodec<User> reserved = new UserRedisCodec() {
+            @Override
+            public int typeId() {
+                return CompactRedisSerializer.TYPE_JSON;
+            }
+        };
+        assertThatThrownBy(() -> new CompactRedisSerializer(Collections.singletonList(reserved),
+                new RedisCodecProperties(), meterRegistry)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CompactRedisSerializer(Arrays.asList(new UserRedisCodec(), new UserRedisCodec()),
+                new RedisCodecProperties(), meterRegistry)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CompactRedisSerializer serializer(RedisCodecProperties properties) {
+        return new CompactRedisSerializer(Collections.singletonList(new UserRedisCodec()), properties, meterRegistry);
+    }
+
+    private double legacyReads() {
+        return meterRegistry.get("redis.codec.legacy.reads").counter().count();
+    }
+
+    private static User user(Long id, String username, Integer age, String password) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setAge(age);
+        user.setPassword(password);
+        return user;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关缓存的一条响应（只缓存 200）
+ */
+public class CachedResponse {
+
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    // 收到（或最近一次确认有效）的时间、新鲜期截止时间，毫秒
+    private final long storedAt;
+    private final long freshUntil;
+
+    public CachedResponse(HttpHeaders headers, byte[] body, long storedAt, long freshUntil) {
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = headers.getETag();
+        this.storedAt = storedAt;
+        this.freshUntil = freshUntil;
+    }
+
+    /**
+     * 上游回 304 确认没变：换上新的新鲜期，头部以 304 带回来的为准（ETag、Cache-Control 可能更新）
+     */
+    public CachedResponse revalidated(HttpHeaders notModifiedHeaders, long now, long freshUntil) {
+        HttpHeaders merged = new HttpHeaders();
+        merged.putAll(headers);
+        notModifiedHeaders.forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && !HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+                merged.put(name, values);
+            }
+        });
+        return new CachedResponse(merged, body, now, freshUntil);
+    }
+
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    /**
+     * 已在缓存里待了多少秒（Age 响应头）
+     */
+    public long ageSeconds(long now) {
+        return Math.max(0, (now - storedAt) / 1000);
+    }
+
+    /**
+     * 客户端的 If-None-Match 是否命中（弱比较，* 匹配任意）
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String mine = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag) || stripWeak(tag).equals(mine)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 占用内存估算（淘汰按字节数）
+     */
+    public int weight() {
+        int size = body.length + 64;
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            size += entry.getKey().length();
+            for (String value : entry.getValue()) {
+                size += value.length();
+            }
+        }
+        return size;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 网关响应缓存的存储（所有开启 ResponseCache 的路由共用）
+ *
+ * 1. 按字节数限制总大小（gateway.response-cache.max-size），超出按 W-TinyLFU 淘汰
+ * 2. 过了新鲜期的响应先不删，留 stale-retention 用来带 If-None-Match 找上游确认，没变就不用重新传输
+ */
+@Component
+public class ResponseCacheStore {
+
+    private final Cache<String, CachedResponse> cache;
+
+    public ResponseCacheStore(@Value("${gateway.response-cache.max-size:16MB}") DataSize maxSize,
+                              @Value("${gateway.response-cache.stale-retention:10m}") Duration staleRetention,
+                              MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+                .expireAfterWrite(staleRetention)
+                .build();
+        Gauge.builder("gateway.response.cache.size", cache, Cache::estimatedSize)
+                .description("网关缓存的响应个数")
+                .register(meterRegistry);
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    /**
+     * 丢弃某个路径下的所有缓存（不区分 Accept / 查询参数）
+     */
+    public void invalidatePath(String path) {
+        cache.asMap().keySet().removeIf(key -> key.startsWith(path + "?") || key.startsWith(path + "|"));
+    }
+
+    /**
+     * 缓存键：路径 + 查询参数 + Accept（同一个地址 JSON 和 Smile 要分开缓存）
+     */
+    public static String key(String path, String query, String accept) {
+        StringBuilder key = new StringBuilder(path);
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        return key.append('|').append(accept == null ? "" : accept).toString();
+    }
+}
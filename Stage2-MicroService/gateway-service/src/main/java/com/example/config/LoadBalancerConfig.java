@@ -0,0 +1,13 @@
+package com.example.config;
+
+import com.example.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 负载均衡配置：loadbalancer.strategy=peak-ewma 时，所有 lb:// 路由使用延迟感知负载均衡
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,92 @@
+package com.example.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 截止时间（deadline）过滤器：给每个请求一个端到端的时间预算，并通过请求头往下游传递
+ *
+ * 1. 预算来自路由 metadata 的 response-timeout（单位毫秒，网关自己也按它超时），没配置用默认值
+ * 2. 客户端自带了预算头时取两者较小值（客户端只能缩短，不能延长）
+ * 3. 下游每一跳收到后换算成本地截止时间，调用下一跳前再把剩余预算写回请求头
+ * 用相对剩余毫秒数而不是绝对时间戳，避免各机器时钟不一致
+ * 预算头或路由 response-timeout 不是数字时忽略，按默认预算处理；路由配置写错只记一次日志
+ */
+@Slf4j
+@Component
+public class DeadlineFilter implements GlobalFilter, Ordered {
+
+    public static final String BUDGET_HEADER = "X-Request-Budget-Ms";
+
+    @Value("${deadline.default-budget-ms:3000}")
+    private long defaultBudgetMs;
+
+    // response-timeout 配置非法、已经记过日志的路由
+    private final Set<String> invalidRoutes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        long budgetMs = routeBudget(exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR));
+
+        String clientBudget = request.getHeaders().getFirst(BUDGET_HEADER);
+        if (clientBudget != null) {
+            try {
+                budgetMs = Math.min(budgetMs, Long.parseLong(clientBudget.trim()));
+            } catch (NumberFormatException ignored) {
+                // 非法值忽略，使用路由预算
+            }
+        }
+
+        // 预算已耗尽，直接拒绝，不再占用下游资源
+        if (budgetMs <= 0) {
+            exchange.getResponse().setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+            return exchange.getResponse().setComplete();
+        }
+
+        ServerHttpRequest mutated = request.mutate()
+                .header(BUDGET_HEADER, String.valueOf(budgetMs))
+                .build();
+        return chain.filter(exchange.mutate().request(mutated).build());
+    }
+
+    private long routeBudget(Route route) {
+        if (route != null) {
+            Object timeout = route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+            if (timeout instanceof Number) {
+                return ((Number) timeout).longValue();
+            }
+            if (timeout != null) {
+                try {
+                    return Long.parseLong(timeout.toString().trim());
+                } catch (NumberFormatException e) {
+                    if (invalidRoutes.add(route.getId())) {
+                        log.error("路由 {} 的 metadata.{} 不是毫秒数：{}，使用默认预算 {}ms",
+                                route.getId(), RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, timeout, defaultBudgetMs);
+                    }
+                }
+            }
+        }
+        return defaultBudgetMs;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在鉴权（-100）之后执行
+        return -90;
+    }
+}
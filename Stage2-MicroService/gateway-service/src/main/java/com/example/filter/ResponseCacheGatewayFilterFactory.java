@@ -0,0 +1,250 @@
+package com.example.filter;
+
+import com.example.cache.CachedResponse;
+import com.example.cache.ResponseCacheStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 响应缓存过滤器（按路由开启）：filters 里加 "- ResponseCache" 或 "- ResponseCache=30s"（上游没给 max-age 时的默认新鲜期）
+ *
+ * 1. 只缓存 GET 的 200 响应；上游 Cache-Control 为 no-store / private、带 Set-Cookie、Vary 了 Accept 以外的头时不缓存
+ * 2. 新鲜期取上游的 s-maxage / max-age；请求带了 Authorization 时，上游必须声明 public 或 s-maxage 才能共享缓存
+ * 3. 命中且新鲜：直接由网关返回，不访问上游；客户端带 If-None-Match 且 ETag 相同时返回 304
+ * 4. 过期但有 ETag：带 If-None-Match 找上游确认，上游回 304 就续期并返回缓存内容，只多一次无包体的往返
+ * 5. 客户端 Cache-Control: no-cache 强制找上游确认，no-store 完全绕过缓存
+ * 6. 同一路由上 PUT / POST / DELETE 等修改请求成功后，丢弃该路径的缓存
+ * 指标：gateway.response.cache{route, result=hit|miss|revalidated|bypass}
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private final ResponseCacheStore store;
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("defaultTtl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // 在鉴权（-100）、截止时间（-90）之后，在写响应（NettyWriteResponseFilter）之前
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, config),
+                NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getRawPath();
+        HttpMethod method = request.getMethod();
+        if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return chain.filter(exchange);
+        }
+        if (!HttpMethod.GET.equals(method)) {
+            return chain.filter(exchange).doOnSuccess(done -> {
+                if (exchange.getResponse().getStatusCode() != null && exchange.getResponse().getStatusCode().is2xxSuccessful()) {
+                    store.invalidatePath(path);
+                }
+            });
+        }
+
+        String requestCacheControl = lower(request.getHeaders().getCacheControl());
+        if (requestCacheControl.contains("no-store")) {
+            count(exchange, "bypass");
+            return chain.filter(exchange);
+        }
+
+        String key = ResponseCacheStore.key(path, request.getURI().getRawQuery(), request.getHeaders().getFirst(HttpHeaders.ACCEPT));
+        String ifNoneMatch = request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        long now = System.currentTimeMillis();
+        CachedResponse cached = store.get(key);
+        if (cached != null && cached.isFresh(now) && !requestCacheControl.contains("no-cache")) {
+            count(exchange, "hit");
+            return serveCached(exchange.getResponse(), cached, ifNoneMatch, now, "HIT");
+        }
+
+        ServerHttpRequest forward = request;
+        CachedResponse revalidating = null;
+        if (cached != null && cached.getEtag() != null) {
+            // 过期了但有 ETag：带着它去上游确认
+            revalidating = cached;
+            forward = request.mutate()
+                    .headers(headers -> headers.set(HttpHeaders.IF_NONE_MATCH, cached.getEtag()))
+                    .build();
+        }
+        CachingResponse response = new CachingResponse(exchange, key, config, revalidating, ifNoneMatch);
+        return chain.filter(exchange.mutate().request(forward).response(response).build());
+    }
+
+    private Mono<Void> serveCached(ServerHttpResponse response, CachedResponse cached, String ifNoneMatch, long now,
+                                   String cacheStatus) {
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.getHeaders());
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.ageSeconds(now)));
+        headers.set(CACHE_HEADER, cacheStatus);
+        if (cached.matches(ifNoneMatch)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    /**
+     * 根据上游响应头算新鲜期截止时间，不能缓存返回 -1
+     */
+    private long freshUntil(ServerHttpRequest request, HttpHeaders headers, Config config, long now) {
+        String cacheControl = lower(headers.getCacheControl());
+        if (cacheControl.contains("no-store") || cacheControl.contains("private") || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return -1;
+        }
+        for (String vary : headers.getVary()) {
+            if (!HttpHeaders.ACCEPT.equalsIgnoreCase(vary) && !HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(vary)) {
+                return -1;
+            }
+        }
+        long sharedMaxAge = directiveSeconds(cacheControl, "s-maxage");
+        boolean sharable = sharedMaxAge >= 0 || cacheControl.contains("public");
+        if (request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION) && !sharable) {
+            return -1;
+        }
+        long maxAge = sharedMaxAge >= 0 ? sharedMaxAge : directiveSeconds(cacheControl, "max-age");
+        if (maxAge < 0) {
+            if (config.getDefaultTtl() == null || config.getDefaultTtl().isZero()) {
+                return -1;
+            }
+            return now + config.getDefaultTtl().toMillis();
+        }
+        return maxAge == 0 ? -1 : now + maxAge * 1000;
+    }
+
+    private static long directiveSeconds(String cacheControl, String directive) {
+        for (String part : cacheControl.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.startsWith(directive + "=")) {
+                try {
+                    return Long.parseLong(trimmed.substring(directive.length() + 1).replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private void count(ServerWebExchange exchange, String result) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        meterRegistry.counter("gateway.response.cache",
+                "route", route == null ? "unknown" : route.getId(),
+                "result", result).increment();
+    }
+
+    /**
+     * 拦截上游响应：200 且可缓存就存下来；上游对确认请求回 304 就用缓存内容答复
+     */
+    private class CachingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Config config;
+        private final CachedResponse revalidating;
+        private final String clientIfNoneMatch;
+
+        CachingResponse(ServerWebExchange exchange, String key, Config config,
+                        CachedResponse revalidating, String clientIfNoneMatch) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.config = config;
+            this.revalidating = revalidating;
+            this.clientIfNoneMatch = clientIfNoneMatch;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long now = System.currentTimeMillis();
+            HttpHeaders headers = getDelegate().getHeaders();
+
+            if (revalidating != null && HttpStatus.NOT_MODIFIED.equals(getStatusCode())) {
+                long freshUntil = freshUntil(exchange.getRequest(), headers, config, now);
+                CachedResponse refreshed = revalidating.revalidated(headers, now, Math.max(freshUntil, now));
+                store.put(key, refreshed);
+                count(exchange, "revalidated");
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> serveCached(getDelegate(), refreshed, clientIfNoneMatch, now, "REVALIDATED")));
+            }
+
+            count(exchange, "miss");
+            if (!HttpStatus.OK.equals(getStatusCode())) {
+                return super.writeWith(body);
+            }
+            long freshUntil = freshUntil(exchange.getRequest(), headers, config, now);
+            if (freshUntil < 0) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+                HttpHeaders toCache = new HttpHeaders();
+                toCache.putAll(headers);
+                toCache.remove(HttpHeaders.TRANSFER_ENCODING);
+                toCache.remove(HttpHeaders.CONNECTION);
+                toCache.remove(CACHE_HEADER);
+                store.put(key, new CachedResponse(toCache, bytes, now, freshUntil));
+                headers.set(CACHE_HEADER, "MISS");
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+    }
+
+    @Data
+    public static class Config {
+
+        /**
+         * 上游没有给 max-age / s-maxage 时的新鲜期，0 表示这种响应不缓存
+         */
+        private Duration defaultTtl = Duration.ZERO;
+    }
+}
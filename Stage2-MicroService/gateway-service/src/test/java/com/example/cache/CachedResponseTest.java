@@ -0,0 +1,87 @@
+package com.example.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 缓存条目：ETag 比较、新鲜期、304 续期；缓存键和按路径失效
+ */
+class CachedResponseTest {
+
+    @Test
+    void matchesIfNoneMatchWithWeakComparison() {
+        CachedResponse response = response("\"v1\"", 0, 1000);
+        assertThat(response.matches("\"v1\"")).isTrue();
+        assertThat(response.matches("W/\"v1\"")).isTrue();
+        assertThat(response.matches("\"v0\", \"v1\"")).isTrue();
+        assertThat(response.matches("*")).isTrue();
+        assertThat(response.matches("\"v2\"")).isFalse();
+        assertThat(response.matches(null)).isFalse();
+        assertThat(response("W/\"v1\"", 0, 1000).matches("\"v1\"")).isTrue();
+        assertThat(response(null, 0, 1000).matches("*")).isFalse();
+    }
+
+    @Test
+    void freshnessAndAge() {
+        CachedResponse response = response("\"v1\"", 10_000, 70_000);
+        assertThat(response.isFresh(69_999)).isTrue();
+        assertThat(response.isFresh(70_000)).isFalse();
+        assertThat(response.ageSeconds(15_500)).isEqualTo(5);
+        assertThat(response.ageSeconds(0)).isZero();
+    }
+
+    @Test
+    void revalidationKeepsBodyAndTakesNewHeaders() {
+        CachedResponse response = response("\"v1\"", 0, 1000);
+        HttpHeaders notModified = new HttpHeaders();
+        notModified.setETag("\"v2\"");
+        notModified.setCacheControl("max-age=120");
+        notModified.setContentLength(0);
+
+        CachedResponse refreshed = response.revalidated(notModified, 5000, 125_000);
+        assertThat(refreshed.getBody()).isEqualTo(response.getBody());
+        assertThat(refreshed.getEtag()).isEqualTo("\"v2\"");
+        assertThat(refreshed.getHeaders().getCacheControl()).isEqualTo("max-age=120");
+        // 304 的 Content-Length 是 0，不能覆盖缓存内容的长度
+        assertThat(refreshed.getHeaders().getContentLength()).isEqualTo(response.getBody().length);
+        assertThat(refreshed.isFresh(100_000)).isTrue();
+        assertThat(refreshed.ageSeconds(7000)).isEqualTo(2);
+    }
+
+    @Test
+    void storeKeysByPathQueryAndAcceptAndInvalidatesWholePath() {
+        ResponseCacheStore store = new ResponseCacheStore(DataSize.ofMegabytes(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        String json = ResponseCacheStore.key("/user/1", null, "application/json");
+        String smile = ResponseCacheStore.key("/user/1", null, "application/x-jackson-smile");
+        String query = ResponseCacheStore.key("/user/1", "fields=name", null);
+        String other = ResponseCacheStore.key("/user/10", null, "application/json");
+        assertThat(json).isNotEqualTo(smile);
+        for (String key : new String[]{json, smile, query, other}) {
+            store.put(key, response("\"v1\"", 0, 1000));
+        }
+
+        store.invalidatePath("/user/1");
+        assertThat(store.get(json)).isNull();
+        assertThat(store.get(smile)).isNull();
+        assertThat(store.get(query)).isNull();
+        // 前缀相同的其它路径不受影响
+        assertThat(store.get(other)).isNotNull();
+    }
+
+    private static CachedResponse response(String etag, long storedAt, long freshUntil) {
+        byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        headers.setContentLength(body.length);
+        return new CachedResponse(headers, body, storedAt, freshUntil);
+    }
+}
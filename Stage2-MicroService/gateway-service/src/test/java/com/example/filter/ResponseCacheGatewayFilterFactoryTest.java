@@ -0,0 +1,171 @@
+package com.example.filter;
+
+import com.example.cache.CachedResponse;
+import com.example.cache.ResponseCacheStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 响应缓存过滤器：命中、304、过期后带 ETag 找上游确认、不该缓存的不缓存、修改后失效
+ */
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String PATH = "/user/1";
+    private static final String BODY = "{\"id\":1,\"name\":\"alice\"}";
+
+    private ResponseCacheStore store;
+    private GatewayFilter filter;
+    private Upstream upstream;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        store = new ResponseCacheStore(DataSize.ofMegabytes(1), Duration.ofMinutes(10), meterRegistry);
+        ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(store, meterRegistry);
+        filter = factory.apply(new ResponseCacheGatewayFilterFactory.Config());
+        upstream = new Upstream();
+    }
+
+    @Test
+    void servesSecondGetFromCache() {
+        upstream.cacheControl = "max-age=60";
+
+        MockServerWebExchange first = get(MockServerHttpRequest.get(PATH));
+        assertThat(first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)).isEqualTo("MISS");
+        assertThat(first.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+
+        MockServerWebExchange second = get(MockServerHttpRequest.get(PATH));
+        assertThat(upstream.calls.get()).isEqualTo(1);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)).isEqualTo("HIT");
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo("\"v1\"");
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWith304() {
+        upstream.cacheControl = "max-age=60";
+        get(MockServerHttpRequest.get(PATH));
+
+        MockServerWebExchange conditional = get(MockServerHttpRequest.get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"v1\""));
+        assertThat(upstream.calls.get()).isEqualTo(1);
+        assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(conditional.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    @Test
+    void revalidatesExpiredEntryWithEtag() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+        headers.setContentLength(BODY.length());
+        long past = System.currentTimeMillis() - 120_000;
+        String key = ResponseCacheStore.key(PATH, null, null);
+        store.put(key, new CachedResponse(headers, BODY.getBytes(StandardCharsets.UTF_8), past, past + 60_000));
+        upstream.cacheControl = "max-age=60";
+        upstream.notModified = true;
+
+        MockServerWebExchange exchange = get(MockServerHttpRequest.get(PATH));
+        assertThat(upstream.lastIfNoneMatch.get()).isEqualTo("\"v1\"");
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)).isEqualTo("REVALIDATED");
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(store.get(key).isFresh(System.currentTimeMillis())).isTrue();
+    }
+
+    @Test
+    void doesNotCachePrivateOrUnsharedAuthorizedResponses() {
+        upstream.cacheControl = "private, max-age=60";
+        get(MockServerHttpRequest.get(PATH));
+        get(MockServerHttpRequest.get(PATH));
+        assertThat(upstream.calls.get()).isEqualTo(2);
+
+        upstream.cacheControl = "max-age=60";
+        get(MockServerHttpRequest.get(PATH).header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+        get(MockServerHttpRequest.get(PATH).header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+        assertThat(upstream.calls.get()).isEqualTo(4);
+
+        // 声明了 public 的可以共享
+        upstream.cacheControl = "public, max-age=60";
+        get(MockServerHttpRequest.get(PATH).header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+        get(MockServerHttpRequest.get(PATH).header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+        assertThat(upstream.calls.get()).isEqualTo(5);
+    }
+
+    @Test
+    void clientNoStoreBypassesCache() {
+        upstream.cacheControl = "max-age=60";
+        get(MockServerHttpRequest.get(PATH));
+        get(MockServerHttpRequest.get(PATH).header(HttpHeaders.CACHE_CONTROL, "no-store"));
+        assertThat(upstream.calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void successfulWriteInvalidatesPath() {
+        upstream.cacheControl = "max-age=60";
+        get(MockServerHttpRequest.get(PATH));
+        assertThat(store.get(ResponseCacheStore.key(PATH, null, null))).isNotNull();
+
+        MockServerWebExchange put = MockServerWebExchange.from(MockServerHttpRequest.put(PATH));
+        filter.filter(put, exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            return exchange.getResponse().setComplete();
+        }).block();
+        assertThat(store.get(ResponseCacheStore.key(PATH, null, null))).isNull();
+    }
+
+    private MockServerWebExchange get(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    /**
+     * 假上游：200 + ETag "v1"，或者对带 If-None-Match 的请求回 304
+     */
+    private static class Upstream implements GatewayFilterChain {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicReference<String> lastIfNoneMatch = new AtomicReference<>();
+        private String cacheControl;
+        private boolean notModified;
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            calls.incrementAndGet();
+            String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+            lastIfNoneMatch.set(ifNoneMatch);
+            ServerHttpResponse response = exchange.getResponse();
+            response.getHeaders().setETag("\"v1\"");
+            if (cacheControl != null) {
+                response.getHeaders().setCacheControl(cacheControl);
+            }
+            if (notModified && ifNoneMatch != null) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                return response.writeWith(Flux.empty());
+            }
+            response.setStatusCode(HttpStatus.OK);
+            byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+            response.getHeaders().setContentLength(body.length);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+    }
+}
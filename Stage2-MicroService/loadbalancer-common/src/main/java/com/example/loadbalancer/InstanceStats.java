@@ -0,0 +1,61 @@
+package com.example.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个实例的负载统计：在途请求数 + 耗时的峰值指数加权移动平均（Peak EWMA）
+ *
+ * - EWMA 按时间衰减：距上次更新越久，旧值权重越小（decayNanos 为时间常数）
+ * - 「峰值」：新耗时比均值大时直接取新值，实例一变慢（GC、过载）马上被感知；变快则慢慢回落
+ * - 负载代价 cost = (ewma + 1) * (inFlight + 1)，越小越优先
+ */
+public class InstanceStats {
+
+    private final String instance;
+    private final long decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private double ewmaMillis;
+    private long lastUpdateNanos = System.nanoTime();
+
+    public InstanceStats(String instance, long decayNanos) {
+        this.instance = instance;
+        this.decayNanos = decayNanos;
+    }
+
+    public void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    public void onComplete(double latencyMillis) {
+        // 实例下线后又用同一地址上线时，统计是新建的，没有对应的 onStart，不能减成负数
+        inFlight.updateAndGet(n -> Math.max(0, n - 1));
+        record(latencyMillis);
+    }
+
+    private synchronized void record(double latencyMillis) {
+        long now = System.nanoTime();
+        if (latencyMillis > ewmaMillis) {
+            ewmaMillis = latencyMillis;
+        } else {
+            double weight = Math.exp(-(double) Math.max(0, now - lastUpdateNanos) / decayNanos);
+            ewmaMillis = ewmaMillis * weight + latencyMillis * (1 - weight);
+        }
+        lastUpdateNanos = now;
+    }
+
+    public synchronized double ewmaMillis() {
+        return ewmaMillis;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public double cost() {
+        return (ewmaMillis() + 1) * (inFlight() + 1);
+    }
+
+    public String getInstance() {
+        return instance;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 所有实例的负载统计，并以指标形式暴露负载均衡决策：
+ * loadbalancer.instance.ewma / loadbalancer.instance.inflight / loadbalancer.picks（标签 service、instance）
+ *
+ * 按服务分组；服务的实例列表变化时调用 retain，已经下线的实例（包括每次发布都换地址的实例）连同指标一起删掉
+ */
+@Component
+@ConditionalOnProperty(name = "loadbalancer.strategy", havingValue = "peak-ewma")
+public class InstanceStatsRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final long decayNanos;
+    // serviceId -> (host:port -> 统计)
+    private final Map<String, Map<String, Tracked>> services = new ConcurrentHashMap<>();
+
+    public InstanceStatsRegistry(MeterRegistry meterRegistry,
+                                 @Value("${loadbalancer.peak-ewma.decay:10s}") Duration decay) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = decay.toNanos();
+    }
+
+    public InstanceStats stats(ServiceInstance instance) {
+        return tracked(instance).stats;
+    }
+
+    /**
+     * 只查不建：实例已经被 retain 删掉时返回 null
+     */
+    public InstanceStats find(ServiceInstance instance) {
+        Map<String, Tracked> instances = services.get(instance.getServiceId());
+        Tracked tracked = instances == null ? null : instances.get(key(instance));
+        return tracked == null ? null : tracked.stats;
+    }
+
+    public void recordPick(ServiceInstance instance) {
+        tracked(instance).picks.increment();
+    }
+
+    /**
+     * 只保留服务当前实例列表里的实例，其余的统计和指标都删掉
+     */
+    public void retain(String serviceId, List<ServiceInstance> current) {
+        Map<String, Tracked> instances = services.get(serviceId);
+        if (instances == null) {
+            return;
+        }
+        Set<String> keys = new HashSet<>(current.size() * 2);
+        for (ServiceInstance instance : current) {
+            keys.add(key(instance));
+        }
+        instances.entrySet().removeIf(entry -> {
+            if (keys.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().remove(meterRegistry);
+            return true;
+        });
+    }
+
+    private Tracked tracked(ServiceInstance instance) {
+        String serviceId = instance.getServiceId();
+        return services.computeIfAbsent(serviceId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key(instance), k -> new Tracked(serviceId, k));
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * 一个实例的统计和它注册的指标，删除时一起注销
+     */
+    private final class Tracked {
+
+        private final InstanceStats stats;
+        private final Meter ewma;
+        private final Meter inFlight;
+        private final Counter picks;
+
+        private Tracked(String serviceId, String instance) {
+            this.stats = new InstanceStats(instance, decayNanos);
+            this.ewma = Gauge.builder("loadbalancer.instance.ewma", stats, InstanceStats::ewmaMillis)
+                    .description("实例耗时 Peak EWMA")
+                    .baseUnit("milliseconds")
+                    .tag("service", serviceId)
+                    .tag("instance", instance)
+                    .register(meterRegistry);
+            this.inFlight = Gauge.builder("loadbalancer.instance.inflight", stats, InstanceStats::inFlight)
+                    .description("实例在途请求数")
+                    .tag("service", serviceId)
+                    .tag("instance", instance)
+                    .register(meterRegistry);
+            this.picks = Counter.builder("loadbalancer.picks")
+                    .description("负载均衡选中次数")
+                    .tag("service", serviceId)
+                    .tag("instance", instance)
+                    .register(meterRegistry);
+        }
+
+        private void remove(MeterRegistry registry) {
+            registry.remove(ewma);
+            registry.remove(inFlight);
+            registry.remove(picks);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 延迟感知负载均衡：随机挑两个实例（power-of-two-choices），选负载代价小的那个
+ *
+ * 代价 = (Peak EWMA 耗时 + 1) * (在途请求数 + 1)，统计由 PeakEwmaLoadBalancerLifecycle 维护。
+ * 和轮询相比，正在 GC 或过载的实例代价会迅速升高，流量自动绕开；
+ * 只比较两个随机实例，避免所有请求同时涌向「当前最优」的那一个
+ */
+@Slf4j
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final String serviceId;
+    private final InstanceStatsRegistry statsRegistry;
+    // 上次看到的实例列表；列表换了（实例上下线）就清掉不在新列表里的统计
+    private volatile List<ServiceInstance> lastInstances;
+
+    public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                String serviceId, InstanceStatsRegistry statsRegistry) {
+        this.supplierProvider = supplierProvider;
+        this.serviceId = serviceId;
+        this.statsRegistry = statsRegistry;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback && response.hasServer()) {
+                ((SelectedInstanceCallback) supplier).selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances != lastInstances) {
+            lastInstances = instances;
+            statsRegistry.retain(serviceId, instances);
+        }
+        if (instances.isEmpty()) {
+            log.warn("没有可用实例：{}", serviceId);
+            return new EmptyResponse();
+        }
+        ServiceInstance chosen;
+        if (instances.size() == 1) {
+            chosen = instances.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(instances.size());
+            int second = random.nextInt(instances.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            ServiceInstance a = instances.get(first);
+            ServiceInstance b = instances.get(second);
+            InstanceStats statsA = statsRegistry.stats(a);
+            InstanceStats statsB = statsRegistry.stats(b);
+            double costA = statsA.cost();
+            double costB = statsB.cost();
+            chosen = costA <= costB ? a : b;
+            log.debug("负载均衡 {}：{}(cost={}, ewma={}ms, inflight={}) vs {}(cost={}, ewma={}ms, inflight={}) -> {}",
+                    serviceId,
+                    statsA.getInstance(), costA, statsA.ewmaMillis(), statsA.inFlight(),
+                    statsB.getInstance(), costB, statsB.ewmaMillis(), statsB.inFlight(),
+                    chosen == a ? statsA.getInstance() : statsB.getInstance());
+        }
+        statsRegistry.recordPick(chosen);
+        return new DefaultResponse(chosen);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 维护实例统计：请求发出时在途数 +1，完成时 -1 并记录耗时；失败按 failure-penalty 计耗时，让出错的实例被避开
+ */
+@Component
+@ConditionalOnProperty(name = "loadbalancer.strategy", havingValue = "peak-ewma")
+public class PeakEwmaLoadBalancerLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final InstanceStatsRegistry statsRegistry;
+    private final double failurePenaltyMillis;
+
+    public PeakEwmaLoadBalancerLifecycle(InstanceStatsRegistry statsRegistry,
+                                         @Value("${loadbalancer.peak-ewma.failure-penalty:1s}") Duration failurePenalty) {
+        this.statsRegistry = statsRegistry;
+        this.failurePenaltyMillis = failurePenalty.toMillis();
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext) {
+            ((TimedRequestContext) request.getContext()).setRequestStartTime(System.nanoTime());
+        }
+        statsRegistry.stats(lbResponse.getServer()).onStart();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        double latencyMillis = 0;
+        Object context = completionContext.getLoadBalancerRequest().getContext();
+        if (context instanceof TimedRequestContext) {
+            latencyMillis = (System.nanoTime() - ((TimedRequestContext) context).getRequestStartTime()) / 1_000_000.0;
+        }
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            latencyMillis = Math.max(latencyMillis, failurePenaltyMillis);
+        }
+        // 请求期间实例已经下线、统计被删掉的话，不再为它重建
+        InstanceStats stats = statsRegistry.find(lbResponse.getServer());
+        if (stats != null) {
+            stats.onComplete(latencyMillis);
+        }
+    }
+}
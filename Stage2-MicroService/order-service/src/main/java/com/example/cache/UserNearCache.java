@@ -0,0 +1,227 @@
+package com.example.cache;
+
+import com.example.client.ResilientUserClient;
+import com.example.config.UserCacheProperties;
+import com.example.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户近端缓存：包在 UserFeignClient 外面的本地读穿缓存
+ *
+ * 1. 读穿：本地没有才远程调用 user-service，同一个 id 的并发加载只会打一次远程
+ * 2. 容量上限：maximumSize，超出自动淘汰
+ * 3. 提前刷新：写入超过 refreshAhead 后被读到，先返回旧值再异步刷新
+ * 4. 过期后旧值兜底：ttl 之后的 staleWhileRevalidate 窗口内仍返回旧值，刷新失败也保留旧值
+ * 5. 失效通知：user-service 修改用户后回调 invalidate，立刻丢弃本地副本（包括降级用的旧数据）；
+ *    失效前就开始的回源 / 刷新拿到的数据可能是旧的，不会再写回 cache 和 lastKnown
+ * 6. 降级：只有暂时性故障（熔断打开、舱壁满、线程池满、连接失败 / 读超时）才用最近一次成功的旧数据，没有旧数据抛
+ *    UserUnavailableException（503），不编造只带 id 的用户；404 等 4xx、截止时间已过原样抛出，不降级
+ *
+ * 未命中时不用 cache.get(key) 回源：Caffeine 在 ConcurrentHashMap.compute 里调用 loader，远程调用期间持有
+ * synchronized 锁，虚拟线程会被钉住。改成 inFlight 表去重，由第一个请求在自己线程上回源，其它请求等它的结果
+ */
+@Slf4j
+@Component
+public class UserNearCache implements DisposableBean {
+
+    private final ResilientUserClient userClient;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final LoadingCache<Long, User> cache;
+    // 最近一次成功的数据，保留更久，只在降级时使用
+    private final Cache<Long, User> lastKnown;
+    // 正在回源的 id，同一个 id 同时只回源一次
+    private final ConcurrentHashMap<Long, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+    // 每次失效加一：后台刷新没有 inFlight 条目，靠它判断刷新期间有没有失效过
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Counter staleFallback;
+    private final Counter unavailable;
+
+    public UserNearCache(ResilientUserClient userClient, UserCacheProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getRefreshAhead().compareTo(properties.getTtl()) >= 0) {
+            throw new IllegalArgumentException("user-cache.refresh-ahead 必须小于 user-cache.ttl");
+        }
+        this.userClient = userClient;
+        // 刷新是尽力而为：队列满直接拒绝（Caffeine 会记日志并保留旧值），不会回落到请求线程
+        this.refreshExecutor = new ThreadPoolExecutor(
+                properties.getRefreshThreads(),
+                properties.getRefreshThreads(),
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(1000),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setName("user-cache-refresh-" + count.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .refreshAfterWrite(properties.getRefreshAhead())
+                .expireAfterWrite(properties.getTtl().plus(properties.getStaleWhileRevalidate()))
+                .executor(refreshExecutor)
+                .recordStats()
+                .build(this::load);
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getFallbackRetention())
+                .build();
+        this.staleFallback = Counter.builder("user.cache.fallback")
+                .description("user-service 不可用时的降级次数")
+                .tag("type", "stale")
+                .register(meterRegistry);
+        this.unavailable = Counter.builder("user.cache.fallback")
+                .description("user-service 不可用时的降级次数")
+                .tag("type", "unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询用户（优先本地缓存）
+     * @param userId 用户ID
+     * @return 用户信息，user-service 返回空时为 null；user-service 暂时不可用时返回旧数据
+     * @throws UserUnavailableException user-service 暂时不可用且没有旧数据
+     */
+    public User getUser(Long userId) {
+        // getIfPresent 同样会触发提前刷新
+        User cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return loadOnce(userId);
+        } catch (RuntimeException e) {
+            if (!isTransient(e)) {
+                throw e;
+            }
+            return fallback(userId, e);
+        }
+    }
+
+    /**
+     * 失效单个用户（收到 user-service 变更通知时调用）
+     */
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        inFlight.remove(userId);
+        cache.invalidate(userId);
+        lastKnown.invalidate(userId);
+        log.debug("用户近端缓存失效，userId={}", userId);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        inFlight.clear();
+        cache.invalidateAll();
+        lastKnown.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private User loadOnce(Long userId) {
+        CompletableFuture<User> mine = new CompletableFuture<>();
+        CompletableFuture<User> existing = inFlight.putIfAbsent(userId, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            User user = fetch(userId);
+            // 回源期间收到失效通知的话（inFlight 里已不是自己），这份数据可能是旧的，不放进缓存
+            if (user != null && inFlight.get(userId) == mine) {
+                cache.put(userId, user);
+                lastKnown.put(userId, user);
+                // 检查和写入之间也可能刚好失效，写完再看一次，变了就撤掉
+                if (inFlight.get(userId) != mine) {
+                    cache.invalidate(userId);
+                    lastKnown.invalidate(userId);
+                }
+            }
+            mine.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(userId, mine);
+        }
+    }
+
+    /**
+     * Caffeine 后台刷新用：刷新期间失效过的话不记旧数据（Caffeine 自己也会丢弃这次刷新的结果）
+     */
+    private User load(Long userId) {
+        long version = invalidations.get();
+        User user = fetch(userId);
+        if (user != null && invalidations.get() == version) {
+            lastKnown.put(userId, user);
+            if (invalidations.get() != version) {
+                lastKnown.invalidate(userId);
+            }
+        }
+        return user;
+    }
+
+    private User fetch(Long userId) {
+        log.debug("用户近端缓存回源，userId={}", userId);
+        return userClient.getUserById(userId);
+    }
+
+    /**
+     * 暂时性故障：熔断打开、舱壁满、对冲线程池满、连接失败 / 读超时（Feign 的 RetryableException）
+     * 404 之类是 user-service 的正常答复，截止时间已过说明上游已经放弃，都不能拿旧数据顶替
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof CallNotPermittedException
+                || e instanceof BulkheadFullException
+                || e instanceof RejectedExecutionException
+                || e instanceof RetryableException;
+    }
+
+    private User fallback(Long userId, RuntimeException cause) {
+        User stale = lastKnown.getIfPresent(userId);
+        if (stale != null) {
+            staleFallback.increment();
+            log.warn("user-service 不可用，使用旧数据降级，userId={}，原因：{}", userId, cause.toString());
+            return stale;
+        }
+        unavailable.increment();
+        log.warn("user-service 不可用且无旧数据，userId={}，原因：{}", userId, cause.toString());
+        throw new UserUnavailableException("user-service 暂时不可用，请稍后再试", cause);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+}
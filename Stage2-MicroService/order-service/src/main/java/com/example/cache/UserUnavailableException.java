@@ -0,0 +1,15 @@
+package com.example.cache;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * user-service 暂时不可用，且本地没有可用的旧数据
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UserUnavailableException extends RuntimeException {
+
+    public UserUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
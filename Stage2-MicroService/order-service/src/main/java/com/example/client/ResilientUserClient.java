@@ -0,0 +1,77 @@
+package com.example.client;
+
+import com.example.entity.User;
+import com.example.feign.UserFeignClient;
+import com.example.hedge.HedgingCaller;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 带熔断 + 舱壁隔离的 user-service 调用
+ *
+ * 调用链：熔断器 → 对冲（可选）→ 信号量舱壁（每个实际发出的请求一个许可）→ UserFeignClient
+ * 1. 舱壁：限制同时调用 user-service 的并发数（对冲请求也算），满了立即拒绝，不排队占 Tomcat 线程
+ * 2. 熔断：失败率或慢调用率超阈值就打开，直接拒绝，给 user-service 喘息时间
+ * 被拒绝时抛出 CallNotPermittedException / BulkheadFullException / RejectedExecutionException（对冲线程池满），由调用方走降级
+ */
+@Component
+public class ResilientUserClient {
+
+    public static final String INSTANCE = "user-service";
+
+    private final UserFeignClient userFeignClient;
+    private final HedgingCaller hedgingCaller;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Counter circuitOpenRejected;
+    private final Counter bulkheadFullRejected;
+
+    public ResilientUserClient(UserFeignClient userFeignClient,
+                               HedgingCaller hedgingCaller,
+                               CircuitBreakerRegistry circuitBreakerRegistry,
+                               BulkheadRegistry bulkheadRegistry,
+                               MeterRegistry meterRegistry) {
+        this.userFeignClient = userFeignClient;
+        this.hedgingCaller = hedgingCaller;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(INSTANCE);
+        this.bulkhead = bulkheadRegistry.bulkhead(INSTANCE);
+        this.circuitOpenRejected = Counter.builder("user.client.rejected")
+                .description("user-service 调用被拒绝次数")
+                .tag("reason", "circuit_open")
+                .register(meterRegistry);
+        this.bulkheadFullRejected = Counter.builder("user.client.rejected")
+                .description("user-service 调用被拒绝次数")
+                .tag("reason", "bulkhead_full")
+                .register(meterRegistry);
+    }
+
+    public User getUserById(Long id) {
+        return call(() -> hedgingCaller.call(() -> userFeignClient.getUserById(id), bulkhead));
+    }
+
+    private <T> T call(Supplier<T> supplier) {
+        Supplier<T> decorated = CircuitBreaker.decorateSupplier(circuitBreaker, supplier);
+        try {
+            return decorated.get();
+        } catch (CallNotPermittedException e) {
+            circuitOpenRejected.increment();
+            throw e;
+        } catch (BulkheadFullException e) {
+            bulkheadFullRejected.increment();
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State state() {
+        return circuitBreaker.getState();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.config;
+
+import com.example.deadline.DeadlineAwareRetryer;
+import com.example.deadline.DeadlineCapability;
+import feign.Capability;
+import feign.Retryer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 全局 Feign 配置：截止时间传递 + 按预算重试
+ */
+@Configuration
+public class FeignConfig {
+
+    /**
+     * 给所有 Feign Client 包一层 DeadlineAwareClient
+     */
+    @Bean
+    public Capability deadlineCapability() {
+        return new DeadlineCapability();
+    }
+
+    @Bean
+    public Retryer deadlineAwareRetryer(@Value("${deadline.retry.max-attempts:2}") int maxAttempts,
+                                       @Value("${deadline.retry.backoff-ms:50}") long backoffMs,
+                                       @Value("${deadline.retry.min-budget-ms:300}") long minBudgetMs) {
+        return new DeadlineAwareRetryer(maxAttempts, backoffMs, minBudgetMs);
+    }
+}
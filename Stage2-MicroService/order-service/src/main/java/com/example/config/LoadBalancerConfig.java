@@ -0,0 +1,18 @@
+package com.example.config;
+
+import com.example.loadbalancer.PeakEwmaLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 负载均衡配置
+ * - 所有服务：loadbalancer.strategy=peak-ewma 时使用延迟感知负载均衡（见 PeakEwmaLoadBalancerConfiguration）
+ * - user-service：使用自定义的实例列表（见 UserServiceLoadBalancerConfiguration）
+ */
+@Configuration
+@LoadBalancerClients(
+        value = @LoadBalancerClient(name = "user-service", configuration = UserServiceLoadBalancerConfiguration.class),
+        defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
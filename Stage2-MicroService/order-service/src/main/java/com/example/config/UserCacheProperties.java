@@ -0,0 +1,44 @@
+package com.example.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 用户近端缓存配置（user-cache.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "user-cache")
+public class UserCacheProperties {
+
+    /**
+     * 最多缓存多少个用户（超出按 W-TinyLFU 淘汰）
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 数据新鲜期：写入后多久视为过期
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * 提前刷新：写入超过这个时间后再被读到，就异步回源刷新（必须小于 ttl）
+     */
+    private Duration refreshAhead = Duration.ofSeconds(45);
+
+    /**
+     * 过期后仍可返回旧值的窗口（期间后台回源，user-service 慢也不阻塞下单）
+     */
+    private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+
+    /**
+     * 降级用旧数据的保留时间（user-service 不可用时才会读）
+     */
+    private Duration fallbackRetention = Duration.ofMinutes(30);
+
+    /**
+     * 异步刷新线程数
+     */
+    private int refreshThreads = 2;
+}
@@ -0,0 +1,26 @@
+package com.example.config;
+
+import com.example.hedge.HedgeExclusionServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * user-service 专用的负载均衡子容器配置
+ *
+ * 注意：这里不能加 @Configuration，否则会被组件扫描进主容器，变成所有服务共用
+ */
+public class UserServiceLoadBalancerConfiguration {
+
+    /**
+     * 服务发现 → 缓存 → 对冲排除（对冲请求避开主请求所在实例）
+     */
+    @Bean
+    public ServiceInstanceListSupplier userServiceInstanceListSupplier(ConfigurableApplicationContext context) {
+        return ServiceInstanceListSupplier.builder()
+                .withBlockingDiscoveryClient()
+                .withCaching()
+                .with((ctx, delegate) -> new HedgeExclusionServiceInstanceListSupplier(delegate))
+                .build(context);
+    }
+}
@@ -1,25 +1,49 @@
 package com.example.controller;
 
+import com.example.cache.UserNearCache;
+import com.example.entity.Order;
 import com.example.entity.User;
-import com.example.feign.UserFeignClient;
+import com.example.id.OrderIdGenerator;
+import com.example.store.WriteBehindOrderStore;
+import feign.FeignException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 @RequestMapping("/order")
 public class OrderController {
 
-    private final UserFeignClient userFeignClient;
+    private final UserNearCache userNearCache;
+    private final OrderIdGenerator orderIdGenerator;
+    private final WriteBehindOrderStore orderStore;
 
-    public OrderController(UserFeignClient userFeignClient) {
-        this.userFeignClient = userFeignClient;
+    public OrderController(UserNearCache userNearCache, OrderIdGenerator orderIdGenerator, WriteBehindOrderStore orderStore) {
+        this.userNearCache = userNearCache;
+        this.orderIdGenerator = orderIdGenerator;
+        this.orderStore = orderStore;
     }
 
     @GetMapping("/create/{userId}")
     public String createOrder(@PathVariable Long userId) {
-        User user = userFeignClient.getUserById(userId);
-        return "创建订单成功！\n订单关联的用户信息：" + user.toString();
+        // 用户资料很少变化，走本地近端缓存，不必每单都远程调用 user-service
+        // user-service 不可用又没有旧数据时抛 UserUnavailableException（503），不下单
+        User user;
+        try {
+            user = userNearCache.getUser(userId);
+        } catch (FeignException.NotFound e) {
+            user = null;
+        }
+        if (user == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "用户不存在：" + userId);
+        }
+        // 订单号本地生成（雪花算法），不依赖数据库自增
+        long orderId = orderIdGenerator.nextId();
+        // 订单落本地日志即确认，后台批量写入数据库
+        orderStore.save(new Order(orderId, userId, System.currentTimeMillis()));
+        return "创建订单成功！订单号：" + orderId + "\n订单关联的用户信息：" + user.toString();
     }
 }
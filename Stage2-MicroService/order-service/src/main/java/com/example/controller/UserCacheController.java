@@ -0,0 +1,50 @@
+package com.example.controller;
+
+import com.example.cache.UserNearCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 用户近端缓存管理接口（服务间内部调用，网关不转发 /internal/**）
+ */
+@RestController
+@RequestMapping("/internal/user-cache")
+public class UserCacheController {
+
+    private final UserNearCache userNearCache;
+
+    public UserCacheController(UserNearCache userNearCache) {
+        this.userNearCache = userNearCache;
+    }
+
+    /**
+     * user-service 修改用户后回调这里，丢弃本地副本
+     */
+    @PostMapping("/invalidate/{userId}")
+    public String invalidate(@PathVariable Long userId) {
+        userNearCache.invalidate(userId);
+        return "ok";
+    }
+
+    @PostMapping("/invalidate-all")
+    public String invalidateAll() {
+        userNearCache.invalidateAll();
+        return "ok";
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        CacheStats stats = userNearCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", userNearCache.size());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.deadline;
+
+/**
+ * 当前请求的截止时间（ThreadLocal 保存，和 ThreadLocal 存用户ID 的做法一样）
+ *
+ * 上游通过 X-Request-Budget-Ms 传来剩余预算（毫秒），收到时换算成本地 nanoTime 截止点，
+ * 调用下游前再换算回剩余毫秒数写回请求头。没有预算头的请求不限时。
+ */
+public final class Deadline {
+
+    public static final String BUDGET_HEADER = "X-Request-Budget-Ms";
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * 从剩余预算（毫秒）开始计时
+     */
+    public static void start(long budgetMs) {
+        DEADLINE_NANOS.set(System.nanoTime() + budgetMs * 1_000_000L);
+    }
+
+    /**
+     * 当前线程是否有截止时间
+     */
+    public static boolean isSet() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    /**
+     * 剩余毫秒数，没有截止时间时返回 Long.MAX_VALUE
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, (deadline - System.nanoTime()) / 1_000_000L);
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+
+    /**
+     * 取出当前线程的截止时间（用于传给其他线程），没有时为 null
+     */
+    public static Long capture() {
+        return DEADLINE_NANOS.get();
+    }
+
+    /**
+     * 在其他线程恢复截止时间（配合 capture 使用）
+     */
+    public static void restore(Long deadlineNanos) {
+        if (deadlineNanos == null) {
+            DEADLINE_NANOS.remove();
+        } else {
+            DEADLINE_NANOS.set(deadlineNanos);
+        }
+    }
+
+    // 请求结束必须移除，防止线程复用时串到下一个请求
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+}
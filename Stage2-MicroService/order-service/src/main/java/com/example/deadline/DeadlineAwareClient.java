@@ -0,0 +1,51 @@
+package com.example.deadline;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 包在 Feign Client 外层：按剩余预算缩短本次调用的超时，并把剩余预算传给下游
+ *
+ * 预算已用完时直接抛 DeadlineExceededException，不发请求
+ */
+public class DeadlineAwareClient implements Client {
+
+    private final Client delegate;
+
+    public DeadlineAwareClient(Client delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!Deadline.isSet()) {
+            return delegate.execute(request, options);
+        }
+
+        long remaining = Deadline.remainingMillis();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("时间预算已用完，放弃调用：" + request.url());
+        }
+
+        Request.Options shortened = new Request.Options(
+                Math.min(options.connectTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+                Math.min(options.readTimeoutMillis(), remaining), TimeUnit.MILLISECONDS,
+                options.isFollowRedirects());
+        return delegate.execute(withBudgetHeader(request, remaining), shortened);
+    }
+
+    private Request withBudgetHeader(Request request, long remaining) {
+        Map<String, Collection<String>> headers = new HashMap<>(request.headers());
+        headers.put(Deadline.BUDGET_HEADER, List.of(String.valueOf(remaining)));
+        return Request.create(request.httpMethod(), request.url(), headers,
+                request.body(), request.charset(), request.requestTemplate());
+    }
+}
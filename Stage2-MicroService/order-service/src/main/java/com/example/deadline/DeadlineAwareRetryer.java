@@ -0,0 +1,45 @@
+package com.example.deadline;
+
+import feign.RetryableException;
+import feign.Retryer;
+
+/**
+ * 按剩余预算决定是否重试的 Feign 重试器
+ *
+ * 只有「最多次数没用完」且「退避后剩余预算还够一次调用」时才重试，
+ * 否则直接把异常抛出去（交给熔断和降级），不在注定超时的请求上浪费 user-service 的容量
+ */
+public class DeadlineAwareRetryer implements Retryer {
+
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long minBudgetMs;
+    private int attempt = 1;
+
+    public DeadlineAwareRetryer(int maxAttempts, long backoffMs, long minBudgetMs) {
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.minBudgetMs = minBudgetMs;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (attempt++ >= maxAttempts) {
+            throw e;
+        }
+        if (Deadline.remainingMillis() < backoffMs + minBudgetMs) {
+            throw e;
+        }
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @Override
+    public Retryer clone() {
+        return new DeadlineAwareRetryer(maxAttempts, backoffMs, minBudgetMs);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.deadline;
+
+import feign.Capability;
+import feign.Client;
+
+/**
+ * 给 Feign Client 包一层 DeadlineAwareClient（Feign 通过反射调用，必须是 public 类）
+ */
+public class DeadlineCapability implements Capability {
+
+    @Override
+    public Client enrich(Client client) {
+        return new DeadlineAwareClient(client);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.deadline;
+
+/**
+ * 请求的时间预算已用完（不再调用下游）
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.deadline;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 读取上游传来的剩余预算，预算已耗尽的请求直接返回 504，不做任何业务处理
+ */
+@Component
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String budget = request.getHeader(Deadline.BUDGET_HEADER);
+        if (budget == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long budgetMs;
+        try {
+            budgetMs = Long.parseLong(budget.trim());
+        } catch (NumberFormatException e) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (budgetMs <= 0) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), "请求已超过截止时间");
+            return;
+        }
+
+        Deadline.start(budgetMs);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.clear();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Order {
+    private Long id;
+    private Long userId;
+    // 下单时间（毫秒时间戳）
+    private Long createTime;
+}
@@ -0,0 +1,46 @@
+package com.example.feign;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * 调用 user-service 时协商二进制格式（user-client.wire-format）
+ *
+ * Accept 里优先要 Smile / CBOR，再带上 application/json 兜底：对方不支持二进制格式时照样返回 JSON。
+ * 响应按 Content-Type 由 SpringDecoder 挑对应的 HttpMessageConverter 解析，
+ * Smile / CBOR 转换器在 jackson-dataformat-smile / cbor 在类路径上时由 Spring MVC 自动注册
+ */
+@Component
+public class WireFormatRequestInterceptor implements RequestInterceptor {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final String accept;
+
+    public WireFormatRequestInterceptor(@Value("${user-client.wire-format:smile}") String wireFormat) {
+        switch (wireFormat.toLowerCase()) {
+            case "smile":
+                this.accept = SMILE_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.5";
+                break;
+            case "cbor":
+                this.accept = MediaType.APPLICATION_CBOR_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE + ";q=0.5";
+                break;
+            case "json":
+                this.accept = null;
+                break;
+            default:
+                throw new IllegalArgumentException("user-client.wire-format 只支持 smile / cbor / json：" + wireFormat);
+        }
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (accept != null && !template.headers().containsKey(HttpHeaders.ACCEPT)) {
+            template.header(HttpHeaders.ACCEPT, accept);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲预算（令牌桶）：每个正常请求存入 percent/100 个令牌，每个对冲请求花掉 1 个
+ *
+ * 这样对冲请求数长期不会超过正常请求数的 percent%，user-service 变慢时不会被对冲放大压力。
+ * 令牌用千分之一为单位存在 AtomicLong 里，CAS 增减，无锁
+ */
+public class HedgeBudget {
+
+    private static final long UNIT = 1000;
+
+    private final AtomicLong milliTokens = new AtomicLong();
+    private final long depositPerCall;
+    private final long capacity;
+
+    public HedgeBudget(double percent) {
+        this.depositPerCall = Math.round(percent / 100 * UNIT);
+        // 最多攒 10 个令牌，防止长时间空闲后突发大量对冲
+        this.capacity = 10 * UNIT;
+    }
+
+    public void deposit() {
+        milliTokens.accumulateAndGet(depositPerCall, (current, add) -> Math.min(capacity, current + add));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            long current = milliTokens.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (milliTokens.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.hedge;
+
+/**
+ * 一次调用尝试（主请求或对冲请求）的上下文，放在执行线程的 ThreadLocal 里
+ *
+ * - excludeInstance：对冲请求要避开的实例（主请求选中的那个）
+ * - chosenInstance：负载均衡实际选中的实例，由 HedgeLoadBalancerLifecycle 回填
+ */
+public final class HedgeContext {
+
+    public static final String EXCLUDE_HEADER = "X-Hedge-Exclude";
+
+    private static final ThreadLocal<HedgeContext> CURRENT = new ThreadLocal<>();
+
+    private final String excludeInstance;
+    private volatile String chosenInstance;
+
+    public HedgeContext(String excludeInstance) {
+        this.excludeInstance = excludeInstance;
+    }
+
+    public static HedgeContext current() {
+        return CURRENT.get();
+    }
+
+    static void set(HedgeContext context) {
+        CURRENT.set(context);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    public String getExcludeInstance() {
+        return excludeInstance;
+    }
+
+    public String getChosenInstance() {
+        return chosenInstance;
+    }
+
+    void setChosenInstance(String chosenInstance) {
+        this.chosenInstance = chosenInstance;
+    }
+
+    static String key(String host, int port) {
+        return host + ":" + port;
+    }
+}
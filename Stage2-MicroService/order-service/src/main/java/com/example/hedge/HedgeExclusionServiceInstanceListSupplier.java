@@ -0,0 +1,50 @@
+package com.example.hedge;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 请求带 X-Hedge-Exclude 时，从候选实例里去掉该实例（只剩它一个时不去掉）
+ */
+public class HedgeExclusionServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+
+    public HedgeExclusionServiceInstanceListSupplier(ServiceInstanceListSupplier delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return delegate.get();
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get(Request request) {
+        String exclude = excludedInstance(request);
+        if (exclude == null) {
+            return delegate.get(request);
+        }
+        return delegate.get(request).map(instances -> {
+            List<ServiceInstance> filtered = instances.stream()
+                    .filter(instance -> !exclude.equals(HedgeContext.key(instance.getHost(), instance.getPort())))
+                    .collect(Collectors.toList());
+            return filtered.isEmpty() ? instances : filtered;
+        });
+    }
+
+    private String excludedInstance(Request request) {
+        if (request != null && request.getContext() instanceof RequestDataContext) {
+            RequestDataContext context = (RequestDataContext) request.getContext();
+            if (context.getClientRequest() != null) {
+                return context.getClientRequest().getHeaders().getFirst(HedgeContext.EXCLUDE_HEADER);
+            }
+        }
+        return null;
+    }
+}
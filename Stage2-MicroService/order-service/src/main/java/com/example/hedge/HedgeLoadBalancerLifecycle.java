@@ -0,0 +1,40 @@
+package com.example.hedge;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * 记录主请求被负载均衡到了哪个实例（阻塞式 Feign 调用里，这个回调和调用在同一线程）
+ */
+@Component
+public class HedgeLoadBalancerLifecycle implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        HedgeContext context = HedgeContext.current();
+        if (context != null && lbResponse.hasServer()) {
+            ServiceInstance instance = lbResponse.getServer();
+            context.setChosenInstance(HedgeContext.key(instance.getHost(), instance.getPort()));
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.hedge;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对冲请求带上 X-Hedge-Exclude（主请求所在实例），负载均衡据此换一个实例
+ */
+@Component
+public class HedgeRequestInterceptor implements RequestInterceptor {
+
+    @Override
+    public void apply(RequestTemplate template) {
+        HedgeContext context = HedgeContext.current();
+        if (context != null && context.getExcludeInstance() != null) {
+            template.header(HedgeContext.EXCLUDE_HEADER, context.getExcludeInstance());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.hedge;
+
+import com.example.deadline.Deadline;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 对冲请求：主请求超过最近耗时的 P95（可配）还没返回，就向另一个实例再发一次，谁先成功用谁
+ *
+ * 1. 对冲延迟来自 LatencyTracker 的分位数，限制在 [minDelay, maxDelay]
+ * 2. HedgeBudget 限制对冲请求占比（默认 5%），预算不够就老老实实等主请求
+ * 3. 对冲请求通过 X-Hedge-Exclude 请求头让负载均衡避开主请求所在实例
+ * 4. 调用方的截止时间（Deadline）会带到执行线程上
+ * 5. 开启虚拟线程（spring.threads.virtual.enabled）时，主请求和对冲请求都跑在虚拟线程上，不再受 threads 限制
+ * 6. 舱壁按实际发出的请求计数：主请求、对冲请求各占一个许可，请求结束才归还；
+ *    主请求拿不到许可抛 BulkheadFullException，对冲请求拿不到就不对冲
+ *    一方先成功后，输掉的一方立即归还许可并中断执行线程，不会拖着慢请求一直占着舱壁
+ * 7. 线程池满时主请求直接抛 RejectedExecutionException，不在调用方线程上执行（否则就绕过了线程池的上限）
+ * 指标：user.client.hedge.sent / won / skipped，user.client.hedge.delay
+ */
+@Component
+public class HedgingCaller implements DisposableBean {
+
+    private final HedgingProperties properties;
+    private final LatencyTracker latencyTracker;
+    private final HedgeBudget budget;
+    private final Executor executor;
+    // 平台线程模式下的线程池，虚拟线程模式为 null
+    private final ThreadPoolExecutor threadPool;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter hedgesSkipped;
+
+    public HedgingCaller(HedgingProperties properties, MeterRegistry meterRegistry,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.properties = properties;
+        this.latencyTracker = new LatencyTracker(properties.getWindowSize(), properties.getPercentile(),
+                properties.getInitialDelay().toMillis());
+        this.budget = new HedgeBudget(properties.getBudgetPercent());
+        this.threadPool = virtualThreads ? null : new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                60L,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setName("user-hedge-" + count.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        if (threadPool != null) {
+            threadPool.allowCoreThreadTimeOut(true);
+        }
+        this.executor = virtualThreads ? new VirtualThreadTaskExecutor("user-hedge-") : threadPool;
+
+        this.hedgesSent = Counter.builder("user.client.hedge.sent")
+                .description("发出的对冲请求数")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("user.client.hedge.won")
+                .description("对冲请求先于主请求成功返回的次数")
+                .register(meterRegistry);
+        this.hedgesSkipped = Counter.builder("user.client.hedge.skipped")
+                .description("到了对冲时间但因预算/舱壁/线程不足没有发对冲的次数")
+                .register(meterRegistry);
+        Gauge.builder("user.client.hedge.delay", this, HedgingCaller::currentDelayMillis)
+                .description("当前对冲延迟")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param bulkhead 每个实际发出的请求（主请求和对冲请求）各占一个许可
+     * @throws BulkheadFullException 主请求拿不到舱壁许可
+     * @throws RejectedExecutionException 线程池已满，主请求发不出去
+     */
+    public <T> T call(Supplier<T> supplier, Bulkhead bulkhead) {
+        if (!properties.isEnabled()) {
+            return Bulkhead.decorateSupplier(bulkhead, supplier).get();
+        }
+
+        Long deadline = Deadline.capture();
+        HedgeContext primaryContext = new HedgeContext(null);
+        if (!bulkhead.tryAcquirePermission()) {
+            throw BulkheadFullException.createBulkheadFullException(bulkhead);
+        }
+        Attempt<T> primary = submit(supplier, primaryContext, deadline, bulkhead);
+        budget.deposit();
+
+        try {
+            return primary.future.get(currentDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 超过对冲延迟，往下走
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel();
+            throw new IllegalStateException("调用 user-service 被中断", e);
+        }
+
+        if (Deadline.remainingMillis() <= 0 || !budget.tryAcquire()) {
+            hedgesSkipped.increment();
+            return join(primary.future);
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            hedgesSkipped.increment();
+            return join(primary.future);
+        }
+        Attempt<T> hedge;
+        try {
+            hedge = submit(supplier, new HedgeContext(primaryContext.getChosenInstance()), deadline, bulkhead);
+        } catch (RejectedExecutionException e) {
+            hedgesSkipped.increment();
+            return join(primary.future);
+        }
+        hedgesSent.increment();
+
+        // 谁先成功用谁，输的一方取消；两个都失败才算失败
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.future.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value)) {
+                    hedge.cancel();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(error);
+            }
+        });
+        hedge.future.whenComplete((value, error) -> {
+            if (error == null) {
+                if (result.complete(value)) {
+                    hedgesWon.increment();
+                    primary.cancel();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(error);
+            }
+        });
+        return join(result);
+    }
+
+    /**
+     * 调用前已拿到舱壁许可；任务结束、输给另一方被取消（或提交被拒绝）时归还
+     */
+    private <T> Attempt<T> submit(Supplier<T> supplier, HedgeContext context, Long deadline, Bulkhead bulkhead) {
+        Attempt<T> attempt = new Attempt<>(bulkhead);
+        try {
+            attempt.future = CompletableFuture.supplyAsync(() -> {
+                attempt.start();
+                Deadline.restore(deadline);
+                HedgeContext.set(context);
+                long start = System.nanoTime();
+                try {
+                    T value = supplier.get();
+                    latencyTracker.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return value;
+                } finally {
+                    HedgeContext.clear();
+                    Deadline.clear();
+                    attempt.finish();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            attempt.release();
+            throw e;
+        }
+        return attempt;
+    }
+
+    private long currentDelayMillis() {
+        long delay = latencyTracker.percentileMillis();
+        delay = Math.max(delay, properties.getMinDelay().toMillis());
+        return Math.min(delay, properties.getMaxDelay().toMillis());
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * 一次实际发出的请求：舱壁许可只归还一次（任务结束或被取消，谁先到谁还）；
+     * 取消时中断执行线程，任务结束前清掉执行线程，避免中断到线程池里的下一个任务
+     */
+    private static final class Attempt<T> {
+
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile CompletableFuture<T> future;
+        private Thread runner;
+        private boolean cancelled;
+
+        private Attempt(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        private synchronized void start() {
+            runner = Thread.currentThread();
+            if (cancelled) {
+                runner.interrupt();
+            }
+        }
+
+        private void finish() {
+            synchronized (this) {
+                runner = null;
+                // 清掉取消时可能留下的中断标记，线程还要回池里接着用
+                Thread.interrupted();
+            }
+            release();
+        }
+
+        private void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+            release();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.onComplete();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (threadPool != null) {
+            threadPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.hedge;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 对冲请求配置（user-client.hedging.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "user-client.hedging")
+public class HedgingProperties {
+
+    /**
+     * 是否开启对冲（默认关闭）
+     */
+    private boolean enabled = false;
+
+    /**
+     * 超过最近调用耗时的这个分位数还没返回，就发对冲请求
+     */
+    private double percentile = 0.95;
+
+    /**
+     * 统计分位数用的最近样本数
+     */
+    private int windowSize = 1000;
+
+    /**
+     * 样本不足时使用的对冲延迟
+     */
+    private Duration initialDelay = Duration.ofMillis(100);
+
+    /**
+     * 对冲延迟下限 / 上限
+     */
+    private Duration minDelay = Duration.ofMillis(10);
+    private Duration maxDelay = Duration.ofMillis(1000);
+
+    /**
+     * 对冲预算：对冲请求数最多占正常请求数的百分之几
+     */
+    private double budgetPercent = 5;
+
+    /**
+     * 执行调用的线程数（主请求 + 对冲请求都在这里跑）
+     */
+    private int threads = 40;
+}
@@ -0,0 +1,53 @@
+package com.example.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近 N 次调用耗时的环形缓冲区，定期计算分位数作为对冲延迟
+ *
+ * 每记录 N/10 个样本才重新排序计算一次，记录本身只是一次数组写入
+ */
+public class LatencyTracker {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final double percentile;
+    private final int recomputeEvery;
+    private final int minSamples;
+    private volatile long percentileMillis;
+
+    public LatencyTracker(int windowSize, double percentile, long initialMillis) {
+        this.samples = new AtomicLongArray(windowSize);
+        this.percentile = percentile;
+        this.recomputeEvery = Math.max(1, windowSize / 10);
+        this.minSamples = Math.min(windowSize, 50);
+        this.percentileMillis = initialMillis;
+    }
+
+    public void record(long millis) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % samples.length()), millis);
+        if (n + 1 >= minSamples && (n + 1) % recomputeEvery == 0) {
+            recompute(Math.min(n + 1, samples.length()));
+        }
+    }
+
+    private void recompute(long size) {
+        long[] copy = new long[(int) size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.min(size - 1, Math.ceil(percentile * size) - 1);
+        percentileMillis = copy[Math.max(0, index)];
+    }
+
+    /**
+     * 当前分位数耗时（样本不足时为初始值）
+     */
+    public long percentileMillis() {
+        return percentileMillis;
+    }
+}
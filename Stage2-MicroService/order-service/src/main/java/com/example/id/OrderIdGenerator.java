@@ -0,0 +1,84 @@
+package com.example.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成器：启动时从 WorkerIdRegistry 租一个 worker ID，之后每个订单号都由本地无锁生成，不访问数据库
+ */
+@Slf4j
+@Component
+public class OrderIdGenerator implements DisposableBean {
+
+    private final WorkerIdRegistry.Lease lease;
+    private final SnowflakeIdGenerator generator;
+    private final ScheduledExecutorService heartbeat;
+
+    public OrderIdGenerator(OrderIdProperties properties) {
+        this.lease = new WorkerIdRegistry(properties.getRegistryDir()).acquire();
+        long heartbeatMs = properties.getHeartbeat().toMillis();
+        long maxBackwardMs = properties.getMaxClockBackward().toMillis();
+        long resumeFrom = 0L;
+        if (lease.getLastTimestamp() > 0) {
+            checkClock(lease.getLastSavedAt(), maxBackwardMs);
+            // 水位最多落后一个心跳周期，再加上序号最多借用的时间，从这之后发号就不会和上次发过的号重复；
+            // 时钟还没追上时由生成器借用未来时间，不在这里等
+            resumeFrom = lease.getLastTimestamp() + heartbeatMs + maxBackwardMs;
+        }
+        this.generator = new SnowflakeIdGenerator(
+                properties.getEpoch(),
+                lease.getWorkerId(),
+                maxBackwardMs,
+                resumeFrom,
+                System::currentTimeMillis);
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-id-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::saveTimestamp, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 生成一个全局唯一、按时间递增的订单号
+     */
+    public long nextId() {
+        return generator.nextId();
+    }
+
+    public int getWorkerId() {
+        return lease.getWorkerId();
+    }
+
+    private void saveTimestamp() {
+        lease.saveTimestamp(Math.max(System.currentTimeMillis(), generator.lastTimestamp()));
+    }
+
+    /**
+     * 系统时间比上次写水位时还早，说明时钟真的回拨了：回拨量在 maxBackwardMs 以内照常启动（生成器从水位之后发号），
+     * 超过就拒绝启动
+     */
+    private static void checkClock(long lastSavedAt, long maxBackwardMs) {
+        long behindMs = lastSavedAt - System.currentTimeMillis();
+        if (behindMs <= 0) {
+            return;
+        }
+        if (behindMs > maxBackwardMs) {
+            throw new IllegalStateException("时钟比上次写时间水位时落后 " + behindMs + "ms，疑似时钟回拨，拒绝启动");
+        }
+        log.warn("时钟比上次写时间水位时落后 {}ms，从水位之后继续发号", behindMs);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        saveTimestamp();
+        lease.close();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.id;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 订单号生成配置（order-id.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "order-id")
+public class OrderIdProperties {
+
+    /**
+     * 起始纪元（毫秒），41 位时间戳从这里开始算，可用约 69 年；上线后不能再改
+     */
+    private long epoch = 1704067200000L; // 2024-01-01 00:00:00 UTC
+
+    /**
+     * worker ID 登记目录（本机多个实例共用同一个目录，靠文件锁互斥；生产环境换成 Nacos/ZooKeeper）
+     */
+    private String registryDir = System.getProperty("java.io.tmpdir") + "/order-id-workers";
+
+    /**
+     * 多久把已发出的最大时间戳写回登记文件一次（重启后从这个时间之后继续发号）
+     */
+    private Duration heartbeat = Duration.ofSeconds(3);
+
+    /**
+     * 时钟回拨 / 序号借用未来时间的最大容忍量：超过就等时钟追上，等太久则拒绝发号
+     */
+    private Duration maxClockBackward = Duration.ofSeconds(5);
+}
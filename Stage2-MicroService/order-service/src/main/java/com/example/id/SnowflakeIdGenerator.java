@@ -0,0 +1,114 @@
+package com.example.id;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法订单号生成器（无锁）
+ *
+ * ID 结构（共 63 位，始终为正数）：
+ * | 41 位时间戳（相对 epoch 的毫秒） | 10 位 workerId | 12 位毫秒内序号 |
+ *
+ * 1. 无锁：把 "时间戳 + 序号" 拼成一个 long 放在 AtomicLong 里，一次 CAS 同时推进两者，没有 synchronized
+ * 2. 同一毫秒内序号 +1；序号用完（4096 个）就自然进位到下一毫秒，即"借用"未来的时间，不用自旋等待
+ * 3. 时钟回拨：不回退，继续在上次的时间上往后发号，所以号码始终单调递增、不会重复
+ * 4. 借用 / 回拨超过 maxBackwardMs 时，停下来等时钟追上；要等的时间超过 maxBackwardMs 就直接拒绝
+ * 5. 重启：从传入的 lastTimestamp 之后发号，时钟还没追上它之前不算回拨，照常借用（领先它最多 maxBackwardMs），
+ *    所以重启时不用停下来等时钟
+ */
+public class SnowflakeIdGenerator {
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long epoch;
+    private final long workerId;
+    private final long maxBackwardMs;
+    private final LongSupplier clock;
+    // 重启时的起点（相对 epoch）：时钟追上它之前，借用量从它算起
+    private final long floor;
+
+    // 高位是上次发号的时间戳（相对 epoch），低 12 位是序号
+    private final AtomicLong state;
+
+    public SnowflakeIdGenerator(long epoch, long workerId, long maxBackwardMs) {
+        this(epoch, workerId, maxBackwardMs, 0L, System::currentTimeMillis);
+    }
+
+    /**
+     * @param lastTimestamp 上次运行已发出的最大时间戳（绝对毫秒），重启后只会在它之后发号
+     * @param clock         时钟（测试时可替换）
+     */
+    public SnowflakeIdGenerator(long epoch, long workerId, long maxBackwardMs, long lastTimestamp, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId 必须在 0~" + MAX_WORKER_ID + " 之间：" + workerId);
+        }
+        this.epoch = epoch;
+        this.workerId = workerId;
+        this.maxBackwardMs = maxBackwardMs;
+        this.clock = clock;
+        this.floor = Math.max(0, lastTimestamp - epoch);
+        this.state = new AtomicLong(floor << SEQUENCE_BITS | SEQUENCE_MASK);
+    }
+
+    public long nextId() {
+        while (true) {
+            long now = clock.getAsLong() - epoch;
+            long current = state.get();
+            long last = current >>> SEQUENCE_BITS;
+            long next;
+            if (now > last) {
+                // 新的一毫秒，序号从 0 开始
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 同一毫秒，或时钟回拨 / 序号借用了未来时间：在上次的基础上 +1，序号满了自动进位到下一毫秒
+                if (last - Math.max(now, floor) >= maxBackwardMs) {
+                    awaitClock(now, last);
+                    continue;
+                }
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                return (next >>> SEQUENCE_BITS) << (WORKER_ID_BITS + SEQUENCE_BITS)
+                        | workerId << SEQUENCE_BITS
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 已发出的最大时间戳（绝对毫秒），定期写回登记文件，重启后接着用
+     */
+    public long lastTimestamp() {
+        return (state.get() >>> SEQUENCE_BITS) + epoch;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 从订单号里取出生成时间（绝对毫秒）
+     */
+    public long timestampOf(long id) {
+        return (id >>> (WORKER_ID_BITS + SEQUENCE_BITS)) + epoch;
+    }
+
+    /**
+     * 等到借用量回到 maxBackwardMs 以内
+     */
+    private void awaitClock(long now, long last) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBackwardMs);
+        while (last - Math.max(now, floor) >= maxBackwardMs) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("时钟回拨过大，拒绝生成订单号：落后 " + (last - now) + "ms，workerId=" + workerId);
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            now = clock.getAsLong() - epoch;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * worker ID 登记处（本地文件版，代替 Nacos/ZooKeeper 的临时节点）
+ *
+ * 目录下每个 worker ID 对应一个文件 worker-N.lease：
+ * 1. 租用：依次对 worker-0 ~ worker-1023 尝试加文件锁，第一个加锁成功的就是本实例的 worker ID
+ * 2. 续约：锁跟进程同生共死，进程退出（包括被 kill）操作系统自动释放，不会出现僵尸租约
+ * 3. 时间水位：文件里记着该 worker ID 已发出的最大时间戳，重启后从水位之后发号，
+ *    即使重启期间时钟回拨也不会和上一次发过的号重复；同时记下写入时的系统时间，重启时用来判断时钟是否真的回拨过
+ *    （水位本身可能因为借用未来时间而领先系统时间，不能拿来判断）
+ */
+@Slf4j
+public class WorkerIdRegistry {
+
+    private final Path dir;
+
+    public WorkerIdRegistry(String dir) {
+        this.dir = Paths.get(dir);
+    }
+
+    /**
+     * 租用一个空闲的 worker ID
+     */
+    public Lease acquire() {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法创建 worker ID 登记目录：" + dir, e);
+        }
+        for (int workerId = 0; workerId <= SnowflakeIdGenerator.MAX_WORKER_ID; workerId++) {
+            Lease lease = tryAcquire(workerId);
+            if (lease != null) {
+                log.info("租用 worker ID 成功，workerId={}，上次时间水位={}", workerId, lease.getLastTimestamp());
+                return lease;
+            }
+        }
+        throw new IllegalStateException("没有空闲的 worker ID（已被 " + (SnowflakeIdGenerator.MAX_WORKER_ID + 1) + " 个实例占用）");
+    }
+
+    private Lease tryAcquire(int workerId) {
+        Path file = dir.resolve("worker-" + workerId + ".lease");
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                return null;
+            }
+            long[] saved = readTimestamps(channel);
+            return new Lease(workerId, channel, lock, saved[0], saved[1]);
+        } catch (OverlappingFileLockException e) {
+            // 同一个 JVM 里已经租了这个 ID
+            closeQuietly(channel);
+            return null;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new IllegalStateException("租用 worker ID 失败：" + file, e);
+        }
+    }
+
+    /**
+     * 读出 [时间水位, 写入时的系统时间]；旧格式只有水位，系统时间按水位算
+     */
+    private static long[] readTimestamps(FileChannel channel) throws IOException {
+        if (channel.size() < Long.BYTES) {
+            return new long[]{0L, 0L};
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2);
+        channel.read(buffer, 0);
+        buffer.flip();
+        long watermark = buffer.getLong();
+        long savedAt = buffer.remaining() >= Long.BYTES ? buffer.getLong() : watermark;
+        return new long[]{watermark, savedAt};
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 一次租约：持有文件锁直到 release
+     */
+    public static class Lease implements AutoCloseable {
+
+        private final int workerId;
+        private final FileChannel channel;
+        private final FileLock lock;
+        private final long lastTimestamp;
+        private final long lastSavedAt;
+
+        Lease(int workerId, FileChannel channel, FileLock lock, long lastTimestamp, long lastSavedAt) {
+            this.workerId = workerId;
+            this.channel = channel;
+            this.lock = lock;
+            this.lastTimestamp = lastTimestamp;
+            this.lastSavedAt = lastSavedAt;
+        }
+
+        public int getWorkerId() {
+            return workerId;
+        }
+
+        /**
+         * 上次持有这个 worker ID 的实例写下的时间水位（绝对毫秒），没有则为 0
+         */
+        public long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        /**
+         * 上次写时间水位时的系统时间（绝对毫秒），没有则为 0
+         */
+        public long getLastSavedAt() {
+            return lastSavedAt;
+        }
+
+        /**
+         * 写回已发出的最大时间戳，连同当前系统时间
+         */
+        public synchronized void saveTimestamp(long timestamp) {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2);
+                buffer.putLong(timestamp).putLong(System.currentTimeMillis()).flip();
+                channel.write(buffer, 0);
+                channel.force(false);
+            } catch (IOException e) {
+                log.warn("写回 worker ID 时间水位失败，workerId={}", workerId, e);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                lock.release();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("释放 worker ID 失败，workerId={}", workerId, e);
+            }
+        }
+    }
+}
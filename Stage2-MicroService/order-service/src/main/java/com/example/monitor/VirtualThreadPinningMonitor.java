@@ -0,0 +1,73 @@
+package com.example.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 虚拟线程钉住（pinning）诊断：只在 spring.threads.virtual.enabled=true 时启用
+ *
+ * 虚拟线程在 synchronized 块里（或本地方法里）阻塞时，不能从载体线程上卸下，载体线程被一起"钉住"。
+ * 载体线程数 = CPU 核数，钉住的多了，虚拟线程就和平台线程池一样被卡住。
+ * 这里用 JFR 流式订阅 jdk.VirtualThreadPinned 事件（JDK 21+），超过阈值的记一次 virtual.thread.pinned 并打印调用栈，
+ * 按栈顶定位是哪段 synchronized 代码，改成 ReentrantLock 即可
+ *
+ * 也可以在启动参数加 -Djdk.tracePinnedThreads=short，由 JVM 直接把钉住时的栈打到标准输出
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_FRAMES = 12;
+
+    private final RecordingStream stream;
+    private final Counter pinned;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.pinned = Counter.builder("virtual.thread.pinned")
+                .description("虚拟线程被钉住超过阈值的次数")
+                .register(meterRegistry);
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("虚拟线程钉住诊断已开启，阈值 {}ms", threshold.toMillis());
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        StringBuilder stack = new StringBuilder();
+        if (event.getStackTrace() != null) {
+            List<RecordedFrame> frames = event.getStackTrace().getFrames();
+            for (int i = 0; i < Math.min(frames.size(), MAX_FRAMES); i++) {
+                RecordedFrame frame = frames.get(i);
+                stack.append("\n\tat ")
+                        .append(frame.getMethod().getType().getName())
+                        .append('.')
+                        .append(frame.getMethod().getName())
+                        .append(':')
+                        .append(frame.getLineNumber());
+            }
+        }
+        log.warn("虚拟线程被钉住 {}ms，线程：{}{}", event.getDuration().toMillis(),
+                event.getThread() == null ? "?" : event.getThread().getJavaName(), stack);
+    }
+
+    @Override
+    public void destroy() {
+        stream.close();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.store;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 待入库订单积压已满（数据库写不过来），拒绝新订单
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderBacklogFullException extends RuntimeException {
+
+    public OrderBacklogFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.store;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 订单异步落库配置（order-store.*）
+ */
+@Data
+@ConfigurationProperties(prefix = "order-store")
+public class OrderStoreProperties {
+
+    /**
+     * 本地预写日志目录（订单先落这里再确认，崩溃后从这里重放）
+     */
+    private String walDir = "data/order-wal";
+
+    /**
+     * 单个日志段文件大小，写满后切换新文件；已入库的旧段会被删除
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 每批最多插入多少行（一条多行 INSERT）
+     */
+    private int batchSize = 500;
+
+    /**
+     * 攒批最长等待时间
+     */
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    /**
+     * 最多允许多少个订单已确认但还没入库（积压上限）
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * 积压满时下单请求最多等多久，超时返回 503
+     */
+    private Duration enqueueTimeout = Duration.ofMillis(200);
+
+    /**
+     * 入库失败后的重试间隔（同一批会一直重试，不会丢）
+     */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+}
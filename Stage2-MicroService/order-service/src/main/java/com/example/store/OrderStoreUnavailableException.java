@@ -0,0 +1,15 @@
+package com.example.store;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 订单没能写进本地日志或刷盘失败，没有确认，下单失败
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderStoreUnavailableException extends RuntimeException {
+
+    public OrderStoreUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.store;
+
+import com.example.entity.Order;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 订单预写日志（只追加）
+ *
+ * 1. 格式：每条记录 = 4 字节长度 + 4 字节 CRC32 + 内容（订单号、用户ID、下单时间）
+ * 2. 分段：写满 segmentSize 换新文件，文件名是该段起始的全局偏移量（wal-00000000000000000000.log）
+ * 3. 组提交：append 只写入文件，sync 才刷盘；一个线程刷盘期间到达的其它线程，由下一次刷盘一起带走，
+ *    并发越高，每次 fsync 覆盖的订单越多
+ * 4. 检查点：checkpoint 文件记录"这个偏移量之前的订单都已入库"，之前的整段文件可以删除
+ * 5. 恢复：启动时从检查点往后读，校验 CRC，遇到写了一半的尾部记录（崩溃时的残留）就截断
+ * 加锁用 ReentrantLock：持锁期间有文件写入和 fsync，虚拟线程在 synchronized 块里阻塞会钉住载体线程
+ */
+@Slf4j
+public class OrderWal implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final int PAYLOAD_BYTES = 24;
+    private static final int RECORD_BYTES = HEADER_BYTES + PAYLOAD_BYTES;
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path dir;
+    private final long segmentSize;
+    // 段起始偏移量 -> 文件
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final AtomicLong durableOffset = new AtomicLong();
+    private final List<Entry> recovered = new ArrayList<>();
+
+    private FileChannel channel;
+    private long segmentBase;
+    // 已写入（未必刷盘）的全局偏移量，受 writeLock 保护
+    private long writtenOffset;
+    private volatile long checkpointOffset;
+
+    public OrderWal(String dir, long segmentSize) {
+        this.dir = Paths.get(dir);
+        this.segmentSize = Math.max(segmentSize, RECORD_BYTES);
+        try {
+            Files.createDirectories(this.dir);
+            this.checkpointOffset = readCheckpoint();
+            loadSegments();
+            recover();
+        } catch (IOException e) {
+            throw new IllegalStateException("打开订单预写日志失败：" + this.dir.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * 追加一条订单（只写入，不刷盘）；写入失败时截掉写了一半的记录再抛出
+     * @return 这条记录结束处的全局偏移量，传给 sync 确认落盘
+     */
+    public long append(Order order) throws IOException {
+        ByteBuffer buffer = encode(order);
+        writeLock.lock();
+        try {
+            if (writtenOffset - segmentBase + RECORD_BYTES > segmentSize) {
+                roll();
+            }
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                // 写了一半的记录截掉，否则后面的记录都会错位
+                try {
+                    channel.truncate(writtenOffset - segmentBase);
+                    channel.position(writtenOffset - segmentBase);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+            writtenOffset += RECORD_BYTES;
+            return writtenOffset;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 确保 offset 之前的记录都已刷盘（组提交）
+     */
+    public void sync(long offset) throws IOException {
+        if (durableOffset.get() >= offset) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableOffset.get() >= offset) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            writeLock.lock();
+            try {
+                target = writtenOffset;
+                current = channel;
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // 刚好换段了，换段时已经把旧段刷盘并推进了 durableOffset
+                return;
+            }
+            durableOffset.accumulateAndGet(target, Math::max);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * 记录检查点：offset 之前的订单都已入库，删除完全在它之前的旧段
+     */
+    public void checkpoint(long offset) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.write(tmp, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, dir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointOffset = offset;
+        deleteSegmentsBefore(offset);
+    }
+
+    /**
+     * 启动时从日志里恢复出来的、检查点之后（可能还没入库）的订单，只能取一次
+     */
+    public List<Entry> takeRecovered() {
+        writeLock.lock();
+        try {
+            List<Entry> result = new ArrayList<>(recovered);
+            recovered.clear();
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public long durableOffset() {
+        return durableOffset.get();
+    }
+
+    public long checkpointOffset() {
+        return checkpointOffset;
+    }
+
+    /**
+     * 已刷盘但还没入库的日志字节数
+     */
+    public long unflushedBytes() {
+        return Math.max(0, durableOffset.get() - checkpointOffset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (channel != null && channel.isOpen()) {
+                channel.force(false);
+                durableOffset.accumulateAndGet(writtenOffset, Math::max);
+                channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.force(false);
+        durableOffset.accumulateAndGet(writtenOffset, Math::max);
+        channel.close();
+        openSegment(writtenOffset);
+    }
+
+    private void openSegment(long base) throws IOException {
+        Path file = dir.resolve(String.format("wal-%020d.log", base));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        segmentBase = base;
+        segments.put(base, file);
+    }
+
+    private void loadSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith("wal-") && name.endsWith(".log")) {
+                    segments.put(Long.parseLong(name.substring(4, name.length() - 4)), file);
+                }
+            });
+        }
+    }
+
+    private void recover() throws IOException {
+        long end = checkpointOffset;
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            long base = segment.getKey();
+            long size = Files.size(segment.getValue());
+            if (base + size <= checkpointOffset) {
+                continue;
+            }
+            long validBytes = replaySegment(segment.getValue(), base, Math.max(0, checkpointOffset - base));
+            if (validBytes < size) {
+                if (!segment.getKey().equals(last.getKey())) {
+                    throw new IllegalStateException("订单预写日志中间段损坏，需要人工处理：" + segment.getValue());
+                }
+                log.warn("订单预写日志尾部有不完整的记录（上次崩溃时写了一半），截断 {} 字节：{}",
+                        size - validBytes, segment.getValue());
+                try (FileChannel truncate = FileChannel.open(segment.getValue(), StandardOpenOption.WRITE)) {
+                    truncate.truncate(validBytes);
+                    truncate.force(true);
+                }
+            }
+            end = base + validBytes;
+        }
+        if (last != null && last.getKey() + Files.size(last.getValue()) == end && end - last.getKey() < segmentSize) {
+            openSegment(last.getKey());
+        } else {
+            openSegment(end);
+        }
+        writtenOffset = end;
+        durableOffset.set(end);
+        deleteSegmentsBefore(checkpointOffset);
+        if (!recovered.isEmpty()) {
+            log.info("从订单预写日志恢复 {} 个未入库的订单（检查点={}，日志末尾={}）", recovered.size(), checkpointOffset, end);
+        }
+    }
+
+    /**
+     * 读出一个段里 from 之后的完整记录
+     * @return 有效数据的长度（之后是损坏或不完整的记录）
+     */
+    private long replaySegment(Path file, long base, long from) throws IOException {
+        long position = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+             DataInputStream data = new DataInputStream(in)) {
+            byte[] payload = new byte[PAYLOAD_BYTES];
+            while (true) {
+                int length;
+                int crc;
+                try {
+                    length = data.readInt();
+                    crc = data.readInt();
+                    if (length != PAYLOAD_BYTES) {
+                        return position;
+                    }
+                    data.readFully(payload);
+                } catch (EOFException e) {
+                    return position;
+                }
+                if (crc != crc32(payload)) {
+                    return position;
+                }
+                position += RECORD_BYTES;
+                if (position > from) {
+                    ByteBuffer buffer = ByteBuffer.wrap(payload);
+                    Order order = new Order(buffer.getLong(), buffer.getLong(), buffer.getLong());
+                    recovered.add(new Entry(order, base + position));
+                }
+            }
+        }
+    }
+
+    private void deleteSegmentsBefore(long offset) throws IOException {
+        writeLock.lock();
+        try {
+            while (segments.size() > 1) {
+                Map.Entry<Long, Path> first = segments.firstEntry();
+                Long nextBase = segments.higherKey(first.getKey());
+                if (nextBase == null || nextBase > offset || first.getKey() == segmentBase) {
+                    return;
+                }
+                Files.deleteIfExists(first.getValue());
+                segments.pollFirstEntry();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        return Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+    }
+
+    private static ByteBuffer encode(Order order) {
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES);
+        payload.putLong(order.getId()).putLong(order.getUserId()).putLong(order.getCreateTime());
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.putInt(PAYLOAD_BYTES).putInt(crc32(payload.array())).put(payload.array());
+        record.flip();
+        return record;
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 日志里的一条订单及其结束偏移量；下单线程刷盘失败时 drop，后台入库前 claim，两者只有一个能成功
+     */
+    public static class Entry {
+
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int DROPPED = 2;
+
+        private final Order order;
+        private final long endOffset;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        public Entry(Order order, long endOffset) {
+            this.order = order;
+            this.endOffset = endOffset;
+        }
+
+        public Order getOrder() {
+            return order;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * 后台已经刷盘成功、准备入库：没被丢弃就认领，之后不能再丢弃
+         */
+        public boolean claim() {
+            return state.compareAndSet(PENDING, CLAIMED) || state.get() == CLAIMED;
+        }
+
+        /**
+         * 下单线程刷盘失败：还没被后台认领就丢弃，后台跳过它；已经被认领说明它已刷盘，返回 false
+         */
+        public boolean drop() {
+            return state.compareAndSet(PENDING, DROPPED);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.store;
+
+import com.example.entity.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 订单异步落库（write-behind）
+ *
+ * 1. 下单：订单写进本地预写日志并刷盘（组提交）后立即确认，不等数据库
+ * 2. 落库：后台单线程攒批，一条多行 INSERT 写入一批订单，写完推进检查点
+ * 3. 幂等：INSERT IGNORE + 订单号主键，重放或重试时重复的行直接跳过
+ * 4. 不丢：入库失败整批保留并按 retryBackoff 重试；进程崩溃后从检查点重放日志
+ * 5. 有界：已确认未入库的订单最多 maxPending 个，满了下单等待 enqueueTimeout，超时返回 503
+ * 6. 写日志或刷盘失败都不确认：返回 503（OrderStoreUnavailableException），指标 order.store.wal.sync.failures
+ *    写日志失败：订单没进队列，归还名额；刷盘失败：把队列里这笔订单标记丢弃，后台跳过不入库
+ *    （后台先刷盘成功并认领了它的话，订单已经落盘，照常按成功返回）。
+ *    已丢弃的记录还留在日志里：检查点越过它之前进程崩溃，重放时可能把它写进数据库，调用方收到的 503 应当视为结果未知
+ */
+@Slf4j
+@Component
+public class WriteBehindOrderStore implements DisposableBean {
+
+    private static final String INSERT_PREFIX = "INSERT IGNORE INTO orders (id, user_id, create_time) VALUES ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderStoreProperties properties;
+    private final OrderWal wal;
+    private final LinkedBlockingQueue<OrderWal.Entry> pending = new LinkedBlockingQueue<>();
+    private final Semaphore permits;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Thread writer;
+    private volatile boolean running = true;
+    // 正在写入数据库的那一批里最早的下单时间，用来计算落库延迟
+    private volatile long inFlightOldest;
+
+    private final Counter flushed;
+    private final Counter failures;
+    private final Counter rejected;
+    private final Counter syncFailures;
+    private final Timer batchTimer;
+
+    public WriteBehindOrderStore(JdbcTemplate jdbcTemplate, OrderStoreProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.wal = new OrderWal(properties.getWalDir(), properties.getSegmentSize().toBytes());
+        // 上次没来得及入库的订单重新排队，也计入积压（名额可以是负数，写完才放出新名额）
+        List<OrderWal.Entry> recovered = wal.takeRecovered();
+        this.permits = new Semaphore(properties.getMaxPending() - recovered.size());
+        pending.addAll(recovered);
+
+        this.flushed = Counter.builder("order.store.flushed")
+                .description("已写入数据库的订单数")
+                .register(meterRegistry);
+        this.failures = Counter.builder("order.store.flush.failures")
+                .description("批量入库失败次数（会重试）")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("order.store.rejected")
+                .description("积压已满被拒绝的订单数")
+                .register(meterRegistry);
+        this.syncFailures = Counter.builder("order.store.wal.sync.failures")
+                .description("下单时写日志或刷盘失败、返回 503 的订单数")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("order.store.batch")
+                .description("一批订单写入数据库的耗时")
+                .register(meterRegistry);
+        Gauge.builder("order.store.lag.orders", this, WriteBehindOrderStore::lagOrders)
+                .description("已确认但还没入库的订单数")
+                .register(meterRegistry);
+        Gauge.builder("order.store.lag.seconds", this, WriteBehindOrderStore::lagSeconds)
+                .description("最早一个未入库订单已等待的秒数")
+                .register(meterRegistry);
+        Gauge.builder("order.store.wal.unflushed.bytes", wal, OrderWal::unflushedBytes)
+                .description("预写日志中还没入库的字节数")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "order-store-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 保存订单：落本地日志并刷盘后返回，数据库由后台批量写入（刷盘失败的处理见类注释第 6 点）
+     */
+    public void save(Order order) {
+        try {
+            if (!permits.tryAcquire(properties.getEnqueueTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new OrderBacklogFullException("订单积压过多（" + lagOrders() + " 个未入库），请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderBacklogFullException("下单被中断");
+        }
+        OrderWal.Entry entry;
+        boolean enqueued = false;
+        // 写日志和入队在同一把锁里，保证队列顺序和日志顺序一致，检查点才能按顺序推进
+        appendLock.lock();
+        try {
+            entry = new OrderWal.Entry(order, wal.append(order));
+            pending.add(entry);
+            enqueued = true;
+        } catch (IOException e) {
+            syncFailures.increment();
+            throw new OrderStoreUnavailableException("订单写入本地日志失败", e);
+        } finally {
+            appendLock.unlock();
+            if (!enqueued) {
+                // 订单没进队列，后台不会替它归还名额
+                permits.release();
+            }
+        }
+        try {
+            wal.sync(entry.getEndOffset());
+        } catch (IOException e) {
+            if (!entry.drop()) {
+                // 后台已经刷盘成功并认领了这笔订单，它已经落盘
+                return;
+            }
+            // 名额由后台处理到这条时一起归还
+            syncFailures.increment();
+            log.error("订单 {} 刷盘失败，不予受理：{}", order.getId(), e.toString());
+            throw new OrderStoreUnavailableException("订单刷盘失败", e);
+        }
+    }
+
+    public int lagOrders() {
+        return properties.getMaxPending() - permits.availablePermits();
+    }
+
+    public double lagSeconds() {
+        long oldest = inFlightOldest;
+        if (oldest == 0) {
+            OrderWal.Entry head = pending.peek();
+            if (head == null) {
+                return 0;
+            }
+            oldest = head.getOrder().getCreateTime();
+        }
+        return Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private void writeLoop() {
+        List<OrderWal.Entry> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !pending.isEmpty()) {
+            try {
+                OrderWal.Entry first = pending.poll(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, properties.getBatchSize() - 1);
+                inFlightOldest = first.getOrder().getCreateTime();
+                flushWithRetry(batch);
+                inFlightOldest = 0;
+                permits.release(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flushWithRetry(List<OrderWal.Entry> batch) throws InterruptedException {
+        long endOffset = batch.get(batch.size() - 1).getEndOffset();
+        while (true) {
+            try {
+                // 只写已经刷盘的订单，保证数据库里的订单都能在日志里找到
+                wal.sync(endOffset);
+                List<OrderWal.Entry> claimed = claim(batch);
+                if (!claimed.isEmpty()) {
+                    batchTimer.record(() -> insertBatch(claimed));
+                    flushed.increment(claimed.size());
+                }
+                wal.checkpoint(endOffset);
+                return;
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("订单批量入库失败，{}ms 后重试，本批 {} 个，积压 {} 个：{}",
+                        properties.getRetryBackoff().toMillis(), batch.size(), lagOrders(), e.toString());
+                if (!running) {
+                    // 停机时不再重试，剩下的订单留在日志里，下次启动重放
+                    throw new InterruptedException("停机，放弃重试");
+                }
+                Thread.sleep(properties.getRetryBackoff().toMillis());
+            }
+        }
+    }
+
+    /**
+     * 刷盘成功后认领这一批，跳过下单线程已经丢弃（刷盘失败、返回了 503）的订单
+     */
+    private static List<OrderWal.Entry> claim(List<OrderWal.Entry> batch) {
+        List<OrderWal.Entry> claimed = new ArrayList<>(batch.size());
+        for (OrderWal.Entry entry : batch) {
+            if (entry.claim()) {
+                claimed.add(entry);
+            }
+        }
+        return claimed;
+    }
+
+    private void insertBatch(List<OrderWal.Entry> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * 10).append(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * 3];
+        int i = 0;
+        for (OrderWal.Entry entry : batch) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            Order order = entry.getOrder();
+            args[i++] = order.getId();
+            args[i++] = order.getUserId();
+            args[i++] = new Timestamp(order.getCreateTime());
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        running = false;
+        // 给后台线程一点时间把积压写完，写不完的下次启动从日志重放
+        writer.join(5000);
+        if (writer.isAlive()) {
+            writer.interrupt();
+        }
+        wal.close();
+    }
+}
@@ -0,0 +1,7 @@
+-- 订单表（由 WriteBehindOrderStore 批量写入，id 为雪花算法订单号）
+CREATE TABLE IF NOT EXISTS orders (
+    id          BIGINT   NOT NULL PRIMARY KEY COMMENT '订单号（雪花算法）',
+    user_id     BIGINT   NOT NULL COMMENT '下单用户',
+    create_time DATETIME(3) NOT NULL COMMENT '下单时间',
+    KEY idx_user_id (user_id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COMMENT = '订单';
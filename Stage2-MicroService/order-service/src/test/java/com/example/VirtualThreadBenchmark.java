@@ -0,0 +1,127 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 平台线程 vs 虚拟线程：下单请求阻塞在 user-service 调用上时，能同时处理多少
+ * 直接运行 main 方法（虚拟线程部分需要 JDK 21+，JDK 17 下会跳过）
+ *
+ * 每个"请求"阻塞 LATENCY_MS（模拟 UserFeignClient.getUserById 的一次往返），各模型在相同延迟下对比：
+ * 1. 平台线程池：200 个线程（Tomcat 默认 server.tomcat.threads.max），多出来的请求排队
+ * 2. 平台线程，每请求一个线程：并发上去了，但每个线程要一份栈内存
+ * 3. 虚拟线程，每请求一个：阻塞时卸下载体线程，并发不受线程数限制
+ * 4. 虚拟线程 + 在 synchronized 里阻塞：被钉住，并发退化成载体线程数（CPU 核数）
+ * 输出：总耗时、吞吐、同时在途的最大请求数、峰值平台线程数、进程内存（RSS）增量
+ */
+public class VirtualThreadBenchmark {
+
+    private static final int REQUESTS = 10_000;
+    private static final long LATENCY_MS = 100;
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("JDK %s，CPU %d 核，%,d 个请求，每个阻塞 %dms%n",
+                Runtime.version(), Runtime.getRuntime().availableProcessors(), REQUESTS, LATENCY_MS);
+
+        run("平台线程池(200)", Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), false);
+        run("平台线程/请求", Executors.newCachedThreadPool(), false);
+
+        ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+        if (virtual == null) {
+            System.out.println("当前 JDK 不支持虚拟线程，跳过虚拟线程部分（用 JDK 21+ 运行）");
+            return;
+        }
+        run("虚拟线程/请求", virtual, false);
+        run("虚拟线程+synchronized", newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    private static void run(String name, ExecutorService executor, boolean blockInsideSynchronized) throws Exception {
+        System.gc();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long rssBefore = rssKb();
+
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicLong maxRss = new AtomicLong(rssBefore);
+        long begin = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            Object lock = new Object();
+            executor.execute(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    if (blockInsideSynchronized) {
+                        synchronized (lock) {
+                            sleep();
+                        }
+                    } else {
+                        sleep();
+                    }
+                } finally {
+                    inFlight.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        // 请求都在途时采样内存
+        while (!done.await(20, TimeUnit.MILLISECONDS)) {
+            maxRss.accumulateAndGet(rssKb(), Math::max);
+        }
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.printf("%-22s 耗时 %,6d ms，吞吐 %,8.0f 请求/秒，最大在途 %,6d，峰值平台线程 %,6d，RSS 增量 %s%n",
+                name, costMs, REQUESTS * 1000.0 / costMs, maxInFlight.get(), threads.getPeakThreadCount(),
+                rssBefore < 0 ? "未知" : String.format("%,d KB", maxRss.get() - rssBefore));
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor()，JDK 17 下编译不了，用反射调用
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 进程常驻内存（Linux /proc/self/status 的 VmRSS），其它系统返回 -1
+     */
+    private static long rssKb() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (Exception ignored) {
+        }
+        return -1;
+    }
+}
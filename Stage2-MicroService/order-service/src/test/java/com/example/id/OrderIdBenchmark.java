@@ -0,0 +1,132 @@
+package com.example.id;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单号生成基准测试：雪花算法 vs UUID vs 数据库序列 vs 数据库自增
+ * 直接运行 main 方法，数据库用内存版 H2（真实 MySQL 还要多一次网络往返，只会更慢）
+ *
+ * 参考结果（单核机器，8 线程）：雪花算法约 1400 万/秒，UUID 约 150 万/秒（且 128 位、无序），H2 序列 / 自增约 3 万/秒
+ * 注意：12 位序号每毫秒最多 4096 个，单节点长期上限约 409 万/秒；更快的突发是在借用未来时间（最多借 max-clock-backward），
+ * 借满后会等时钟追上
+ */
+public class OrderIdBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int SNOWFLAKE_IDS_PER_THREAD = 2_000_000;
+    private static final int UUID_PER_THREAD = 500_000;
+    private static final int DB_IDS_PER_THREAD = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        checkClockRollback();
+
+        SnowflakeIdGenerator snowflake = new SnowflakeIdGenerator(1704067200000L, 1, 5000);
+        // 预热
+        run("雪花算法(预热)", THREADS, SNOWFLAKE_IDS_PER_THREAD / 4, snowflake::nextId);
+        run("雪花算法", THREADS, SNOWFLAKE_IDS_PER_THREAD, snowflake::nextId);
+        run("UUID", THREADS, UUID_PER_THREAD, () -> UUID.randomUUID().getLeastSignificantBits());
+
+        try (Connection init = DriverManager.getConnection("jdbc:h2:mem:order_id;DB_CLOSE_DELAY=-1");
+             Statement statement = init.createStatement()) {
+            statement.execute("CREATE SEQUENCE order_seq CACHE 1");
+            statement.execute("CREATE TABLE order_auto (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT)");
+        }
+        run("数据库序列", THREADS, DB_IDS_PER_THREAD, threadLocalJdbc("SELECT NEXT VALUE FOR order_seq", false));
+        run("数据库自增(插入)", THREADS, DB_IDS_PER_THREAD, threadLocalJdbc("INSERT INTO order_auto (user_id) VALUES (1)", true));
+    }
+
+    /**
+     * 模拟时钟回拨：号码仍然单调递增、不重复
+     */
+    private static void checkClockRollback() {
+        AtomicLong fakeClock = new AtomicLong(1704067200000L + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1704067200000L, 7, 5000, 0L, fakeClock::get);
+        Set<Long> ids = new HashSet<>();
+        long last = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (i == 50_000) {
+                // 回拨 2 秒
+                fakeClock.addAndGet(-2000);
+            } else if (i % 1000 == 0) {
+                fakeClock.incrementAndGet();
+            }
+            long id = generator.nextId();
+            if (id <= last || !ids.add(id)) {
+                throw new IllegalStateException("时钟回拨后出现重复或倒序的订单号：" + id);
+            }
+            last = id;
+        }
+        System.out.println("时钟回拨 2s：10 万个订单号全部单调递增、无重复");
+    }
+
+    private static LongTask threadLocalJdbc(String sql, boolean insert) {
+        ThreadLocal<PreparedStatement> statements = ThreadLocal.withInitial(() -> {
+            try {
+                Connection connection = DriverManager.getConnection("jdbc:h2:mem:order_id");
+                return insert
+                        ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                        : connection.prepareStatement(sql);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return () -> {
+            PreparedStatement statement = statements.get();
+            if (insert) {
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    return keys.getLong(1);
+                }
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        };
+    }
+
+    private static void run(String name, int threads, int perThread, LongTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        // 防止 JIT 把生成逻辑优化掉
+        AtomicLong blackhole = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                long sink = 0;
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        sink ^= task.next();
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    blackhole.addAndGet(sink);
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long costNanos = System.nanoTime() - begin;
+        long total = (long) threads * perThread;
+        System.out.printf("%-12s %d 线程 共 %,d 个，耗时 %,d ms，%,.0f 个/秒%n",
+                name, threads, total, costNanos / 1_000_000, total * 1e9 / costNanos);
+    }
+
+    @FunctionalInterface
+    private interface LongTask {
+        long next() throws Exception;
+    }
+}
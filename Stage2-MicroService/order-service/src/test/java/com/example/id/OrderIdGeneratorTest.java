@@ -0,0 +1,77 @@
+package com.example.id;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 订单号生成器重启：续用时间水位、不阻塞启动、真正的时钟回拨拒绝启动
+ */
+class OrderIdGeneratorTest {
+
+    @TempDir
+    Path registryDir;
+
+    @Test
+    void restartContinuesAfterPreviousIdsWithoutBlocking() {
+        OrderIdProperties properties = properties();
+        OrderIdGenerator first = new OrderIdGenerator(properties);
+        long last = 0;
+        for (int i = 0; i < 10_000; i++) {
+            last = first.nextId();
+        }
+        int workerId = first.getWorkerId();
+        first.destroy();
+
+        long start = System.nanoTime();
+        OrderIdGenerator second = new OrderIdGenerator(properties);
+        long startupMillis = (System.nanoTime() - start) / 1_000_000;
+        try {
+            assertThat(second.getWorkerId()).isEqualTo(workerId);
+            // 以前要睡 heartbeat + max-clock-backward（这里是 8 秒）
+            assertThat(startupMillis).isLessThan(1000);
+            assertThat(second.nextId()).isGreaterThan(last);
+        } finally {
+            second.destroy();
+        }
+    }
+
+    @Test
+    void refusesToStartWhenClockIsFarBehindLastSave() throws Exception {
+        long future = System.currentTimeMillis() + 60_000;
+        writeLease(ByteBuffer.allocate(Long.BYTES * 2).putLong(future).putLong(future));
+        assertThatThrownBy(() -> new OrderIdGenerator(properties()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("时钟回拨");
+    }
+
+    @Test
+    void readsLegacyLeaseWithOnlyWatermark() throws Exception {
+        long watermark = System.currentTimeMillis() - 1000;
+        writeLease(ByteBuffer.allocate(Long.BYTES).putLong(watermark));
+        try (WorkerIdRegistry.Lease lease = new WorkerIdRegistry(registryDir.toString()).acquire()) {
+            assertThat(lease.getWorkerId()).isZero();
+            assertThat(lease.getLastTimestamp()).isEqualTo(watermark);
+            assertThat(lease.getLastSavedAt()).isEqualTo(watermark);
+        }
+    }
+
+    private OrderIdProperties properties() {
+        OrderIdProperties properties = new OrderIdProperties();
+        properties.setRegistryDir(registryDir.toString());
+        properties.setHeartbeat(Duration.ofSeconds(3));
+        properties.setMaxClockBackward(Duration.ofSeconds(5));
+        return properties;
+    }
+
+    private void writeLease(ByteBuffer content) throws Exception {
+        Files.write(registryDir.resolve("worker-0.lease"), content.array());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 雪花算法：时钟回拨、序号借用、重启续号
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1704067200000L;
+    private static final long MAX_BACKWARD_MS = 5000;
+
+    @Test
+    void idsStayMonotonicWhenClockStepsBack() {
+        AtomicLong clock = new AtomicLong(EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 7, MAX_BACKWARD_MS, 0L, clock::get);
+        long last = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (i == 50_000) {
+                // 回拨 2 秒（在容忍范围内）
+                clock.addAndGet(-2000);
+            } else if (i % 1000 == 0) {
+                clock.incrementAndGet();
+            }
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(last);
+            assertThat(id >>> SnowflakeIdGenerator.SEQUENCE_BITS & SnowflakeIdGenerator.MAX_WORKER_ID).isEqualTo(7);
+            last = id;
+        }
+    }
+
+    @Test
+    void sequenceOverflowBorrowsNextMillisecond() {
+        AtomicLong clock = new AtomicLong(EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1, MAX_BACKWARD_MS, 0L, clock::get);
+        long first = generator.nextId();
+        long last = first;
+        for (int i = 0; i < 5000; i++) {
+            last = generator.nextId();
+        }
+        // 时钟没动，4096 个用完后借用了下一毫秒
+        assertThat(generator.timestampOf(first)).isEqualTo(clock.get());
+        assertThat(generator.timestampOf(last)).isEqualTo(clock.get() + 1);
+    }
+
+    @Test
+    void rejectsClockStepBackBeyondLimit() {
+        AtomicLong clock = new AtomicLong(EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1, 100, 0L, clock::get);
+        generator.nextId();
+        clock.addAndGet(-1000);
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void restartResumesAfterWatermarkWithoutWaitingForClock() {
+        AtomicLong clock = new AtomicLong(EPOCH + 100_000);
+        SnowflakeIdGenerator before = new SnowflakeIdGenerator(EPOCH, 3, MAX_BACKWARD_MS, 0L, clock::get);
+        long lastBefore = 0;
+        for (int i = 0; i < 10_000; i++) {
+            lastBefore = before.nextId();
+        }
+        long resumeFrom = before.lastTimestamp() + 3000 + MAX_BACKWARD_MS;
+
+        // 重启后时钟还回拨了 1 秒：起点比时钟领先 9 秒多，生成器借用未来时间，不等待也不拒绝（假时钟不会走，等待必然超时抛异常）
+        clock.addAndGet(-1000);
+        SnowflakeIdGenerator after = new SnowflakeIdGenerator(EPOCH, 3, MAX_BACKWARD_MS, resumeFrom, clock::get);
+        long previous = lastBefore;
+        for (int i = 0; i < 10_000; i++) {
+            long id = after.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(after.timestampOf(previous)).isGreaterThanOrEqualTo(resumeFrom);
+    }
+
+    @Test
+    void borrowingAfterRestartIsStillBounded() {
+        AtomicLong clock = new AtomicLong(EPOCH + 100_000);
+        long resumeFrom = clock.get() + 8000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 3, 10, resumeFrom, clock::get);
+        // 起点之后最多再借 10ms（每毫秒 4096 个），借满后时钟不动就拒绝
+        assertThatThrownBy(() -> {
+            for (int i = 0; i < 4096 * 20; i++) {
+                generator.nextId();
+            }
+        }).isInstanceOf(IllegalStateException.class);
+        assertThat(generator.lastTimestamp()).isLessThan(resumeFrom + 10 + 1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.store;
+
+import com.example.entity.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 订单预写日志：追加、刷盘、检查点、崩溃后重放
+ */
+class OrderWalTest {
+
+    private static final int RECORD_BYTES = 32;
+    private static final long SEGMENT_SIZE = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysEverythingAfterCleanClose() throws IOException {
+        try (OrderWal wal = open()) {
+            long offset = appendOrders(wal, 1, 5);
+            wal.sync(offset);
+            assertThat(wal.durableOffset()).isEqualTo(offset);
+        }
+        try (OrderWal wal = open()) {
+            List<OrderWal.Entry> recovered = wal.takeRecovered();
+            assertThat(ids(recovered)).containsExactly(1L, 2L, 3L, 4L, 5L);
+            assertThat(recovered.get(4).getEndOffset()).isEqualTo(5 * RECORD_BYTES);
+            assertThat(recovered.get(2).getOrder()).isEqualTo(order(3));
+            // 只能取一次
+            assertThat(wal.takeRecovered()).isEmpty();
+        }
+    }
+
+    @Test
+    void truncatesHalfWrittenTailAndKeepsAppending() throws IOException {
+        try (OrderWal wal = open()) {
+            appendOrders(wal, 1, 5);
+        }
+        // 模拟崩溃时最后一条只写了一半
+        Path segment = onlySegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(5 * RECORD_BYTES - 10);
+        }
+
+        try (OrderWal wal = open()) {
+            assertThat(ids(wal.takeRecovered())).containsExactly(1L, 2L, 3L, 4L);
+            assertThat(Files.size(segment)).isEqualTo(4 * RECORD_BYTES);
+            // 截断后接着写，偏移量紧接在最后一条完整记录之后
+            assertThat(wal.append(order(6))).isEqualTo(5 * RECORD_BYTES);
+        }
+        try (OrderWal wal = open()) {
+            assertThat(ids(wal.takeRecovered())).containsExactly(1L, 2L, 3L, 4L, 6L);
+        }
+    }
+
+    @Test
+    void dropsTailRecordWithBadChecksum() throws IOException {
+        try (OrderWal wal = open()) {
+            appendOrders(wal, 1, 3);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(onlySegment().toFile(), "rw")) {
+            // 改坏最后一条记录的内容，CRC 对不上
+            file.seek(2 * RECORD_BYTES + 12);
+            file.write(0x7f);
+        }
+        try (OrderWal wal = open()) {
+            assertThat(ids(wal.takeRecovered())).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void replayStartsAfterCheckpoint() throws IOException {
+        try (OrderWal wal = open()) {
+            appendOrders(wal, 1, 5);
+            wal.sync(5 * RECORD_BYTES);
+            wal.checkpoint(3 * RECORD_BYTES);
+            assertThat(wal.unflushedBytes()).isEqualTo(2 * RECORD_BYTES);
+        }
+        try (OrderWal wal = open()) {
+            assertThat(wal.checkpointOffset()).isEqualTo(3 * RECORD_BYTES);
+            assertThat(ids(wal.takeRecovered())).containsExactly(4L, 5L);
+        }
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesCheckpointedOnes() throws IOException {
+        try (OrderWal wal = new OrderWal(dir.toString(), 2 * RECORD_BYTES)) {
+            long offset = appendOrders(wal, 1, 5);
+            wal.sync(offset);
+            assertThat(segments()).hasSize(3);
+            wal.checkpoint(4 * RECORD_BYTES);
+            // 前两段完全在检查点之前，删掉；当前段保留
+            assertThat(segments()).hasSize(1);
+        }
+        try (OrderWal wal = new OrderWal(dir.toString(), 2 * RECORD_BYTES)) {
+            assertThat(ids(wal.takeRecovered())).containsExactly(5L);
+            assertThat(wal.append(order(6))).isEqualTo(6 * RECORD_BYTES);
+        }
+    }
+
+    @Test
+    void droppedEntryCannotBeClaimedAndClaimedCannotBeDropped() {
+        OrderWal.Entry dropped = new OrderWal.Entry(order(1), RECORD_BYTES);
+        assertThat(dropped.drop()).isTrue();
+        assertThat(dropped.claim()).isFalse();
+
+        OrderWal.Entry claimed = new OrderWal.Entry(order(2), 2 * RECORD_BYTES);
+        assertThat(claimed.claim()).isTrue();
+        // 入库重试时会再认领一次
+        assertThat(claimed.claim()).isTrue();
+        assertThat(claimed.drop()).isFalse();
+    }
+
+    private OrderWal open() {
+        return new OrderWal(dir.toString(), SEGMENT_SIZE);
+    }
+
+    private static long appendOrders(OrderWal wal, long fromId, long toId) throws IOException {
+        long offset = 0;
+        for (long id = fromId; id <= toId; id++) {
+            offset = wal.append(order(id));
+        }
+        return offset;
+    }
+
+    private static Order order(long id) {
+        return new Order(id, 100 + id, 1_700_000_000_000L + id);
+    }
+
+    private static List<Long> ids(List<OrderWal.Entry> entries) {
+        return entries.stream().map(entry -> entry.getOrder().getId()).collect(Collectors.toList());
+    }
+
+    private Path onlySegment() throws IOException {
+        List<Path> segments = segments();
+        assertThat(segments).hasSize(1);
+        return segments.get(0);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("wal-")).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -1,21 +1,72 @@
 package com.example.controller;
 
 import com.example.entity.User;
+import com.example.event.UserChangedEvent;
 import com.example.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @RestController
 @RequestMapping("/user")
 public class UserController {
 
-    @GetMapping("/{id}")
-    public User getUserById(@PathVariable Long id) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    // 允许网关等共享缓存缓存多久（配合 EtagFilter 的 ETag，过期后可以 304 续期）
+    private final CacheControl cacheControl;
+
+    // 模拟存储：被修改过的用户（没修改过的按 id 生成测试数据）
+    private final Map<Long, User> changedUsers = new ConcurrentHashMap<>();
+
+    public UserController(ApplicationEventPublisher eventPublisher,
+                          @Value("${user.http-cache.max-age:10s}") Duration maxAge) {
+        this.eventPublisher = eventPublisher;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    /**
+     * 二进制格式的 Content-Type（需要 jackson-dataformat-smile / jackson-dataformat-cbor）
+     */
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    /**
+     * 查询用户：按请求的 Accept 返回 JSON / Smile / CBOR，没有 Accept 或不认识时返回 JSON
+     * 带 Cache-Control: public, max-age，网关可以直接缓存
+     */
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<User> getUserById(@PathVariable Long id) {
         System.out.println("getUserById！！！！！");
-        User user = new User();
+        User user = changedUsers.get(id);
+        if (user == null) {
+            user = new User();
+            user.setId(id);
+            user.setUsername("测试用户" + id);
+            user.setAge(20 + id.intValue());
+            user.setPhone("1380013800" + id);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(user);
+    }
+
+    /**
+     * 修改用户，并通知下游丢弃缓存
+     */
+    @PutMapping("/{id}")
+    public User updateUser(@PathVariable Long id, @RequestBody User user) {
         user.setId(id);
-        user.setUsername("测试用户" + id);
-        user.setAge(20 + id.intValue());
-        user.setPhone("1380013800" + id);
+        changedUsers.put(id, user);
+        eventPublisher.publishEvent(new UserChangedEvent(this, id));
         return user;
     }
 
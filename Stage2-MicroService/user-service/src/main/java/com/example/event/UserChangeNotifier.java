@@ -0,0 +1,77 @@
+package com.example.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 用户变更通知：把 UserChangedEvent 广播给订阅服务的每个实例（默认 order-service）
+ *
+ * 订阅方实例从 Nacos 查，逐个回调 POST /internal/user-cache/invalidate/{id}。
+ * 通知是尽力而为的：异步发送、短超时、失败只记日志，
+ * 漏掉的通知由订阅方缓存自身的 TTL 兜底。
+ */
+@Slf4j
+@Component
+public class UserChangeNotifier implements DisposableBean {
+
+    private final DiscoveryClient discoveryClient;
+    private final List<String> subscribers;
+    private final RestClient restClient;
+    private final ExecutorService notifyExecutor;
+
+    public UserChangeNotifier(DiscoveryClient discoveryClient,
+                              @Value("${user-change.subscribers:order-service}") List<String> subscribers) {
+        this.discoveryClient = discoveryClient;
+        this.subscribers = subscribers;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(500);
+        requestFactory.setReadTimeout(1000);
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        // 单线程顺序发送，队列满就丢（不能拖慢修改用户的接口）
+        this.notifyExecutor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(10_000),
+                r -> {
+                    Thread thread = new Thread(r, "user-change-notifier");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (r, executor) -> log.warn("用户变更通知队列已满，丢弃一条通知")
+        );
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        notifyExecutor.execute(() -> broadcast(event.getUserId()));
+    }
+
+    private void broadcast(Long userId) {
+        for (String serviceId : subscribers) {
+            for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                String url = instance.getUri() + "/internal/user-cache/invalidate/" + userId;
+                try {
+                    restClient.post().uri(url).retrieve().toBodilessEntity();
+                } catch (Exception e) {
+                    log.warn("用户变更通知失败，url={}，原因：{}", url, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        notifyExecutor.shutdown();
+    }
+}
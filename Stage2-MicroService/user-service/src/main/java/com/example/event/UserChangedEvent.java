@@ -0,0 +1,18 @@
+package com.example.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户变更事件：修改/删除用户后发布，通知下游丢弃用户缓存
+ */
+@Getter
+public class UserChangedEvent extends ApplicationEvent {
+
+    private final Long userId;
+
+    public UserChangedEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 截止时间过滤器：上游（网关 / order-service）通过 X-Request-Budget-Ms 传来剩余预算，
+ * 预算已耗尽说明调用方已经放弃等待，直接返回 504，不再消耗 user-service 的容量
+ */
+@Component
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String BUDGET_HEADER = "X-Request-Budget-Ms";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String budget = request.getHeader(BUDGET_HEADER);
+        if (budget != null && isExhausted(budget)) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), "请求已超过截止时间");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean isExhausted(String budget) {
+        try {
+            return Long.parseLong(budget.trim()) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.filter;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * ETag 过滤器：GET 响应按内容计算 ETag；请求带的 If-None-Match 相同时返回 304，不再传输包体
+ * 网关的 ResponseCache 过期后就是靠它确认缓存是否还能用
+ */
+@Component
+public class EtagFilter extends ShallowEtagHeaderFilter {
+}
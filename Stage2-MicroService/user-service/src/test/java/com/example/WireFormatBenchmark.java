@@ -0,0 +1,75 @@
+package com.example;
+
+import com.example.entity.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 传输格式基准测试：JSON vs Smile vs CBOR
+ * 直接运行 main 方法，分别测单个 User 和 100 个 User 的列表：序列化后字节数、编码耗时、解码耗时
+ */
+public class WireFormatBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int WARMUP_ROUNDS = 200_000;
+    private static final int ROUNDS = 500_000;
+
+    public static void main(String[] args) throws Exception {
+        User single = user(1);
+        List<User> batch = new ArrayList<>();
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            batch.add(user(i));
+        }
+
+        ObjectMapper[] mappers = {new ObjectMapper(), new SmileMapper(), new CBORMapper()};
+        String[] names = {"JSON", "Smile", "CBOR"};
+
+        System.out.println("== 单个 User ==");
+        for (int i = 0; i < mappers.length; i++) {
+            run(names[i], mappers[i], single, new TypeReference<User>() { }, ROUNDS);
+        }
+        System.out.println("== " + BATCH_SIZE + " 个 User ==");
+        for (int i = 0; i < mappers.length; i++) {
+            run(names[i], mappers[i], batch, new TypeReference<List<User>>() { }, ROUNDS / BATCH_SIZE);
+        }
+    }
+
+    private static <T> void run(String name, ObjectMapper mapper, T value, TypeReference<T> type, int rounds) throws Exception {
+        byte[] bytes = mapper.writeValueAsBytes(value);
+        long sink = 0;
+        // 预热，让 JIT 编译完
+        for (int i = 0; i < WARMUP_ROUNDS / 10; i++) {
+            sink += mapper.writeValueAsBytes(value).length;
+            sink += mapper.readValue(bytes, type).hashCode();
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += mapper.writeValueAsBytes(value).length;
+        }
+        long encodeNanos = (System.nanoTime() - begin) / rounds;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += mapper.readValue(bytes, type).hashCode();
+        }
+        long decodeNanos = (System.nanoTime() - begin) / rounds;
+
+        System.out.printf("%-6s %,7d 字节，编码 %,8d ns/次，解码 %,8d ns/次（%d）%n",
+                name, bytes.length, encodeNanos, decodeNanos, sink & 1);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("测试用户" + id);
+        user.setAge(20 + (int) id);
+        user.setPhone("1380013800" + id);
+        return user;
+    }
+}